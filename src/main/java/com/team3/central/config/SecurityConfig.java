@@ -31,13 +31,16 @@ public class SecurityConfig {
         .disable()
         .cors(Customizer.withDefaults())
         .authorizeHttpRequests()
-        .antMatchers(HttpMethod.POST, "/organizer", "/organizer/{id}", "/reservation", "/categories")
+        .antMatchers(HttpMethod.POST, "/organizer", "/organizer/{id}", "/reservation",
+            "/reservation/confirm", "/reservation/batch", "/reservation/batch/cancel",
+            "/reservation/queue", "/reservation/waitlist", "/categories")
         .permitAll()
         .antMatchers(HttpMethod.GET, "/ping", "/organizer/**", "/swagger-ui/**",
             "/v3/api-docs/**", "/events", "/events/{id}", "/events/{id}/photos" ,
-            "/events/getByCategory", "/categories")
+            "/events/{id}/places/changes", "/events/{id}/places/stream", "/events/getByCategory",
+            "/categories", "/reservation/queue", "/reservation/waitlist")
         .permitAll()
-        .antMatchers(HttpMethod.DELETE, "/reservation")
+        .antMatchers(HttpMethod.DELETE, "/reservation", "/reservation/waitlist")
         .permitAll()
         .anyRequest()
         .authenticated()
@@ -43,10 +43,22 @@ public class CategoriesApiImpl implements CategoriesApi {
   /**
    * GET /categories : Return list of all categories
    *
+   * @param ifNoneMatch ETag of response read before, answered with 304 when it is still current
+   *                    (optional)
    * @return successful operation (status code 200)
+   *         or categories did not change since ETag given in If-None-Match (status code 304)
    */
   @Override
-  public ResponseEntity<List<Category>> getCategories() {
-    return new ResponseEntity<>(categoriesService.getAllCategories(), HttpStatus.OK);
+  public ResponseEntity<List<Category>> getCategories(String ifNoneMatch) {
+    if (ifNoneMatch != null) {
+      String etag = categoriesService.getCategoriesTag();
+      if (ETags.matches(ifNoneMatch, etag)) {
+        return ETags.notModified(etag);
+      }
+    }
+    List<Category> categories = categoriesService.getAllCategories();
+    return ResponseEntity.ok()
+        .eTag(categoriesService.getCategoriesTag(categories))
+        .body(categories);
   }
 }
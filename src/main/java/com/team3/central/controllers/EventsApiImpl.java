@@ -1,21 +1,28 @@
 package com.team3.central.controllers;
 
+import com.team3.central.mappers.PlaceEncoding;
 import com.team3.central.openapi.api.EventsApi;
 import com.team3.central.openapi.model.Event;
 import com.team3.central.openapi.model.EventForm;
 import com.team3.central.openapi.model.EventPatch;
 import com.team3.central.openapi.model.EventWithPlaces;
+import com.team3.central.openapi.model.PlaceChanges;
+import com.team3.central.repositories.EventPageQuery.Sort;
+import com.team3.central.repositories.EventPageQuery;
 import com.team3.central.repositories.entities.OrganizerEntity;
 import com.team3.central.services.AwsS3Service;
 import com.team3.central.services.CategoriesService;
 import com.team3.central.services.EventService;
+import com.team3.central.services.EventsPage;
 import com.team3.central.services.OrganizerService;
+import com.team3.central.services.TaggedEvent;
 import com.team3.central.services.exceptions.BadIdentificationException;
 import com.team3.central.services.exceptions.EventNotChangedException;
 import com.team3.central.services.exceptions.NoCategoryException;
 import com.team3.central.services.exceptions.NotFoundException;
 import com.team3.central.services.exceptions.PhotoExist;
 import com.team3.central.services.exceptions.PhotoNotExist;
+import com.team3.central.services.exceptions.ReservedPlacesException;
 import com.team3.central.validators.CategoryValidator;
 import com.team3.central.validators.EventValidator;
 import java.util.List;
@@ -33,6 +40,9 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class EventsApiImpl implements EventsApi {
 
+  private static final int DEFAULT_PAGE_LIMIT = 50;
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   private final EventService eventService;
   private final OrganizerService organizerService;
   private final CategoriesService categoryService;
@@ -111,15 +121,32 @@ public class EventsApiImpl implements EventsApi {
    * GET /events/getByCategory : Return list of all events in category
    *
    * @param categoryId ID of category (required)
-   * @return successful operation (status code 200) or Invalid category ID supplied (status code
-   * 400)
+   * @param limit most events in page (optional, default to 50)
+   * @param after X-Next-Cursor of previous page, missing for first page (optional)
+   * @param sort order of events, cursor is valid only for the sort it was made with (optional,
+   *             default to id)
+   * @param from only events starting at this time or later (optional)
+   * @param to only events starting before this time (optional)
+   * @param ifNoneMatch ETag of response read before, answered with 304 when it is still current
+   *                    (optional)
+   * @return successful operation, X-Next-Cursor is set when there is next page (status code 200)
+   *         or page did not change since ETag given in If-None-Match (status code 304)
+   *         or Invalid category ID or page parameters supplied (status code 400)
    */
   @Override
-  public ResponseEntity<List<Event>> getByCategory(Long categoryId) {
+  public ResponseEntity<List<Event>> getByCategory(Long categoryId, Integer limit, String after,
+      String sort, Long from, Long to, String ifNoneMatch) {
     try {
       categoryValidator.validateCategoryId(categoryId);
+      EventPageQuery query = toPageQuery(limit, sort, from, to);
+      if (ifNoneMatch != null) {
+        String etag = eventService.getEventsByCategoryTag(categoryId, query, after);
+        if (ETags.matches(ifNoneMatch, etag)) {
+          return ETags.notModified(etag);
+        }
+      }
 
-      return new ResponseEntity<>(eventService.getEventsByCategory(categoryId), HttpStatus.OK);
+      return toResponse(eventService.getEventsByCategory(categoryId, query, after));
     } catch (Exception e) {
       if (e instanceof IllegalArgumentException) {
         return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -134,17 +161,31 @@ public class EventsApiImpl implements EventsApi {
    * Returns a single event
    *
    * @param id ID of event to return (required)
+   * @param placeEncoding how places are sent: list of places, bitset of taken places or runs of
+   *                      free and taken places (optional, default to list)
+   * @param ifNoneMatch ETag of response read before, answered with 304 when it is still current
+   *                    (optional)
    * @return successful operation (status code 200)
+   *         or event did not change since ETag given in If-None-Match (status code 304)
    *         or Invalid ID supplied (status code 400)
    *         or Event not found (status code 404)
    */
   @Override
-  public ResponseEntity<EventWithPlaces> getEventById(Long id) {
+  public ResponseEntity<EventWithPlaces> getEventById(Long id, String placeEncoding,
+      String ifNoneMatch) {
     try {
       eventValidator.validateEventId(id);
-      Optional<EventWithPlaces> event = eventService.getById(id);
+      PlaceEncoding encoding = PlaceEncoding.fromParameter(
+          placeEncoding == null ? "list" : placeEncoding);
+      if (ifNoneMatch != null) {
+        Optional<String> etag = eventService.getEventTag(id);
+        if (etag.isPresent() && ETags.matches(ifNoneMatch, etag.get())) {
+          return ETags.notModified(etag.get());
+        }
+      }
+      TaggedEvent event = eventService.getById(id, encoding);
 
-      return new ResponseEntity<>(event.get(), HttpStatus.OK);
+      return ResponseEntity.ok().eTag(event.getEtag()).body(event.getEvent());
     } catch (Exception e) {
       if (e instanceof IllegalArgumentException) {
         return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -159,37 +200,112 @@ public class EventsApiImpl implements EventsApi {
   }
 
   /**
-   * GET /events : Return list of all events
+   * GET /events/{id}/places/changes : Return places of event changed since version read before
+   * Returns all places when changes since version are not known any more
    *
+   * @param id ID of event (required)
+   * @param since version of previous response, missing for first request (optional)
    * @return successful operation (status code 200)
+   *         or Invalid ID supplied (status code 400)
+   *         or Event not found (status code 404)
+   */
+  @Override
+  public ResponseEntity<PlaceChanges> getPlaceChanges(Long id, Long since) {
+    try {
+      eventValidator.validateEventId(id);
+
+      return new ResponseEntity<>(eventService.getPlaceChanges(id, since), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    } catch (NotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+  }
+
+  /**
+   * GET /events : Return page of events
+   *
+   * @param limit most events in page (optional, default to 50)
+   * @param after X-Next-Cursor of previous page, missing for first page (optional)
+   * @param sort order of events, cursor is valid only for the sort it was made with (optional,
+   *             default to id)
+   * @param from only events starting at this time or later (optional)
+   * @param to only events starting before this time (optional)
+   * @param ifNoneMatch ETag of response read before, answered with 304 when it is still current
+   *                    (optional)
+   * @return successful operation, X-Next-Cursor is set when there is next page (status code 200)
+   *         or page did not change since ETag given in If-None-Match (status code 304)
+   *         or invalid page parameters (status code 400)
    */
   @Override
-  public ResponseEntity<List<Event>> getEvents() {
-    return new ResponseEntity<>(eventService.getAllEvents(), HttpStatus.OK);
+  public ResponseEntity<List<Event>> getEvents(Integer limit, String after, String sort,
+      Long from, Long to, String ifNoneMatch) {
+    try {
+      EventPageQuery query = toPageQuery(limit, sort, from, to);
+      if (ifNoneMatch != null) {
+        String etag = eventService.getAllEventsTag(query, after);
+        if (ETags.matches(ifNoneMatch, etag)) {
+          return ETags.notModified(etag);
+        }
+      }
+
+      return toResponse(eventService.getAllEvents(query, after));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
   }
 
   /**
    *
    * User needs to be authorized
    *
-   * GET /events/my : Return list of events made by organizer, according to session
+   * GET /events/my : Return page of events made by organizer, according to session
    *
-   * @return successful operation (status code 200)
+   * @param limit most events in page (optional, default to 50)
+   * @param after X-Next-Cursor of previous page, missing for first page (optional)
+   * @param sort order of events, cursor is valid only for the sort it was made with (optional,
+   *             default to id)
+   * @param from only events starting at this time or later (optional)
+   * @param to only events starting before this time (optional)
+   * @return successful operation, X-Next-Cursor is set when there is next page (status code 200)
+   *         or invalid page parameters (status code 400)
    *         or invalid session (status code 403)
    */
   @Override
-  public ResponseEntity<List<Event>> getMyEvents() {
-    UserDetails userDetails = null;
+  public ResponseEntity<List<Event>> getMyEvents(Integer limit, String after, String sort,
+      Long from, Long to) {
     try {
-      userDetails = getUserDetails();
+      UserDetails userDetails = getUserDetails();
+      OrganizerEntity organizer = organizerService.getOrganizerFromEmail(userDetails.getUsername());
+      EventPageQuery query = toPageQuery(limit, sort, from, to);
 
-      return new ResponseEntity<>(eventService.getForUser(userDetails.getUsername()),
-          HttpStatus.OK);
-    } catch (BadIdentificationException e) {
+      return toResponse(eventService.getForOrganizer(organizer.getId(), query, after));
+    } catch (BadIdentificationException | NotFoundException e) {
       return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
   }
 
+  private EventPageQuery toPageQuery(Integer limit, String sort, Long from, Long to)
+      throws IllegalArgumentException {
+    eventValidator.validatePage(limit, from, to);
+    return EventPageQuery.builder()
+        .sort(Sort.fromParameter(sort == null ? "id" : sort))
+        .from(from)
+        .to(to)
+        .limit(limit == null ? DEFAULT_PAGE_LIMIT : limit)
+        .build();
+  }
+
+  private static ResponseEntity<List<Event>> toResponse(EventsPage page) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(page.getEtag());
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    return response.body(page.getEvents());
+  }
+
   /**
    * PATCH /events/{id} : patch existing event
    *
@@ -197,7 +313,7 @@ public class EventsApiImpl implements EventsApi {
    * @param eventPatch Update an existent user in the store (optional)
    * @return nothing to do, no field to patch (status code 200)
    *         or patched (status code 202)
-   *         or invalid id or fields in body (status code 400)
+   *         or invalid id or fields in body, or reserved places above new maxPlace (status code 400)
    *         or invalid session (status code 403)
    *         or id not found (status code 404)
    */
@@ -219,6 +335,8 @@ public class EventsApiImpl implements EventsApi {
         return new ResponseEntity<>(HttpStatus.OK);
       } else if (e instanceof NoCategoryException) {
         return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else if (e instanceof ReservedPlacesException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
       } else if (e instanceof BadIdentificationException) {
         return new ResponseEntity<>(HttpStatus.FORBIDDEN);
       } else {
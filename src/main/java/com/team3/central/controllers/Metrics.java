@@ -0,0 +1,32 @@
+package com.team3.central.controllers;
+
+import com.team3.central.services.journal.SeatChangeJournal;
+import com.team3.central.services.journal.SeatChangeJournalStats;
+import com.team3.central.services.seats.SeatMapCache;
+import com.team3.central.services.seats.SeatMapCacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operational counters of this instance, not part of public API. User needs to be authorized
+ */
+@RestController
+@RequestMapping("/metrics")
+@RequiredArgsConstructor
+public class Metrics {
+
+  private final SeatMapCache seatMapCache;
+  private final SeatChangeJournal seatChangeJournal;
+
+  @GetMapping("/seatMapCache")
+  SeatMapCacheStats getSeatMapCacheStats() {
+    return seatMapCache.getStats();
+  }
+
+  @GetMapping("/seatChangeJournal")
+  SeatChangeJournalStats getSeatChangeJournalStats() {
+    return seatChangeJournal.getStats();
+  }
+}
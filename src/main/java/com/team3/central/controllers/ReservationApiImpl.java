@@ -1,16 +1,36 @@
 package com.team3.central.controllers;
 
+import com.team3.central.mappers.QueueTicketMapper;
 import com.team3.central.mappers.ReservationMapper;
+import com.team3.central.mappers.WaitlistEntryMapper;
 import com.team3.central.openapi.api.ReservationApi;
+import com.team3.central.openapi.model.CancellationForm;
+import com.team3.central.openapi.model.CancellationResult;
+import com.team3.central.openapi.model.QueueTicket;
 import com.team3.central.openapi.model.ReservationDTO;
+import com.team3.central.openapi.model.ReservationsForm;
+import com.team3.central.openapi.model.WaitlistEntryDTO;
+import com.team3.central.openapi.model.WaitlistForm;
 import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.WaitlistEntry;
+import com.team3.central.services.IdempotencyService;
 import com.team3.central.services.ReservationService;
+import com.team3.central.services.admission.AdmissionService;
+import com.team3.central.services.exceptions.IdempotencyKeyReusedException;
 import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotAdmittedException;
 import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.RequestInProgressException;
+import com.team3.central.services.exceptions.SoldOutException;
+import com.team3.central.services.waitlist.WaitlistService;
 import com.team3.central.validators.EventValidator;
 import com.team3.central.validators.ReservationValidator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -23,22 +43,35 @@ public class ReservationApiImpl implements ReservationApi {
   private final ReservationService reservationService;
   private final ReservationValidator reservationValidator;
   private final EventValidator eventValidator;
+  private final IdempotencyService idempotencyService;
+  private final AdmissionService admissionService;
+  private final WaitlistService waitlistService;
 
   /**
    * DELETE /reservation : Delete reservation Delete reservation
    *
    * @param reservationToken token of reservation (required)
-   * @return deleted (status code 204) or token not found (status code 404)
+   * @param idempotencyKey   key of retried request (optional)
+   * @return deleted (status code 204) or token not found (status code 404) or first request with
+   * idempotency key still runs (status code 409) or idempotency key already used for other
+   * request (status code 422)
    */
   @Override
-  public ResponseEntity<Void> deleteReservation(String reservationToken) {
+  public ResponseEntity<Void> deleteReservation(String reservationToken, String idempotencyKey) {
     try {
       reservationValidator.validateReservationToken(reservationToken);
-      reservationService.deleteReservation(reservationToken);
+      idempotencyService.execute("deleteReservation", idempotencyKey, reservationToken, () -> {
+        reservationService.deleteReservation(reservationToken);
+        return reservationToken;
+      });
       return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     } catch (Exception e) {
       if (e instanceof NotFoundException) {
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } else if (e instanceof RequestInProgressException) {
+        return new ResponseEntity<>(HttpStatus.CONFLICT);
+      } else if (e instanceof IdempotencyKeyReusedException) {
+        return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
       } else if (e instanceof IllegalArgumentException) {
         return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
       } else {
@@ -52,22 +85,41 @@ public class ReservationApiImpl implements ReservationApi {
    *
    * @param eventId ID of event (required)
    * @param placeID ID of place (optional)
+   * @param idempotencyKey  key of retried request (optional)
+   * @param admissionTicket admitted ticket from waiting room (optional)
    * @return created (status code 201) or no free place or place taken (status code 400) or event
-   * not exist or done (status code 404)
+   * not exist or done (status code 404) or first request with idempotency key still runs (status
+   * code 409) or idempotency key already used for other request (status code 422) or not admitted
+   * yet (status code 429)
    */
   @Override
-  public ResponseEntity<ReservationDTO> makeReservation(Long eventId, Long placeID) {
+  public ResponseEntity<ReservationDTO> makeReservation(Long eventId, Long placeID,
+      String idempotencyKey, String admissionTicket) {
 
     try {
       eventValidator.validateEventId(eventId);
       reservationValidator.validatePlaceId(placeID);
-      Reservation reservation = reservationService.makeReservation(eventId, placeID);
       ReservationMapper reservationMappper = new ReservationMapper();
-      return new ResponseEntity<>(reservationMappper.convertToModel(reservation),
-          HttpStatus.CREATED);
+      // Retry gets the same reservation, seats are not touched again
+      ReservationDTO reservationDTO = idempotencyService.execute("makeReservation",
+          idempotencyKey, eventId + "/" + placeID,
+          () -> admissionService.admit(eventId, admissionTicket,
+              () -> reservationMappper.convertToModel(
+                  reservationService.makeReservation(eventId, placeID))));
+      return new ResponseEntity<>(reservationDTO, HttpStatus.CREATED);
     } catch (Exception e) {
       if (e instanceof NotFoundException) {
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } else if (e instanceof RequestInProgressException) {
+        return new ResponseEntity<>(HttpStatus.CONFLICT);
+      } else if (e instanceof IdempotencyKeyReusedException) {
+        return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+      } else if (e instanceof NotAdmittedException) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(((NotAdmittedException) e).getRetryAfter())).build();
+      } else if (e instanceof SoldOutException) {
+        return ResponseEntity.badRequest().header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(((SoldOutException) e).getRetryAfter())).build();
       } else if (e instanceof NoFreePlaceException) {
         return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
       } else if (e instanceof IllegalArgumentException) {
@@ -77,4 +129,208 @@ public class ReservationApiImpl implements ReservationApi {
       }
     }
   }
+
+  /**
+   * POST /reservation/confirm : Confirm held reservation
+   *
+   * @param reservationToken token of reservation (required)
+   * @return confirmed (status code 200) or invalid token (status code 400) or token not found or
+   * hold expired (status code 404)
+   */
+  @Override
+  public ResponseEntity<ReservationDTO> confirmReservation(String reservationToken) {
+    try {
+      reservationValidator.validateReservationToken(reservationToken);
+      Reservation reservation = reservationService.confirmReservation(reservationToken);
+      ReservationMapper reservationMappper = new ReservationMapper();
+      return new ResponseEntity<>(reservationMappper.convertToModel(reservation), HttpStatus.OK);
+    } catch (Exception e) {
+      if (e instanceof NotFoundException) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } else if (e instanceof IllegalArgumentException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else {
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    }
+  }
+
+  /**
+   * POST /reservation/batch : Create several reservations at once
+   *
+   * @param eventId          ID of event (required)
+   * @param reservationsForm Places to reserve (required)
+   * @param admissionTicket  admitted ticket from waiting room (optional)
+   * @return created (status code 201) or invalid body, not enough free places or place taken
+   * (status code 400) or event or place not exist or event done (status code 404) or not
+   * admitted yet (status code 429)
+   */
+  @Override
+  public ResponseEntity<List<ReservationDTO>> makeReservations(Long eventId,
+      ReservationsForm reservationsForm, String admissionTicket) {
+    try {
+      eventValidator.validateEventId(eventId);
+      reservationValidator.validateReservationsForm(reservationsForm);
+      List<Reservation> reservations = admissionService.admit(eventId, admissionTicket,
+          () -> reservationService.makeReservations(eventId, reservationsForm.getPlaceIds(),
+              reservationsForm.getCount(),
+              Boolean.TRUE.equals(reservationsForm.getContiguous())));
+      ReservationMapper reservationMappper = new ReservationMapper();
+      return new ResponseEntity<>(reservations.stream()
+          .map(reservationMappper::convertToModel)
+          .collect(Collectors.toList()), HttpStatus.CREATED);
+    } catch (Exception e) {
+      if (e instanceof NotFoundException) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } else if (e instanceof NotAdmittedException) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(((NotAdmittedException) e).getRetryAfter())).build();
+      } else if (e instanceof SoldOutException) {
+        return ResponseEntity.badRequest().header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(((SoldOutException) e).getRetryAfter())).build();
+      } else if (e instanceof NoFreePlaceException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else if (e instanceof IllegalArgumentException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else {
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    }
+  }
+
+  /**
+   * POST /reservation/batch/cancel : Cancel several reservations at once
+   *
+   * @param cancellationForm Tokens of reservations to cancel (required)
+   * @return processed (status code 200) or invalid body (status code 400)
+   */
+  @Override
+  public ResponseEntity<List<CancellationResult>> cancelReservations(
+      CancellationForm cancellationForm) {
+    try {
+      reservationValidator.validateCancellationForm(cancellationForm);
+      List<String> reservationTokens = cancellationForm.getReservationTokens().stream()
+          .distinct()
+          .collect(Collectors.toList());
+      Set<String> cancelledTokens = reservationService.deleteReservations(reservationTokens);
+      return new ResponseEntity<>(reservationTokens.stream()
+          .map(token -> new CancellationResult().reservationToken(token)
+              .cancelled(cancelledTokens.contains(token)))
+          .collect(Collectors.toList()), HttpStatus.OK);
+    } catch (Exception e) {
+      if (e instanceof IllegalArgumentException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else {
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    }
+  }
+
+  /**
+   * POST /reservation/queue : Join waiting room of event
+   *
+   * @param eventId ID of event (required)
+   * @return joined (status code 201) or event sold out (status code 400) or event not exist or
+   * done (status code 404)
+   */
+  @Override
+  public ResponseEntity<QueueTicket> joinQueue(Long eventId) {
+    try {
+      eventValidator.validateEventId(eventId);
+      QueueTicketMapper queueTicketMapper = new QueueTicketMapper();
+      return new ResponseEntity<>(queueTicketMapper.convertToModel(admissionService.join(eventId)),
+          HttpStatus.CREATED);
+    } catch (Exception e) {
+      if (e instanceof NotFoundException) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } else if (e instanceof SoldOutException) {
+        return ResponseEntity.badRequest().header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(((SoldOutException) e).getRetryAfter())).build();
+      } else if (e instanceof IllegalArgumentException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else {
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    }
+  }
+
+  /**
+   * GET /reservation/queue : Get position in waiting room
+   *
+   * @param admissionTicket ticket from waiting room (required)
+   * @return success (status code 200) or invalid or expired ticket (status code 400)
+   */
+  @Override
+  public ResponseEntity<QueueTicket> getQueuePosition(String admissionTicket) {
+    try {
+      QueueTicketMapper queueTicketMapper = new QueueTicketMapper();
+      return new ResponseEntity<>(
+          queueTicketMapper.convertToModel(admissionService.getPosition(admissionTicket)),
+          HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * POST /reservation/waitlist : Join waitlist of event
+   *
+   * @param eventId      ID of event (required)
+   * @param waitlistForm Where to send offered place (required)
+   * @return joined (status code 201) or invalid email (status code 400) or event not exist or
+   * done (status code 404)
+   */
+  @Override
+  public ResponseEntity<WaitlistEntryDTO> joinWaitlist(Long eventId, WaitlistForm waitlistForm) {
+    try {
+      eventValidator.validateEventId(eventId);
+      reservationValidator.validateWaitlistForm(waitlistForm);
+      WaitlistEntry entry = waitlistService.join(eventId, waitlistForm.getEmail());
+      WaitlistEntryMapper waitlistEntryMapper = new WaitlistEntryMapper();
+      return new ResponseEntity<>(waitlistEntryMapper.convertToModel(entry,
+          waitlistService.getPlaceInLine(entry)), HttpStatus.CREATED);
+    } catch (Exception e) {
+      if (e instanceof NotFoundException) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      } else if (e instanceof IllegalArgumentException) {
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+      } else {
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+    }
+  }
+
+  /**
+   * GET /reservation/waitlist : Get waitlist entry
+   *
+   * @param waitlistToken token of waitlist entry (required)
+   * @return success (status code 200) or token not found (status code 404)
+   */
+  @Override
+  public ResponseEntity<WaitlistEntryDTO> getWaitlistEntry(String waitlistToken) {
+    try {
+      WaitlistEntry entry = waitlistService.getEntry(waitlistToken);
+      WaitlistEntryMapper waitlistEntryMapper = new WaitlistEntryMapper();
+      return new ResponseEntity<>(waitlistEntryMapper.convertToModel(entry,
+          waitlistService.getPlaceInLine(entry)), HttpStatus.OK);
+    } catch (NotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+  }
+
+  /**
+   * DELETE /reservation/waitlist : Leave waitlist
+   *
+   * @param waitlistToken token of waitlist entry (required)
+   * @return left (status code 204) or token not found (status code 404)
+   */
+  @Override
+  public ResponseEntity<Void> leaveWaitlist(String waitlistToken) {
+    try {
+      waitlistService.leave(waitlistToken);
+      return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    } catch (NotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+  }
 }
@@ -0,0 +1,32 @@
+package com.team3.central.controllers;
+
+import com.team3.central.services.journal.ReplayedEvent;
+import com.team3.central.services.journal.SeatChangeReplay;
+import java.time.Clock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Places of event rebuilt from seat change journal, for audit and for checking free place counter
+ * of seat storage against it. Not part of public API. User needs to be authorized
+ */
+@RestController
+@RequestMapping("/journal")
+@RequiredArgsConstructor
+public class SeatChangeReplays {
+
+  private final SeatChangeReplay seatChangeReplay;
+
+  // Places as they were at epoch millisecond at, now when it is missing
+  @GetMapping("/events/{id}")
+  ResponseEntity<ReplayedEvent> replay(@PathVariable Long id,
+      @RequestParam(required = false) Long at) {
+    return ResponseEntity.of(seatChangeReplay.replay(id,
+        at == null ? Clock.systemUTC().millis() : at));
+  }
+}
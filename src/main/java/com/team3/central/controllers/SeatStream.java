@@ -0,0 +1,51 @@
+package com.team3.central.controllers;
+
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.stream.SeatStreamService;
+import com.team3.central.validators.EventValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent events are not described by API contract, their generated interface could not
+ * return a stream. Messages are PlaceChanges of GET /events/{id}/places/changes, named "places",
+ * with version as their id.
+ */
+@RestController
+@RequiredArgsConstructor
+public class SeatStream {
+
+  private final SeatStreamService seatStreamService;
+  private final EventValidator eventValidator;
+
+  /**
+   * GET /events/{id}/places/stream : Stream of changes of places of event
+   * First message lists places changed since Last-Event-ID, or all places
+   *
+   * @param id ID of event (required)
+   * @param lastEventId version of last message read before reconnecting (optional)
+   * @return stream of messages (status code 200)
+   *         or Invalid ID supplied (status code 400)
+   *         or Event not found (status code 404)
+   */
+  @GetMapping(path = "/events/{id}/places/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  ResponseEntity<SseEmitter> streamPlaces(@PathVariable Long id,
+      @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+    try {
+      eventValidator.validateEventId(id);
+
+      return new ResponseEntity<>(seatStreamService.subscribe(id, lastEventId), HttpStatus.OK);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    } catch (NotFoundException e) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+  }
+}
@@ -3,7 +3,12 @@ package com.team3.central.mappers;
 import com.team3.central.openapi.model.Event;
 import com.team3.central.openapi.model.EventWithPlaces;
 import com.team3.central.openapi.model.Place;
-import java.util.Comparator;
+import com.team3.central.openapi.model.PlaceChanges;
+import com.team3.central.repositories.projections.EventSummary;
+import com.team3.central.services.seats.SeatChanges;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
@@ -30,20 +35,50 @@ public class EventMapper {
     eventModel.setStartTime(event.getStartTime());
     eventModel.setEndTime(event.getEndTime());
     eventModel.setMaxPlace(event.getMaxPlace());
-    eventModel.setFreePlace(event.getFreePlace());
+    eventModel.setFreePlace(event.currentFreePlace());
     eventModel.setName(event.getName());
     eventModel.setStatus(eventStatusMapper.convertToModel(event, currentTime));
     eventModel.setTitle(event.getTitle());
     return eventModel;
   }
 
+  public Event convertToModel(EventSummary event,
+      List<com.team3.central.repositories.entities.Category> categories) {
+    Long currentTime = System.currentTimeMillis() / 1000L;
+    Event eventModel = new Event();
+    eventModel.setId(event.getId());
+    eventModel.setCategories(categories
+        .stream()
+        .map(categoryMapper::convertToModel)
+        .collect(Collectors.toList()));
+    eventModel.setLatitude(event.getLatitude());
+    eventModel.setLongitude(event.getLongitude());
+    eventModel.setStartTime(event.getStartTime());
+    eventModel.setEndTime(event.getEndTime());
+    eventModel.setMaxPlace(event.getMaxPlace());
+    eventModel.setFreePlace(event.currentFreePlace());
+    eventModel.setName(event.getName());
+    eventModel.setStatus(eventStatusMapper.convertToModel(event.getStatus(),
+        event.getStartTime(), event.getEndTime(), currentTime));
+    eventModel.setTitle(event.getTitle());
+    return eventModel;
+  }
+
 
+  // Bit n of takenPlaces is set when place n is reserved
   public EventWithPlaces convertToEventWithPlaces(
+      com.team3.central.repositories.entities.Event event, BitSet takenPlaces) {
+    EventWithPlaces eventModel = convertToEventWithoutPlaces(event);
+    eventModel.setPlaces(convertToPlaces(event.getMaxPlace(), takenPlaces));
+    return eventModel;
+  }
+
+  public EventWithPlaces convertToEventWithoutPlaces(
       com.team3.central.repositories.entities.Event event) {
     Long currentTime = System.currentTimeMillis() / 1000L;
     EventWithPlaces eventModel = new EventWithPlaces();
     eventModel.setId(event.getId());
-    eventModel.setFreePlace(event.getFreePlace());
+    eventModel.setFreePlace(event.currentFreePlace());
     eventModel.setMaxPlace(event.getMaxPlace());
     eventModel.setTitle(event.getTitle());
     eventModel.setStartTime(event.getStartTime());
@@ -57,17 +92,88 @@ public class EventMapper {
         .stream()
         .map(categoryMapper::convertToModel)
         .collect(Collectors.toList()));
-    eventModel.setPlaces(event.getReservations().stream().map(reservation -> {
-      Place place = new Place();
-      place.setId(reservation.getPlaceOnSchema());
-      place.setFree(reservation.getReservationToken()
-          == null); // If reservation token is null, then place is free
-      return place;
-    }).sorted(Comparator.comparing(Place::getId)).collect(Collectors.toList()));
+    return eventModel;
+  }
 
+  // Copy of event read before with places of takenPlaces, status is computed for current time
+  // again unless event was cancelled
+  public EventWithPlaces convertToEventWithPlaces(EventWithPlaces event,
+      com.team3.central.repositories.entities.enums.EventStatus status, Long freePlace,
+      BitSet takenPlaces, PlaceEncoding encoding) {
+    Long currentTime = System.currentTimeMillis() / 1000L;
+    EventWithPlaces eventModel = new EventWithPlaces();
+    eventModel.setId(event.getId());
+    eventModel.setFreePlace(freePlace);
+    eventModel.setMaxPlace(event.getMaxPlace());
+    eventModel.setTitle(event.getTitle());
+    eventModel.setStartTime(event.getStartTime());
+    eventModel.setEndTime(event.getEndTime());
+    eventModel.setLongitude(event.getLongitude());
+    eventModel.setLatitude(event.getLatitude());
+    eventModel.setName(event.getName());
+    eventModel.setPlaceSchema(event.getPlaceSchema());
+    eventModel.setStatus(eventStatusMapper.convertToModel(status, event.getStartTime(),
+        event.getEndTime(), currentTime));
+    eventModel.setCategories(event.getCategories());
+    switch (encoding) {
+      case BITSET:
+        // Serialized as base64
+        eventModel.setTakenPlaces(takenPlaces.toByteArray());
+        break;
+      case RANGES:
+        eventModel.setPlaceRanges(convertToPlaceRanges(event.getMaxPlace(), takenPlaces));
+        break;
+      default:
+        eventModel.setPlaces(convertToPlaces(event.getMaxPlace(), takenPlaces));
+    }
     return eventModel;
   }
 
+  public PlaceChanges convertToPlaceChanges(SeatChanges changes) {
+    PlaceChanges model = new PlaceChanges();
+    model.setVersion(changes.getVersion());
+    model.setSnapshot(changes.isSnapshot());
+    model.setFreePlace(changes.getFreePlace());
+    model.setMaxPlace(changes.getMaxPlace());
+    List<Place> places = new ArrayList<>(changes.getPlaces().cardinality());
+    for (int placeId = changes.getPlaces().nextSetBit(0); placeId >= 0;
+        placeId = changes.getPlaces().nextSetBit(placeId + 1)) {
+      Place place = new Place();
+      place.setId((long) placeId);
+      place.setFree(!changes.getTakenPlaces().get(placeId));
+      places.add(place);
+    }
+    model.setPlaces(places);
+    return model;
+  }
+
+  private List<Place> convertToPlaces(Long maxPlace, BitSet takenPlaces) {
+    List<Place> places = new ArrayList<>(Math.toIntExact(maxPlace));
+    for (int placeId = 0; placeId < maxPlace; placeId++) {
+      Place place = new Place();
+      place.setId((long) placeId);
+      place.setFree(!takenPlaces.get(placeId));
+      places.add(place);
+    }
+    return places;
+  }
+
+  // Lengths of runs of free and taken places in turn, starting with free run
+  private List<Long> convertToPlaceRanges(Long maxPlace, BitSet takenPlaces) {
+    List<Long> ranges = new ArrayList<>();
+    int maxPlaceId = Math.toIntExact(maxPlace);
+    int start = 0;
+    boolean free = true;
+    while (start < maxPlaceId) {
+      int end = free ? takenPlaces.nextSetBit(start) : takenPlaces.nextClearBit(start);
+      end = end < 0 ? maxPlaceId : Math.min(end, maxPlaceId);
+      ranges.add((long) (end - start));
+      start = end;
+      free = !free;
+    }
+    return ranges;
+  }
+
   private Place createPlaceFromEntry(Entry<Long, Boolean> entry) {
     Place place = new Place();
     place.setId(entry.getKey());
@@ -16,13 +16,20 @@ public class EventStatusMapper {
   }
 
   public EventStatus convertToModel(Event event, Long currentTime) {
-    if (event.getStatus() == com.team3.central.repositories.entities.enums.EventStatus.CANCELLED) {
+    return convertToModel(event.getStatus(), event.getStartTime(), event.getEndTime(),
+        currentTime);
+  }
+
+  public EventStatus convertToModel(
+      com.team3.central.repositories.entities.enums.EventStatus status, Long startTime,
+      Long endTime, Long currentTime) {
+    if (status == com.team3.central.repositories.entities.enums.EventStatus.CANCELLED) {
       return EventStatus.CANCELLED;
     }
-    if (currentTime >= event.getStartTime() && currentTime <= event.getEndTime()) {
+    if (currentTime >= startTime && currentTime <= endTime) {
       return EventStatus.PENDING;
     }
-    if (currentTime > event.getEndTime()) {
+    if (currentTime > endTime) {
       return EventStatus.DONE;
     }
     return EventStatus.INFUTURE;
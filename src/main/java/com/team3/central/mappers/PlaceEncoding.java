@@ -0,0 +1,31 @@
+package com.team3.central.mappers;
+
+/**
+ * How places of {@link com.team3.central.openapi.model.EventWithPlaces} are sent. Place list has
+ * object of every place; bitset and ranges are made straight from bitmap of taken places, so big
+ * events are neither rendered nor sent place by place.
+ */
+public enum PlaceEncoding {
+  // places: {id, free} of every place
+  LIST("list"),
+  // takenPlaces: base64 of bytes of bitmap, bit n (bit n % 8 of byte n / 8) set when place n is
+  // reserved, trailing free places are left out
+  BITSET("bitset"),
+  // placeRanges: lengths of runs of free and taken places in turn, first run is free (may be 0)
+  RANGES("ranges");
+
+  private final String parameter;
+
+  PlaceEncoding(String parameter) {
+    this.parameter = parameter;
+  }
+
+  public static PlaceEncoding fromParameter(String parameter) throws IllegalArgumentException {
+    for (PlaceEncoding encoding : values()) {
+      if (encoding.parameter.equals(parameter)) {
+        return encoding;
+      }
+    }
+    throw new IllegalArgumentException("Unknown place encoding " + parameter);
+  }
+}
@@ -0,0 +1,18 @@
+package com.team3.central.mappers;
+
+import com.team3.central.openapi.model.QueueTicket;
+import com.team3.central.services.admission.QueuePosition;
+
+public class QueueTicketMapper {
+
+  public QueueTicket convertToModel(QueuePosition queuePosition) {
+    QueueTicket queueTicket = new QueueTicket();
+    queueTicket.setTicket(queuePosition.getTicket());
+    queueTicket.setEventId(queuePosition.getEventId());
+    queueTicket.setPlaceInLine(queuePosition.getPlaceInLine());
+    queueTicket.setAdmitted(queuePosition.isAdmitted());
+    queueTicket.setSoldOut(queuePosition.isSoldOut());
+    queueTicket.setRetryAfter(queuePosition.getRetryAfter());
+    return queueTicket;
+  }
+}
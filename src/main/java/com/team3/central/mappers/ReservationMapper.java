@@ -10,6 +10,7 @@ public class ReservationMapper {
     reservationDTO.setPlaceId(reservation.getPlaceOnSchema());
     reservationDTO.setEventId(reservation.getEvent().getId());
     reservationDTO.setReservationToken(reservation.getReservationToken());
+    reservationDTO.setHoldUntil(reservation.getHoldUntil());
     return reservationDTO;
   }
 
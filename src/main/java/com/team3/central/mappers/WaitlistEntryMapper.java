@@ -0,0 +1,19 @@
+package com.team3.central.mappers;
+
+import com.team3.central.openapi.model.WaitlistEntryDTO;
+import com.team3.central.openapi.model.WaitlistEntryDTO.StatusEnum;
+import com.team3.central.repositories.entities.WaitlistEntry;
+
+public class WaitlistEntryMapper {
+
+  public WaitlistEntryDTO convertToModel(WaitlistEntry entry, long placeInLine) {
+    WaitlistEntryDTO waitlistEntryDTO = new WaitlistEntryDTO();
+    waitlistEntryDTO.setWaitlistToken(entry.getWaitlistToken());
+    waitlistEntryDTO.setEventId(entry.getEventId());
+    waitlistEntryDTO.setStatus(StatusEnum.valueOf(entry.getStatus().name()));
+    waitlistEntryDTO.setPlaceInLine(placeInLine);
+    waitlistEntryDTO.setReservationToken(entry.getReservationToken());
+    waitlistEntryDTO.setHoldUntil(entry.getHoldUntil());
+    return waitlistEntryDTO;
+  }
+}
@@ -1,8 +1,10 @@
 package com.team3.central.repositories;
 
 import com.team3.central.repositories.entities.Category;
+import com.team3.central.repositories.projections.CategoriesVersion;
 import java.util.List;
 import java.util.Set;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,5 +15,8 @@ public interface CategoryRepository extends CrudRepository<Category, Long> {
 
   List<Category> findAll();
   Set<Category> findAllByIdIn(Set<Long> ids);
+
+  @Query("SELECT COUNT(c) AS total, MAX(c.id) AS maxId FROM Category c")
+  CategoriesVersion findVersion();
 }
 
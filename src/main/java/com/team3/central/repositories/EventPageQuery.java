@@ -0,0 +1,46 @@
+package com.team3.central.repositories;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * One page of events for {@link EventRepositoryCustom#findSummaryPage(EventPageQuery)}. Page
+ * continues after given event in sort order (keyset pagination), so every page costs the same
+ * however far the listing goes.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class EventPageQuery {
+
+  private final Sort sort;
+  // Last event of previous page, both null for first page
+  private final Long afterStartTime;
+  private final Long afterId;
+  // Only events starting in [from, to), null for no bound
+  private final Long from;
+  private final Long to;
+  // Only events of category or organizer, null for all
+  private final Long categoryId;
+  private final Long organizerId;
+  private final int limit;
+
+  public enum Sort {
+    ID("id"),
+    START_TIME("startTime");
+
+    private final String parameter;
+
+    Sort(String parameter) {
+      this.parameter = parameter;
+    }
+
+    public static Sort fromParameter(String parameter) throws IllegalArgumentException {
+      for (Sort sort : values()) {
+        if (sort.parameter.equals(parameter)) {
+          return sort;
+        }
+      }
+      throw new IllegalArgumentException("Unknown sort " + parameter);
+    }
+  }
+}
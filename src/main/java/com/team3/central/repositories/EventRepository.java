@@ -1,6 +1,8 @@
 package com.team3.central.repositories;
 import com.team3.central.repositories.entities.Category;
 import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.projections.EventOccupancy;
+import com.team3.central.repositories.projections.EventVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.Modifying;
@@ -9,10 +11,11 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventRepositoryCustom {
 
     @Override
     Optional<Event> findById(Long id);
@@ -21,8 +24,94 @@ public interface EventRepository extends JpaRepository<Event, Long> {
 
     List<Event> findByCategories(Category category);
 
+    // Number of FreePlaceShard rows changes of one event are spread over. Reads sum all shards,
+    // so it can be changed any time
+    int FREE_PLACE_SHARDS = 16;
+
+    // Relative change, so concurrent reservations never overwrite each other's counter update.
+    // Goes to random shard, so they rarely wait for each other either. Every call counts as
+    // change of event for its version, see Event.getVersion()
+    default int changeFreePlace(Long id, Long change) {
+        return changeFreePlaceShard(id, ThreadLocalRandom.current().nextInt(FREE_PLACE_SHARDS),
+            change);
+    }
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO free_place_shard (event_id, shard, delta, changes) "
+        + "VALUES (:id, :shard, :change, 1) ON CONFLICT (event_id, shard) "
+        + "DO UPDATE SET delta = free_place_shard.delta + EXCLUDED.delta, "
+        + "changes = COALESCE(free_place_shard.changes, 0) + 1",
+        nativeQuery = true)
+    int changeFreePlaceShard(Long id, int shard, Long change);
+
+    // Also locks event row until end of transaction, so places can be resized safely
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.freePlace = e.freePlace + (:maxPlace - e.maxPlace), "
+        + "e.maxPlace = :maxPlace WHERE e.id = :id")
+    int updateMaxPlace(Long id, Long maxPlace);
+
+    // Changes version of event, for changes made by saving the entity
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.revision = COALESCE(e.revision, 0) + 1 WHERE e.id = :id")
+    int bumpRevision(Long id);
+
+    // Version of event with what its status depends on, null when event does not exist
+    @Query("SELECT new com.team3.central.repositories.projections.EventVersion(e.id, e.version, "
+        + "e.status, e.startTime, e.endTime) FROM Event e WHERE e.id = :id")
+    EventVersion findVersionById(Long id);
+
+    // Null when event does not exist or is already done or cancelled
+    @Query("SELECT e.freePlace + e.freePlaceChange FROM Event e WHERE e.id = :id "
+        + "AND e.status NOT IN ("
+        + "com.team3.central.repositories.entities.enums.EventStatus.DONE, "
+        + "com.team3.central.repositories.entities.enums.EventStatus.CANCELLED)")
+    Long findOpenEventFreePlace(Long id);
+
+    @Query("SELECT e.maxPlace FROM Event e WHERE e.id = :id")
+    Long findMaxPlaceById(Long id);
+
+    @Query("SELECT e.occupancy AS occupancy FROM Event e WHERE e.id = :id")
+    EventOccupancy findOccupancyById(Long id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE event SET occupancy = :occupancy WHERE event_id = :id",
+        nativeQuery = true)
+    int updateOccupancy(Long id, byte[] occupancy);
+
+    // Locks event row until end of caller's transaction, so no claim changes bitmap meanwhile
+    @Query(value = "SELECT occupancy FROM event WHERE event_id = :id FOR UPDATE",
+        nativeQuery = true)
+    byte[] findOccupancyForUpdate(Long id);
+
+    // Writes bitmap read with findOccupancyForUpdate, with bits of released places cleared
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE event SET occupancy = :occupancy, free_place = free_place + :released, "
+        + "revision = COALESCE(revision, 0) + 1 WHERE event_id = :id", nativeQuery = true)
+    int releasePlaces(Long id, byte[] occupancy, long released);
+
+    // Sets bit of place only if it was not set, so two buyers can never get the same place
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE event SET occupancy = set_bit(occupancy, CAST(:placeId AS int), 1), "
+        + "free_place = free_place - 1, revision = COALESCE(revision, 0) + 1 "
+        + "WHERE event_id = :id AND CASE "
+        + "WHEN :placeId < max_place THEN get_bit(occupancy, CAST(:placeId AS int)) = 0 "
+        + "ELSE false END",
+        nativeQuery = true)
+    int claimPlace(Long id, Long placeId);
+
     @Transactional
     @Modifying
-    @Query("UPDATE Event e SET e.freePlace = :freePlace WHERE e.id = :id")
-    int updateEventById(Long id, Long freePlace);
+    @Query(value = "UPDATE event SET occupancy = set_bit(occupancy, CAST(:placeId AS int), 0), "
+        + "free_place = free_place + 1, revision = COALESCE(revision, 0) + 1 "
+        + "WHERE event_id = :id AND CASE "
+        + "WHEN :placeId < max_place THEN get_bit(occupancy, CAST(:placeId AS int)) = 1 "
+        + "ELSE false END",
+        nativeQuery = true)
+    int releasePlace(Long id, Long placeId);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.team3.central.repositories;
+
+import com.team3.central.repositories.entities.Category;
+import com.team3.central.repositories.projections.EventSummary;
+import com.team3.central.repositories.projections.EventVersion;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface EventRepositoryCustom {
+
+  // Page of at most query.getLimit() events, built from filters the query has
+  List<EventSummary> findSummaryPage(EventPageQuery query);
+
+  // Same page as findSummaryPage, but only versions of its events
+  List<EventVersion> findVersionPage(EventPageQuery query);
+
+  // Categories of all given events in one query, events without category are missing in map.
+  // Categories are detached, only id and name are set
+  Map<Long, List<Category>> findCategoriesByEventIds(Collection<Long> eventIds);
+}
@@ -0,0 +1,110 @@
+package com.team3.central.repositories;
+
+import com.team3.central.repositories.EventPageQuery.Sort;
+import com.team3.central.repositories.entities.Category;
+import com.team3.central.repositories.projections.EventSummary;
+import com.team3.central.repositories.projections.EventVersion;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+/**
+ * Read side of event listings: page of events is built by constructor projection and categories
+ * of the whole page by one more query, so listing takes two statements whatever its size.
+ *
+ * Keyset pages of events. Pages sorted by start time follow index on (start_time, event_id),
+ * pages sorted by id follow primary key, pages of organizer follow indexes on organizer_id.
+ */
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+  private static final String SUMMARY = "SELECT new " + EventSummary.class.getName()
+      + "(e.id, e.title, e.name, e.startTime, e.endTime, e.latitude, e.longitude, e.maxPlace, "
+      + "e.freePlace, e.freePlaceChange, e.status, e.version) FROM Event e";
+  private static final String VERSION = "SELECT new " + EventVersion.class.getName()
+      + "(e.id, e.version, e.status, e.startTime, e.endTime) FROM Event e";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<EventSummary> findSummaryPage(EventPageQuery query) {
+    return pageQuery(SUMMARY, query, EventSummary.class).getResultList();
+  }
+
+  @Override
+  public List<EventVersion> findVersionPage(EventPageQuery query) {
+    return pageQuery(VERSION, query, EventVersion.class).getResultList();
+  }
+
+  @Override
+  public Map<Long, List<Category>> findCategoriesByEventIds(Collection<Long> eventIds) {
+    Map<Long, List<Category>> categories = new HashMap<>();
+    if (eventIds.isEmpty()) {
+      return categories;
+    }
+    entityManager.createQuery("SELECT e.id, c.id, c.name FROM Event e JOIN e.categories c "
+            + "WHERE e.id IN :eventIds", Object[].class)
+        .setParameter("eventIds", eventIds)
+        .getResultList()
+        .forEach(row -> categories.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+            .add(new Category((Long) row[1], (String) row[2])));
+    return categories;
+  }
+
+  private <T> TypedQuery<T> pageQuery(String select, EventPageQuery query, Class<T> resultClass) {
+    StringBuilder jpql = new StringBuilder(select);
+    List<String> conditions = new ArrayList<>();
+    if (query.getCategoryId() != null) {
+      jpql.append(" JOIN e.categories c");
+      conditions.add("c.id = :categoryId");
+    }
+    if (query.getOrganizerId() != null) {
+      // Compares foreign key column, organizer is not joined
+      conditions.add("e.organizer.id = :organizerId");
+    }
+    if (query.getFrom() != null) {
+      conditions.add("e.startTime >= :from");
+    }
+    if (query.getTo() != null) {
+      conditions.add("e.startTime < :to");
+    }
+    if (query.getAfterId() != null) {
+      conditions.add(query.getSort() == Sort.START_TIME
+          ? "(e.startTime > :afterStartTime "
+          + "OR (e.startTime = :afterStartTime AND e.id > :afterId))"
+          : "e.id > :afterId");
+    }
+    if (!conditions.isEmpty()) {
+      jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+    }
+    jpql.append(query.getSort() == Sort.START_TIME
+        ? " ORDER BY e.startTime, e.id"
+        : " ORDER BY e.id");
+
+    TypedQuery<T> typedQuery = entityManager.createQuery(jpql.toString(), resultClass);
+    if (query.getCategoryId() != null) {
+      typedQuery.setParameter("categoryId", query.getCategoryId());
+    }
+    if (query.getOrganizerId() != null) {
+      typedQuery.setParameter("organizerId", query.getOrganizerId());
+    }
+    if (query.getFrom() != null) {
+      typedQuery.setParameter("from", query.getFrom());
+    }
+    if (query.getTo() != null) {
+      typedQuery.setParameter("to", query.getTo());
+    }
+    if (query.getAfterId() != null) {
+      typedQuery.setParameter("afterId", query.getAfterId());
+      if (query.getSort() == Sort.START_TIME) {
+        typedQuery.setParameter("afterStartTime", query.getAfterStartTime());
+      }
+    }
+    return typedQuery.setMaxResults(query.getLimit());
+  }
+}
@@ -1,14 +1,214 @@
 package com.team3.central.repositories;
 
+import com.team3.central.repositories.entities.Event;
 import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.CancelledReservation;
+import com.team3.central.repositories.projections.ReleasedPlace;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
+  // Creates free places [fromPlace, toPlace) of event in one statement instead of a row per call
+  String INSERT_FREE_PLACES = "INSERT INTO reservation (event_id, place_on_schema) "
+      + "SELECT :eventId, place FROM generate_series(:fromPlace, :toPlace - 1) AS place";
+
+  String EXPIRED_HOLDS = "SELECT r.id FROM reservation r JOIN event e ON e.event_id = r.event_id "
+      + "WHERE r.hold_until < :now AND COALESCE(e.seat_storage, 'ROWS') = :storage "
+      + "LIMIT :batchSize FOR UPDATE OF r SKIP LOCKED";
+
+  // Revision is bumped with freed places, so version (ETag) of the event changes as well
+  String RESTORE_FREE_PLACES = "UPDATE event e SET free_place = e.free_place + freed.places, "
+      + "revision = COALESCE(e.revision, 0) + 1 "
+      + "FROM (SELECT event_id, count(*) AS places FROM released GROUP BY event_id) freed "
+      + "WHERE e.event_id = freed.event_id";
+
+  // Releases batch of expired holds of events with given storage and returns freed places to
+  // freePlace in the same statement. Rows stay, only token is cleared (storage ROWS)
+  String RELEASE_EXPIRED_HOLDS = "WITH released AS (UPDATE reservation "
+      + "SET reservation_token = NULL, hold_until = NULL WHERE id IN (" + EXPIRED_HOLDS + ") "
+      + "RETURNING event_id) " + RESTORE_FREE_PLACES;
+
+  // Same for storage with reservation row only for reserved place, rows are deleted
+  String DELETE_EXPIRED_HOLDS = "WITH released AS (DELETE FROM reservation "
+      + "WHERE id IN (" + EXPIRED_HOLDS + ") RETURNING event_id) " + RESTORE_FREE_PLACES;
+
+  // Native queries take 0 instead of null hold, as null parameter has no SQL type
+  static long holdParameter(Long holdUntil) {
+    return holdUntil == null ? 0 : holdUntil;
+  }
+
   Reservation findById(long id);
   Reservation findByReservationToken(String reservationToken);
-  Reservation findByEventIdAndPlaceOnSchema(long eventId, long placeId);
-  Reservation findFirstByEventIdAndReservationTokenIsNull(Long eventId);
+
+  List<Reservation> findByReservationTokenIn(Collection<String> reservationTokens);
+
+  boolean existsByEventIdAndPlaceOnSchema(Long eventId, Long placeOnSchema);
+
+  boolean existsByEventIdAndReservationTokenIsNull(Long eventId);
+
+  List<Reservation> findByEventIdAndReservationTokenIsNotNull(Long eventId);
+
+  // Events of storage with places still held (not confirmed)
+  @Query("SELECT DISTINCT r.event FROM Reservation r "
+      + "WHERE r.holdUntil IS NOT NULL AND r.event.seatStorage = :storage")
+  List<Event> findEventsWithHolds(SeatStorage storage);
+
+  @Query("SELECT r.placeOnSchema FROM Reservation r "
+      + "WHERE r.event.id = :eventId AND r.reservationToken IS NOT NULL")
+  List<Long> findReservedPlaces(Long eventId);
+
+  long countByEventIdAndPlaceOnSchemaGreaterThanEqual(Long eventId, Long placeOnSchema);
+
+  @Transactional
+  @Modifying
+  @Query(value = INSERT_FREE_PLACES, nativeQuery = true)
+  int insertFreePlaces(Long eventId, Long fromPlace, Long toPlace);
+
+  // Reserves place only if it is still free, so check and write are one atomic statement.
+  // Returns 0 when place is taken or does not exist
+  @Transactional
+  @Modifying
+  @Query(value = "UPDATE reservation SET reservation_token = :reservationToken, "
+      + "hold_until = NULLIF(:holdUntil, 0) "
+      + "WHERE event_id = :eventId AND place_on_schema = :placeId "
+      + "AND reservation_token IS NULL", nativeQuery = true)
+  int claimPlace(Long eventId, Long placeId, String reservationToken, long holdUntil);
+
+  // Reserves first free place of event that no other transaction is reserving right now and
+  // returns it. SKIP LOCKED lets parallel buyers take different rows instead of queueing on one.
+  // Returns null when there is no free place or all free places are locked at the moment
+  @Transactional
+  @Query(value = "UPDATE reservation SET reservation_token = :reservationToken, "
+      + "hold_until = NULLIF(:holdUntil, 0) WHERE id = (SELECT id FROM reservation "
+      + "WHERE event_id = :eventId AND reservation_token IS NULL ORDER BY place_on_schema LIMIT 1 "
+      + "FOR UPDATE SKIP LOCKED) "
+      + "AND reservation_token IS NULL RETURNING place_on_schema", nativeQuery = true)
+  Long claimFirstFreePlace(Long eventId, String reservationToken, long holdUntil);
+
+  // Frees place only if it is still held by reservationToken, returns 0 otherwise
+  @Transactional
+  @Modifying
+  @Query("UPDATE Reservation r SET r.reservationToken = NULL, r.holdUntil = NULL "
+      + "WHERE r.id = :id AND r.reservationToken = :reservationToken")
+  int releaseReservation(Long id, String reservationToken);
+
+  // Same as releaseReservation, only if reservation is still a hold (not confirmed)
+  @Transactional
+  @Modifying
+  @Query("UPDATE Reservation r SET r.reservationToken = NULL, r.holdUntil = NULL "
+      + "WHERE r.id = :id AND r.reservationToken = :reservationToken "
+      + "AND r.holdUntil IS NOT NULL")
+  int releaseHold(Long id, String reservationToken);
+
+  // Deletes reservation only if it is still held by reservationToken, returns 0 otherwise
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM Reservation r WHERE r.id = :id AND r.reservationToken = :reservationToken")
+  int deleteReservation(Long id, String reservationToken);
+
+  // Same as deleteReservation, only if reservation is still a hold (not confirmed)
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM Reservation r WHERE r.id = :id AND r.reservationToken = :reservationToken "
+      + "AND r.holdUntil IS NOT NULL")
+  int deleteHold(Long id, String reservationToken);
+
+  // Frees place held by reservationToken found by its unique index, returns the place or null
+  // when there is no such reservation
+  @Transactional
+  @Query(value = "UPDATE reservation SET reservation_token = NULL, hold_until = NULL "
+      + "WHERE reservation_token = :reservationToken AND event_id = :eventId "
+      + "RETURNING place_on_schema", nativeQuery = true)
+  Long releaseReservationByToken(Long eventId, String reservationToken);
+
+  // Same as releaseReservationByToken, deleting reservation row
+  @Transactional
+  @Query(value = "DELETE FROM reservation "
+      + "WHERE reservation_token = :reservationToken AND event_id = :eventId "
+      + "RETURNING place_on_schema", nativeQuery = true)
+  Long deleteReservationByToken(Long eventId, String reservationToken);
+
+  // Frees places held by any of reservationTokens in one statement and returns them
+  @Transactional
+  @Query(value = "WITH cancelled AS (SELECT id, reservation_token FROM reservation "
+      + "WHERE reservation_token IN (:reservationTokens) FOR UPDATE) "
+      + "UPDATE reservation r SET reservation_token = NULL, hold_until = NULL FROM cancelled "
+      + "WHERE r.id = cancelled.id RETURNING cancelled.reservation_token AS reservationToken, "
+      + "r.event_id AS eventId, r.place_on_schema AS placeOnSchema", nativeQuery = true)
+  List<CancelledReservation> releaseReservationsByTokens(Collection<String> reservationTokens);
+
+  // Same as releaseReservationsByTokens, deleting reservation rows
+  @Transactional
+  @Query(value = "DELETE FROM reservation WHERE reservation_token IN (:reservationTokens) "
+      + "RETURNING reservation_token AS reservationToken, event_id AS eventId, "
+      + "place_on_schema AS placeOnSchema", nativeQuery = true)
+  List<CancelledReservation> deleteReservationsByTokens(Collection<String> reservationTokens);
+
+  // Inserts nothing (returns 0) when place is already reserved or no longer exists. Share lock
+  // on event makes reservation wait for running change of maxPlace, and change of maxPlace wait
+  // for reservation, so shrink sees the row. Key share would not, it does not conflict with
+  // UPDATE of columns other than key
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO reservation "
+      + "(event_id, place_on_schema, reservation_token, hold_until) "
+      + "SELECT :eventId, :placeId, :reservationToken, NULLIF(:holdUntil, 0) "
+      + "WHERE EXISTS (SELECT 1 FROM event "
+      + "WHERE event_id = :eventId AND max_place > :placeId FOR SHARE) "
+      + "ON CONFLICT (event_id, place_on_schema) DO NOTHING", nativeQuery = true)
+  int insertReservation(Long eventId, Long placeId, String reservationToken, long holdUntil);
+
+  // Turns hold into reservation. Returns 0 when token no longer holds place or hold expired,
+  // confirming already confirmed reservation changes nothing
+  @Transactional
+  @Modifying
+  @Query("UPDATE Reservation r SET r.holdUntil = NULL WHERE r.id = :id "
+      + "AND r.reservationToken = :reservationToken "
+      + "AND (r.holdUntil IS NULL OR r.holdUntil >= :now)")
+  int confirmReservation(Long id, String reservationToken, Long now);
+
+  // Same as confirmReservation for reservation known only by place
+  @Transactional
+  @Modifying
+  @Query("UPDATE Reservation r SET r.holdUntil = NULL WHERE r.event.id = :eventId "
+      + "AND r.placeOnSchema = :placeId AND r.reservationToken = :reservationToken")
+  int confirmPlaceReservation(Long eventId, Long placeId, String reservationToken);
+
+  // Returns number of events whose places were released, 0 when there was nothing to release
+  @Transactional
+  @Modifying
+  @Query(value = RELEASE_EXPIRED_HOLDS, nativeQuery = true)
+  int releaseExpiredHolds(Long now, String storage, int batchSize);
+
+  @Transactional
+  @Modifying
+  @Query(value = DELETE_EXPIRED_HOLDS, nativeQuery = true)
+  int deleteExpiredHolds(Long now, String storage, int batchSize);
+
+  // Deletes expired holds and returns their places, which caller has to free in its own storage
+  @Transactional
+  @Query(value = "DELETE FROM reservation WHERE id IN (" + EXPIRED_HOLDS + ") "
+      + "RETURNING event_id AS eventId, place_on_schema AS placeOnSchema", nativeQuery = true)
+  List<ReleasedPlace> deleteExpiredHoldsReturningPlaces(Long now, String storage, int batchSize);
+
+  // Same as deleteReservation for reservation known only by place, returns 0 if there is none
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM Reservation r WHERE r.event.id = :eventId "
+      + "AND r.placeOnSchema = :placeId AND r.reservationToken = :reservationToken")
+  int deletePlaceReservation(Long eventId, Long placeId, String reservationToken);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM Reservation r WHERE r.event.id = :eventId "
+      + "AND r.placeOnSchema >= :fromPlace AND r.reservationToken IS NULL")
+  int deleteFreePlacesFrom(Long eventId, Long fromPlace);
 }
@@ -0,0 +1,13 @@
+package com.team3.central.repositories;
+
+import com.team3.central.repositories.entities.SeatChange;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SeatChangeRepository extends JpaRepository<SeatChange, Long> {
+
+  // Next entries of event in journal order, replay reads them in pages
+  List<SeatChange> findTop1000ByEventIdAndIdGreaterThanOrderByIdAsc(Long eventId, Long id);
+}
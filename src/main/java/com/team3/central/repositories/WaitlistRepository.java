@@ -0,0 +1,35 @@
+package com.team3.central.repositories;
+
+import com.team3.central.repositories.entities.WaitlistEntry;
+import com.team3.central.repositories.entities.enums.WaitlistStatus;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+  WaitlistEntry findByWaitlistToken(String waitlistToken);
+
+  // Next entries of event in the order they joined
+  List<WaitlistEntry> findByEventIdAndStatusOrderByIdAsc(Long eventId, WaitlistStatus status,
+      Pageable pageable);
+
+  List<WaitlistEntry> findByStatusAndHoldUntilLessThan(WaitlistStatus status, Long holdUntil,
+      Pageable pageable);
+
+  // Offers place to entry only if it is still waiting, so two dispatchers never offer twice
+  @Transactional
+  @Modifying
+  @Query(value = "UPDATE waitlist_entry SET status = 'OFFERED', "
+      + "reservation_token = :reservationToken, hold_until = :holdUntil "
+      + "WHERE id = :id AND status = 'WAITING'", nativeQuery = true)
+  int offer(Long id, String reservationToken, Long holdUntil);
+
+  // Number of buyers waiting in front of entry
+  long countByEventIdAndStatusAndIdLessThan(Long eventId, WaitlistStatus status, Long id);
+}
@@ -32,4 +32,10 @@ public class Category {
   public Category(String name) {
     this.name = name;
   }
+
+  // Category read by listing query, not attached to persistence context
+  public Category(Long id, String name) {
+    this.id = id;
+    this.name = name;
+  }
 }
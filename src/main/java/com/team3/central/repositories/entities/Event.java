@@ -1,6 +1,7 @@
 package com.team3.central.repositories.entities;
 
 import com.team3.central.repositories.entities.enums.EventStatus;
+import com.team3.central.repositories.entities.enums.SeatStorage;
 import java.util.Map;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
@@ -10,12 +11,14 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import org.hibernate.annotations.Formula;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -30,7 +33,13 @@ import java.util.Set;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "event")
+@Table(name = "event",
+    // Keyset pages sorted by start time, and pages of organizer in both sorts
+    indexes = {
+        @Index(columnList = "start_time, event_id"),
+        @Index(columnList = "organizer_id, event_id"),
+        @Index(columnList = "organizer_id, start_time, event_id")
+    })
 public class Event {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,13 +47,33 @@ public class Event {
     private Long id;
 
     private String title;
+    @Column(name = "start_time")
     private Long startTime;
     private Long endTime;
     private String latitude;
     private String longitude;
     private String name;
+
+    // Changed only by queries in EventRepository, so saving stale entity never loses reservations.
+    // Single reservations change freePlaceChange instead, see currentFreePlace()
+    @Column(updatable = false)
     private Long freePlace;
 
+    // Sum of FreePlaceShard deltas of event, read together with event
+    @Formula("(SELECT COALESCE(SUM(s.delta), 0) FROM free_place_shard s "
+        + "WHERE s.event_id = event_id)")
+    private Long freePlaceChange;
+
+    // Changes of event which do not go through FreePlaceShard: patches, cancellation and places of
+    // BITMAP storage. Changed only by queries in EventRepository, like freePlace
+    @Column(updatable = false)
+    private Long revision;
+
+    // Grows with every change of event or its places, ETags of event are derived from it
+    @Formula("(COALESCE(revision, 0) + (SELECT COALESCE(SUM(s.changes), 0) "
+        + "FROM free_place_shard s WHERE s.event_id = event_id))")
+    private Long version;
+
     @Column(columnDefinition="TEXT")
     private String placeSchema;
 
@@ -53,6 +82,15 @@ public class Event {
     @Enumerated(EnumType.STRING)
     private EventStatus status;
 
+    // How places of event are stored, null means one reservation row per place (ROWS)
+    @Enumerated(EnumType.STRING)
+    private SeatStorage seatStorage;
+
+    // BITMAP storage only: bit n is set when place n is reserved. Changed only by native queries
+    // in EventRepository, so saving stale entity never overwrites reservations made meanwhile
+    @Column(updatable = false)
+    private byte[] occupancy;
+
     @ManyToOne
     @JoinColumn(name = "organizer_id")
     private OrganizerEntity organizer;
@@ -64,8 +102,16 @@ public class Event {
     @JoinTable(
         name = "events_categories",
         joinColumns = @JoinColumn(name = "event_id"),
-        inverseJoinColumns = @JoinColumn(name = "category_id")
+        inverseJoinColumns = @JoinColumn(name = "category_id"),
+        // Pages of events of category
+        indexes = @Index(columnList = "category_id, event_id")
     )
     private Set<Category> categories;
 
+    public Long currentFreePlace() {
+        if (freePlace == null || freePlaceChange == null) {
+            return freePlace;
+        }
+        return freePlace + freePlaceChange;
+    }
 }
@@ -0,0 +1,52 @@
+package com.team3.central.repositories.entities;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One of several rows over which changes of free places of event are spread, so concurrent
+ * reservations do not all wait for lock of event row. Free places of event are
+ * {@link Event#getFreePlace()} plus delta of all its shards. Changed only by queries in
+ * EventRepository.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(FreePlaceShard.Key.class)
+@Table(name = "free_place_shard")
+public class FreePlaceShard {
+
+  @Id
+  @Column(name = "event_id")
+  private Long eventId;
+
+  @Id
+  private Integer shard;
+
+  private Long delta;
+
+  // Number of changes made to delta, counted into version of event
+  private Long changes;
+
+  @Getter
+  @Setter
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Key implements Serializable {
+
+    private Long eventId;
+    private Integer shard;
+  }
+}
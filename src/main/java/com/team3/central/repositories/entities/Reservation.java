@@ -1,5 +1,6 @@
 package com.team3.central.repositories.entities;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -7,6 +8,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,14 +21,22 @@ import lombok.Setter;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "reservation")
+@Table(name = "reservation",
+    uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"event_id", "place_on_schema"}),
+        // Index for cancellation by token
+        @UniqueConstraint(columnNames = "reservation_token")})
 public class Reservation {
 
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
+  @Column(name = "place_on_schema")
   private Long placeOnSchema;
+  @Column(name = "reservation_token")
   private String reservationToken;
+  // Epoch second until which place is only held and must be confirmed, null when confirmed
+  private Long holdUntil;
 
   @ManyToOne
   @JoinColumn(name = "event_id")
@@ -37,4 +47,9 @@ public class Reservation {
     this.placeOnSchema = placeOnSchema;
     this.reservationToken = reservationToken;
   }
+
+  public Reservation(Event event, Long placeOnSchema, String reservationToken, Long holdUntil) {
+    this(event, placeOnSchema, reservationToken);
+    this.holdUntil = holdUntil;
+  }
 }
@@ -0,0 +1,57 @@
+package com.team3.central.repositories.entities;
+
+import com.team3.central.repositories.entities.enums.SeatChangeType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entry of append-only journal of seat changes, never updated or deleted. Replaying entries of
+ * event in order of id gives its places at any time, see SeatChangeReplay.
+ */
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "seat_change", indexes = @Index(columnList = "event_id, id"))
+public class SeatChange {
+
+  // Ids are allocated in blocks, so saving batch of entries is one batched insert
+  @SequenceGenerator(
+      name = "seat_change_sequence",
+      sequenceName = "seat_change_sequence",
+      allocationSize = 100
+  )
+  @Id
+  @GeneratedValue(
+      strategy = GenerationType.SEQUENCE,
+      generator = "seat_change_sequence"
+  )
+  private Long id;
+  @Column(name = "event_id", nullable = false)
+  private Long eventId;
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private SeatChangeType type;
+  // Epoch millisecond of change
+  @Column(nullable = false)
+  private Long changedAt;
+  private Long placeId;
+  private String reservationToken;
+  // Epoch second until which reserved place is only held, null when reserved for good
+  private Long holdUntil;
+  // Places of event after CREATE or RESIZE
+  private Long maxPlace;
+}
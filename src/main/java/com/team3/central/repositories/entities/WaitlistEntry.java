@@ -0,0 +1,54 @@
+package com.team3.central.repositories.entities;
+
+import com.team3.central.repositories.entities.enums.WaitlistStatus;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Buyer waiting for place of sold out event. Entries of event are served in order of id, so the
+ * table is FIFO queue per event.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "waitlist_entry",
+    indexes = {
+        @Index(columnList = "event_id, status, id"),
+        @Index(columnList = "status, hold_until")},
+    uniqueConstraints = @UniqueConstraint(columnNames = "waitlist_token"))
+public class WaitlistEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+  @Column(name = "event_id", nullable = false)
+  private Long eventId;
+  @Column(name = "waitlist_token", nullable = false)
+  private String waitlistToken;
+  @Column(nullable = false)
+  private String email;
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private WaitlistStatus status;
+  // Reservation holding offered place
+  private String reservationToken;
+  // Epoch second until which offered place is held
+  @Column(name = "hold_until")
+  private Long holdUntil;
+}
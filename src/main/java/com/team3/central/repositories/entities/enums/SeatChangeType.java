@@ -0,0 +1,12 @@
+package com.team3.central.repositories.entities.enums;
+
+public enum SeatChangeType {
+  // Event created with maxPlace places
+  CREATE,
+  RESERVE,
+  CONFIRM,
+  CANCEL,
+  // Number of places changed to maxPlace
+  RESIZE,
+  CANCEL_EVENT
+}
@@ -0,0 +1,8 @@
+package com.team3.central.repositories.entities.enums;
+
+public enum SeatStorage {
+  ROWS,
+  LAZY_ROWS,
+  BITMAP,
+  MEMORY
+}
@@ -0,0 +1,10 @@
+package com.team3.central.repositories.entities.enums;
+
+public enum WaitlistStatus {
+  WAITING,
+  // Place is held for buyer until holdUntil
+  OFFERED,
+  // Hold was confirmed or released, buyer has to join again for another offer
+  CLOSED,
+  LEFT
+}
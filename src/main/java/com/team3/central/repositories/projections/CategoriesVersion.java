@@ -0,0 +1,9 @@
+package com.team3.central.repositories.projections;
+
+// Categories are never renamed or deleted, so adding one is the only change of them
+public interface CategoriesVersion {
+
+  long getTotal();
+
+  Long getMaxId();
+}
@@ -0,0 +1,6 @@
+package com.team3.central.repositories.projections;
+
+public interface EventOccupancy {
+
+  byte[] getOccupancy();
+}
@@ -0,0 +1,37 @@
+package com.team3.central.repositories.projections;
+
+import com.team3.central.repositories.EventRepositoryImpl;
+import com.team3.central.repositories.entities.enums.EventStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Columns of event which listings return, read without place schema, organizer and reservations
+ * of the event. Built by constructor expression in {@link EventRepositoryImpl}, so the order of
+ * constructor parameters is part of its query.
+ */
+@Getter
+@AllArgsConstructor
+public class EventSummary {
+
+  private final Long id;
+  private final String title;
+  private final String name;
+  private final Long startTime;
+  private final Long endTime;
+  private final String latitude;
+  private final String longitude;
+  private final Long maxPlace;
+  private final Long freePlace;
+  private final Long freePlaceChange;
+  private final EventStatus status;
+  private final Long version;
+
+  // Same as Event.currentFreePlace()
+  public Long currentFreePlace() {
+    if (freePlace == null || freePlaceChange == null) {
+      return freePlace;
+    }
+    return freePlace + freePlaceChange;
+  }
+}
@@ -0,0 +1,21 @@
+package com.team3.central.repositories.projections;
+
+import com.team3.central.repositories.entities.enums.EventStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Version of event with the columns its status is computed from, enough to tell whether event
+ * read before is still current without reading the event. Built by constructor expressions, so
+ * the order of constructor parameters is part of their queries.
+ */
+@Getter
+@AllArgsConstructor
+public class EventVersion {
+
+  private final Long id;
+  private final Long version;
+  private final EventStatus status;
+  private final Long startTime;
+  private final Long endTime;
+}
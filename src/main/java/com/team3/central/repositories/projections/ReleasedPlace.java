@@ -0,0 +1,8 @@
+package com.team3.central.repositories.projections;
+
+public interface ReleasedPlace {
+
+  Long getEventId();
+
+  Long getPlaceOnSchema();
+}
@@ -3,6 +3,7 @@ package com.team3.central.services;
 import com.team3.central.mappers.CategoryMapper;
 import com.team3.central.repositories.CategoryRepository;
 import com.team3.central.repositories.entities.Category;
+import com.team3.central.repositories.projections.CategoriesVersion;
 import com.team3.central.services.exceptions.CategoryExistsException;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,6 +41,25 @@ public class CategoriesService {
                 .collect(Collectors.toList());
     }
 
+    // ETag of current categories, read without the categories
+    public String getCategoriesTag() {
+        CategoriesVersion version = categoryRepository.findVersion();
+        return categoriesTag(version.getTotal(), version.getMaxId());
+    }
+
+    // Same as getCategoriesTag() when categories are all the current ones
+    public String getCategoriesTag(List<com.team3.central.openapi.model.Category> categories) {
+        return categoriesTag(categories.size(), categories.stream()
+                .map(com.team3.central.openapi.model.Category::getId)
+                .max(Long::compare)
+                .orElse(null));
+    }
+
+    // Categories are only ever added, so their number and greatest id tell them apart
+    private static String categoriesTag(long total, Long maxId) {
+        return "\"" + total + "." + maxId + "\"";
+    }
+
     public boolean existsByName(String name) {
         return categoryRepository.findAll()
                 .stream()
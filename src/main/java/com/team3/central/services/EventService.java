@@ -2,44 +2,78 @@ package com.team3.central.services;
 
 
 import com.team3.central.mappers.EventMapper;
+import com.team3.central.mappers.EventStatusMapper;
+import com.team3.central.mappers.PlaceEncoding;
 import com.team3.central.openapi.model.EventPatch;
+import com.team3.central.openapi.model.EventWithPlaces;
+import com.team3.central.openapi.model.PlaceChanges;
 import com.team3.central.repositories.CategoryRepository;
+import com.team3.central.repositories.EventPageQuery;
 import com.team3.central.repositories.EventRepository;
-import com.team3.central.repositories.ReservationRepository;
 import com.team3.central.repositories.entities.Category;
 import com.team3.central.repositories.entities.Event;
 import com.team3.central.repositories.entities.OrganizerEntity;
-import com.team3.central.repositories.entities.Reservation;
 import com.team3.central.repositories.entities.enums.EventStatus;
+import com.team3.central.repositories.projections.EventSummary;
+import com.team3.central.repositories.projections.EventVersion;
 import com.team3.central.services.exceptions.EventNotChangedException;
 import com.team3.central.services.exceptions.NoCategoryException;
 import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import com.team3.central.services.journal.SeatChangeJournal;
+import com.team3.central.services.seats.SeatChangeFeed;
+import com.team3.central.services.seats.SeatMap;
+import com.team3.central.services.seats.SeatMapCache;
+import com.team3.central.services.seats.SeatStores;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Events and their ETags. ETag of event is made of its id, version and status for current time,
+ * ETag of page is hash of those of its events, so it can be checked by reading versions only.
+ */
 @Service
 public class EventService {
 
   private final EventRepository eventRepository;
   private final CategoryRepository categoryRepository;
   private final EventMapper eventMapper;
-  private final ReservationRepository reservationRepository;
+  private final EventStatusMapper eventStatusMapper;
+  private final SeatStores seatStores;
+  private final SeatChangeJournal seatChangeJournal;
+  private final SeatMapCache seatMapCache;
+  private final SeatChangeFeed seatChangeFeed;
 
   @Autowired
   public EventService(EventRepository eventRepository,
-      ReservationRepository reservationRepository,
-      CategoryRepository categoryRepository) {
+      CategoryRepository categoryRepository,
+      SeatStores seatStores,
+      SeatChangeJournal seatChangeJournal,
+      SeatMapCache seatMapCache,
+      SeatChangeFeed seatChangeFeed) {
     this.eventRepository = eventRepository;
     this.eventMapper = new EventMapper();
-    this.reservationRepository = reservationRepository;
+    this.eventStatusMapper = new EventStatusMapper();
     this.categoryRepository = categoryRepository;
+    this.seatStores = seatStores;
+    this.seatChangeJournal = seatChangeJournal;
+    this.seatMapCache = seatMapCache;
+    this.seatChangeFeed = seatChangeFeed;
   }
 
+  @Transactional
   public com.team3.central.openapi.model.Event addEvent(String title, String name, Long maxPlaces,
       Long startTime, Long endTime, String latitude,
       String longitude, Set<Category> categories, String placeSchema, OrganizerEntity organizer)
@@ -55,57 +89,177 @@ public class EventService {
         .latitude(latitude)
         .longitude(longitude)
         .freePlace(maxPlaces)
+        .revision(0L)
         .placeSchema(placeSchema)
         .status(EventStatus.INFUTURE)
         .organizer(organizer)
         .categories(categories)
         .reservations(Set.of())
         .maxPlace(maxPlaces)
+        .seatStorage(seatStores.getDefaultStorage())
         .build();
     eventRepository.save(event);
-    HashSet<Reservation> reservations = new HashSet<Reservation>(Math.toIntExact(maxPlaces));
-    for (int placeId = 0; placeId < maxPlaces; placeId++) {
-      Reservation reservation = Reservation.builder().event(event)
-          .reservationToken(null) // null indicates that place is free/not reserved
-          .placeOnSchema((long) placeId)
-          .build();
-      reservationRepository.save(reservation);
-      reservations.add(reservation);
-    }
-    event.setReservations(reservations);
+    seatStores.forEvent(event).createPlaces(event);
+    seatChangeJournal.created(event);
 
     return eventMapper.convertToModel(event);
   }
 
-  public Optional<com.team3.central.openapi.model.EventWithPlaces> getById(Long id)
-      throws NotFoundException {
-    if (!eventRepository.existsById(id)) {
+  public TaggedEvent getById(Long id, PlaceEncoding encoding) throws NotFoundException {
+    SeatMap seatMap = getSeatMap(id);
+    EventWithPlaces event = eventMapper.convertToEventWithPlaces(seatMap.getEvent(),
+        seatMap.getStatus(), seatMap.getFreePlace(), seatMap.getTakenPlaces(), encoding);
+    // Patched seat map is newer than its version, its ETag never matches that of version
+    String patches = seatMap.getPatches() == 0 ? "" : "+" + seatMap.getPatches();
+    return new TaggedEvent(event, quote(eventVersion(id, seatMap.getVersion(), event.getStatus())
+        + patches));
+  }
+
+  // Places changed since version of previous call, from the same seat map as getById()
+  public PlaceChanges getPlaceChanges(Long id, Long since) throws NotFoundException {
+    return eventMapper.convertToPlaceChanges(
+        seatChangeFeed.changesSince(id, getSeatMap(id), since));
+  }
+
+  private SeatMap getSeatMap(Long id) throws NotFoundException {
+    SeatMap seatMap = seatMapCache.get(id, () -> eventRepository.findById(id)
+        .map(event -> new SeatMap(eventMapper.convertToEventWithoutPlaces(event),
+            event.getStatus(), event.currentFreePlace(),
+            seatStores.forEvent(event).getTakenPlaces(event), event.getVersion(), 0))
+        .orElse(null));
+    if (seatMap == null) {
       throw new NotFoundException("Index does not exist");
     }
-    return eventRepository.findById(id).map(eventMapper::convertToEventWithPlaces);
+    return seatMap;
   }
 
-  public List<com.team3.central.openapi.model.Event> getAllEvents() {
-    return eventRepository.findAll()
-        .stream()
-        .map(eventMapper::convertToModel)
-        .collect(Collectors.toList());
+  // ETag of current event, read without the event. Empty when event does not exist
+  public Optional<String> getEventTag(Long id) {
+    return Optional.ofNullable(eventRepository.findVersionById(id))
+        .map(version -> quote(eventVersion(version, currentTime())));
   }
 
-  public List<com.team3.central.openapi.model.Event> getEventsByCategory(Long categoryId) {
-    Category category = categoryRepository.findById(categoryId.longValue());
-    return eventRepository.findByCategories(category)
-        .stream()
-        .map(eventMapper::convertToModel)
-        .collect(Collectors.toList());
+  public EventsPage getAllEvents(EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    return getPage(query, after);
+  }
+
+  public EventsPage getEventsByCategory(Long categoryId, EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    return getPage(query.toBuilder().categoryId(categoryId).build(), after);
+  }
+
+  public String getAllEventsTag(EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    return getPageTag(query, after);
   }
 
-  public List<com.team3.central.openapi.model.Event> getForUser(String email) {
-    return eventRepository.findAll()
-        .stream()
-        .filter(event -> event.getOrganizer().getEmail().equals(email))
-        .map(eventMapper::convertToModel)
+  public String getEventsByCategoryTag(Long categoryId, EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    return getPageTag(query.toBuilder().categoryId(categoryId).build(), after);
+  }
+
+  public EventsPage getForOrganizer(Long organizerId, EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    return getPage(query.toBuilder().organizerId(organizerId).build(), after);
+  }
+
+  // Events are read as summaries, with categories of whole page in one query
+  private EventsPage getPage(EventPageQuery query, String after) throws IllegalArgumentException {
+    List<EventSummary> events = eventRepository.findSummaryPage(nextPageQuery(query, after));
+    String nextCursor = null;
+    if (events.size() > query.getLimit()) {
+      events = events.subList(0, query.getLimit());
+      EventSummary last = events.get(events.size() - 1);
+      nextCursor = cursor(query, last.getStartTime(), last.getId());
+    }
+    Map<Long, List<Category>> categories = eventRepository.findCategoriesByEventIds(
+        events.stream().map(EventSummary::getId).collect(Collectors.toList()));
+    List<com.team3.central.openapi.model.Event> models = events.stream()
+        .map(event -> eventMapper.convertToModel(event,
+            categories.getOrDefault(event.getId(), List.of())))
         .collect(Collectors.toList());
+    StringBuilder versions = new StringBuilder(nextCursor == null ? "last" : "next");
+    for (int i = 0; i < events.size(); i++) {
+      versions.append(',').append(eventVersion(events.get(i).getId(),
+          events.get(i).getVersion(), models.get(i).getStatus()));
+    }
+    return new EventsPage(models, nextCursor, pageTag(versions));
+  }
+
+  // Same as ETag of getPage(query, after), made of versions of its events only
+  private String getPageTag(EventPageQuery query, String after) throws IllegalArgumentException {
+    List<EventVersion> events = eventRepository.findVersionPage(nextPageQuery(query, after));
+    StringBuilder versions = new StringBuilder(events.size() > query.getLimit() ? "next" : "last");
+    Long currentTime = currentTime();
+    events.stream()
+        .limit(query.getLimit())
+        .forEach(event -> versions.append(',').append(eventVersion(event, currentTime)));
+    return pageTag(versions);
+  }
+
+  private String eventVersion(EventVersion event, Long currentTime) {
+    return eventVersion(event.getId(), event.getVersion(), eventStatusMapper.convertToModel(
+        event.getStatus(), event.getStartTime(), event.getEndTime(), currentTime));
+  }
+
+  private static String eventVersion(Long id, Long version,
+      com.team3.central.openapi.model.EventStatus status) {
+    return id + "." + version + "." + status;
+  }
+
+  private static String pageTag(CharSequence versions) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest(versions.toString().getBytes(StandardCharsets.US_ASCII));
+      return quote(Base64.getUrlEncoder().withoutPadding()
+          .encodeToString(Arrays.copyOf(hash, 16)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String quote(String etag) {
+    return "\"" + etag + "\"";
+  }
+
+  // Same clock as EventMapper computes status with
+  private static Long currentTime() {
+    return System.currentTimeMillis() / 1000L;
+  }
+
+  // One more event than the limit is read to know whether there is next page
+  private static EventPageQuery nextPageQuery(EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    return continueAfter(query, after).toBuilder()
+        .limit(query.getLimit() + 1)
+        .build();
+  }
+
+  private static String cursor(EventPageQuery query, Long startTime, Long id) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(
+        (query.getSort() + ":" + startTime + ":" + id).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  // Cursor is "sort:startTime:id" of last event of previous page
+  private static EventPageQuery continueAfter(EventPageQuery query, String after)
+      throws IllegalArgumentException {
+    if (after == null) {
+      return query;
+    }
+    String[] fields = new String(Base64.getUrlDecoder().decode(after),
+        StandardCharsets.US_ASCII).split(":");
+    if (fields.length != 3 || !fields[0].equals(query.getSort().name())) {
+      throw new IllegalArgumentException("Cursor is invalid or for other sort");
+    }
+    try {
+      return query.toBuilder()
+          .afterStartTime(fields[1].equals("null") ? null : Long.valueOf(fields[1]))
+          .afterId(Long.valueOf(fields[2]))
+          .build();
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Cursor is invalid");
+    }
   }
 
   public void deleteEvent(Long id, String email) throws NotFoundException {
@@ -121,10 +275,15 @@ public class EventService {
     }
     event.setStatus(EventStatus.CANCELLED);
     eventRepository.save(event);
+    eventRepository.bumpRevision(id);
+    seatChangeJournal.eventCancelled(id);
+    seatMapCache.invalidate(id);
   }
 
+  @Transactional(rollbackFor = ReservedPlacesException.class)
   public void patchEvent(Long id, String email, EventPatch eventPatch)
-      throws NotFoundException, NoCategoryException, EventNotChangedException {
+      throws NotFoundException, NoCategoryException, EventNotChangedException,
+      ReservedPlacesException {
     var event = eventRepository.findById(id);
     if (event.isEmpty()) {
       throw new NotFoundException("Event does not exist");
@@ -136,22 +295,16 @@ public class EventService {
       throw new NotFoundException("Event is not in future");
     }
     boolean eventChanged = false;
-    // If we change maxPlace (available place in event), then we delete all reservations and create
-    // new one. Old reservations are not valid anymore
-    if (eventPatch.getMaxPlace() != null) {
+    // Changing maxPlace only adds or removes places above the smaller of old and new maxPlace,
+    // existing reservations stay valid. Refused if any of removed places is reserved
+    if (eventPatch.getMaxPlace() != null
+        && !eventPatch.getMaxPlace().equals(event.get().getMaxPlace())) {
+      // Locks event row first, so no place can be reserved above new maxPlace meanwhile
+      eventRepository.updateMaxPlace(id, eventPatch.getMaxPlace());
+      seatStores.forEvent(event.get()).resize(event.get(), eventPatch.getMaxPlace());
       event.get().setMaxPlace(eventPatch.getMaxPlace());
-      reservationRepository.deleteAll(event.get().getReservations());
-      HashSet<Reservation> reservations = new HashSet<Reservation>(
-          Math.toIntExact(eventPatch.getMaxPlace()));
-      for (int placeId = 0; placeId < eventPatch.getMaxPlace(); placeId++) {
-        Reservation reservation = Reservation.builder().event(event.get())
-            .reservationToken(null) // null indicates that place is free/not reserved
-            .placeOnSchema((long) placeId)
-            .build();
-        reservationRepository.save(reservation);
-        reservations.add(reservation);
-      }
-      event.get().setReservations(reservations);
+      seatChangeJournal.resized(id, eventPatch.getMaxPlace());
+      eventChanged = true;
     }
     if (eventPatch.getStartTime() != null) {
       event.get().setStartTime(eventPatch.getStartTime());
@@ -197,6 +350,8 @@ public class EventService {
     if(!eventChanged) {
       throw new EventNotChangedException("Event was not changed");
     }
+    eventRepository.bumpRevision(id);
+    seatMapCache.invalidate(id);
   }
 
 }
@@ -0,0 +1,17 @@
+package com.team3.central.services;
+
+import com.team3.central.openapi.model.Event;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class EventsPage {
+
+  private final List<Event> events;
+  // Cursor of next page, null when this page is the last one
+  private final String nextCursor;
+  // ETag of the page, see EventService.getAllEventsTag()
+  private final String etag;
+}
@@ -0,0 +1,142 @@
+package com.team3.central.services;
+
+import com.team3.central.services.exceptions.IdempotencyKeyReusedException;
+import com.team3.central.services.exceptions.RequestInProgressException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Remembers results of requests sent with Idempotency-Key header, so client retrying after
+ * timeout gets result of its first request instead of running it again. Only successful results
+ * are kept, failed request can be retried with the same key. Retry arriving while first request
+ * still runs waits for its result, at most wait long; then it is told to try again later.
+ *
+ * Keys are kept in memory of this instance for ttl, at most maxKeys of them (oldest are dropped
+ * first).
+ */
+@Service
+public class IdempotencyService {
+
+  public static final int MAX_KEY_LENGTH = 255;
+
+  // Insertion ordered, so the oldest entry is always first
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private final Duration ttl;
+  private final int maxKeys;
+  private final Duration wait;
+  private final Clock clock;
+
+  @Autowired
+  public IdempotencyService(@Value("${central.idempotency.ttl-minutes:60}") long ttlMinutes,
+      @Value("${central.idempotency.max-keys:100000}") int maxKeys,
+      @Value("${central.idempotency.wait-seconds:10}") long waitSeconds) {
+    this(Duration.ofMinutes(ttlMinutes), maxKeys, Duration.ofSeconds(waitSeconds),
+        Clock.systemUTC());
+  }
+
+  IdempotencyService(Duration ttl, int maxKeys, Duration wait, Clock clock) {
+    this.ttl = ttl;
+    this.maxKeys = maxKeys;
+    this.wait = wait;
+    this.clock = clock;
+  }
+
+  // Runs call once per operation and key, request describes arguments of call and must be the
+  // same for every use of key. Without key call is always run
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String operation, String key, String request, Callable<T> call)
+      throws Exception {
+    if (key == null) {
+      return call.call();
+    }
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException("Idempotency key is invalid");
+    }
+    String id = operation + ":" + key;
+    Entry entry;
+    boolean first = false;
+    synchronized (this) {
+      evictExpired();
+      entry = entries.get(id);
+      if (entry == null) {
+        entry = new Entry(request, clock.millis());
+        entries.put(id, entry);
+        evictOverLimit();
+        first = true;
+      }
+    }
+    if (!entry.request.equals(request)) {
+      throw new IdempotencyKeyReusedException("Idempotency key was used for other request");
+    }
+    if (!first) {
+      return (T) entry.await(wait);
+    }
+    try {
+      T result = call.call();
+      entry.result.complete(result);
+      return result;
+    } catch (Exception e) {
+      forget(id, entry);
+      entry.result.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private synchronized void forget(String id, Entry entry) {
+    entries.remove(id, entry);
+  }
+
+  private void evictExpired() {
+    long oldestKept = clock.millis() - ttl.toMillis();
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext() && iterator.next().createdAt < oldestKept) {
+      iterator.remove();
+    }
+  }
+
+  private void evictOverLimit() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (entries.size() > maxKeys && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  private static class Entry {
+
+    private final String request;
+    private final long createdAt;
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    Entry(String request, long createdAt) {
+      this.request = request;
+      this.createdAt = createdAt;
+    }
+
+    Object await(Duration wait) throws Exception {
+      try {
+        return result.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // First request is stuck, retry thread is not kept waiting for it
+        throw new RequestInProgressException("Request with this idempotency key still runs");
+      } catch (ExecutionException e) {
+        // Retry of failed request fails the same way
+        if (e.getCause() instanceof Exception) {
+          throw (Exception) e.getCause();
+        }
+        throw e;
+      }
+    }
+  }
+}
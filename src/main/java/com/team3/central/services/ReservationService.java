@@ -2,66 +2,318 @@ package com.team3.central.services;
 
 import com.team3.central.repositories.EventRepository;
 import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
 import com.team3.central.repositories.entities.Reservation;
 import com.team3.central.repositories.entities.enums.EventStatus;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.ReservationTokenService.SignedToken;
 import com.team3.central.services.exceptions.NoFreePlaceException;
 import com.team3.central.services.exceptions.NotFoundException;
-import java.util.UUID;
+import com.team3.central.services.journal.SeatChangeJournal;
+import com.team3.central.services.seats.SeatLayout;
+import com.team3.central.services.seats.SeatLayouts;
+import com.team3.central.services.seats.SeatMapCache;
+import com.team3.central.services.seats.SeatStore;
+import com.team3.central.services.seats.SeatStores;
+import com.team3.central.services.waitlist.FreedPlaces;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ReservationService {
 
+  // How many times places chosen by count are chosen again after other buyer took one of them
+  private static final int RESERVATION_ATTEMPTS = 3;
+  // Buyer without chosen place gets random one of this many best places, so concurrent buyers
+  // do not all race for the single best one
+  static final int BEST_PLACE_CANDIDATES = 8;
+
   private final ReservationRepository reservationRepository;
   private final EventRepository eventRepository;
+  private final SeatStores seatStores;
+  private final SeatLayouts seatLayouts;
+  private final FreedPlaces freedPlaces;
+  private final SeatChangeJournal seatChangeJournal;
+  private final ReservationTokenService reservationTokenService;
+  private final SeatMapCache seatMapCache;
+  // How long new reservation only holds place before it has to be confirmed, 0 for no holds
+  private final long holdSeconds;
 
   @Autowired
   public ReservationService(ReservationRepository reservationRepository,
-      EventRepository eventRepository) {
+      EventRepository eventRepository, SeatStores seatStores, SeatLayouts seatLayouts,
+      FreedPlaces freedPlaces, SeatChangeJournal seatChangeJournal,
+      ReservationTokenService reservationTokenService, SeatMapCache seatMapCache,
+      @Value("${central.reservations.hold-seconds:0}") long holdSeconds) {
     this.reservationRepository = reservationRepository;
     this.eventRepository = eventRepository;
+    this.seatStores = seatStores;
+    this.seatLayouts = seatLayouts;
+    this.freedPlaces = freedPlaces;
+    this.seatChangeJournal = seatChangeJournal;
+    this.reservationTokenService = reservationTokenService;
+    this.seatMapCache = seatMapCache;
+    this.holdSeconds = holdSeconds;
   }
 
   public void deleteReservation(String reservationToken) throws NotFoundException {
-    Reservation reservation = reservationRepository.findByReservationToken(reservationToken);
-    if (reservation == null) {
+    // Signed token tells where reservation is, so it is cancelled without reading it first
+    Optional<SignedToken> signedToken = reservationTokenService.verify(reservationToken);
+    if (signedToken.isPresent()) {
+      seatStores.forStorage(signedToken.get().getStorage())
+          .cancel(signedToken.get().getEventId(), reservationToken);
+      seatChangeJournal.cancelled(signedToken.get().getEventId(), reservationToken);
+      seatMapCache.invalidate(signedToken.get().getEventId());
+      freedPlaces.freed(signedToken.get().getEventId());
+      return;
+    }
+    if (!reservationTokenService.mayBeUnsigned(reservationToken)) {
       throw new NotFoundException("No such reservation");
     }
-    reservation.setReservationToken(null);
-    reservationRepository.save(reservation);
+    Reservation reservation = findReservation(reservationToken);
+    seatStores.forEvent(reservation.getEvent()).cancel(reservation);
+    seatChangeJournal.cancelled(reservation.getEvent().getId(), reservationToken);
+    seatMapCache.invalidate(reservation.getEvent().getId());
+    freedPlaces.freed(reservation.getEvent().getId());
+  }
 
-    eventRepository.updateEventById(reservation.getEvent().getId(),
-        reservation.getEvent().getFreePlace() + 1);
+  // Cancels reservation only while it is a hold, so confirmation which comes first is kept.
+  // Fails when there is no such hold
+  public void releaseHold(String reservationToken) throws NotFoundException {
+    Reservation reservation = findReservation(reservationToken);
+    seatStores.forEvent(reservation.getEvent()).cancelHold(reservation);
+    seatChangeJournal.cancelled(reservation.getEvent().getId(), reservationToken);
+    seatMapCache.invalidate(reservation.getEvent().getId());
+    freedPlaces.freed(reservation.getEvent().getId());
+  }
+
+  // Cancels every reservation it can find, returns tokens which were cancelled. Reservations are
+  // freed with one statement per seat storage instead of one cancellation per token
+  public Set<String> deleteReservations(Collection<String> reservationTokens) {
+    Map<SeatStorage, List<String>> tokensByStorage = new EnumMap<>(SeatStorage.class);
+    Map<String, Long> eventIds = new HashMap<>();
+    List<String> unsignedTokens = new ArrayList<>();
+    for (String reservationToken : reservationTokens) {
+      Optional<SignedToken> signedToken = reservationTokenService.verify(reservationToken);
+      if (signedToken.isPresent()) {
+        eventIds.put(reservationToken, signedToken.get().getEventId());
+        tokensByStorage.computeIfAbsent(signedToken.get().getStorage(),
+            storage -> new ArrayList<>()).add(reservationToken);
+      } else if (reservationTokenService.mayBeUnsigned(reservationToken)) {
+        unsignedTokens.add(reservationToken);
+      }
+    }
+    if (!unsignedTokens.isEmpty()) {
+      // Storage of unsigned token is known only from its event, all are read in one query
+      List<Reservation> reservations = new ArrayList<>();
+      List<String> writtenTokens = new ArrayList<>();
+      for (String reservationToken : unsignedTokens) {
+        Reservation reservation = seatStores.findUnwrittenReservation(reservationToken);
+        if (reservation == null) {
+          writtenTokens.add(reservationToken);
+        } else {
+          reservations.add(reservation);
+        }
+      }
+      if (!writtenTokens.isEmpty()) {
+        reservations.addAll(reservationRepository.findByReservationTokenIn(writtenTokens));
+      }
+      for (Reservation reservation : reservations) {
+        eventIds.put(reservation.getReservationToken(), reservation.getEvent().getId());
+        tokensByStorage.computeIfAbsent(seatStores.storageOf(reservation.getEvent()),
+            storage -> new ArrayList<>()).add(reservation.getReservationToken());
+      }
+    }
+    Set<String> cancelledTokens = new HashSet<>();
+    tokensByStorage.forEach((storage, tokens) ->
+        cancelledTokens.addAll(seatStores.forStorage(storage).cancelAll(tokens)));
+    cancelledTokens.forEach(reservationToken ->
+        seatChangeJournal.cancelled(eventIds.get(reservationToken), reservationToken));
+    cancelledTokens.stream().map(eventIds::get).distinct().forEach(eventId -> {
+      seatMapCache.invalidate(eventId);
+      freedPlaces.freed(eventId);
+    });
+    return cancelledTokens;
+  }
+
+  // Turns hold into reservation for good. Expired hold is treated as missing even before its
+  // place is released
+  public Reservation confirmReservation(String reservationToken) throws NotFoundException {
+    Reservation reservation = findReservation(reservationToken);
+    seatStores.forEvent(reservation.getEvent())
+        .confirm(reservation, Instant.now().getEpochSecond());
+    seatChangeJournal.confirmed(reservation.getEvent().getId(), reservationToken);
+    return reservation;
+  }
+
+  // Whether hold was confirmed, missing or released reservation is not
+  public boolean isConfirmed(String reservationToken) {
+    try {
+      return findReservation(reservationToken).getHoldUntil() == null;
+    } catch (NotFoundException e) {
+      return false;
+    }
   }
 
   public Reservation makeReservation(Long eventId, Long placeId)
       throws NotFoundException, NoFreePlaceException {
-    Reservation reservation = null;
-    if (placeId == null) {
-      reservation = reservationRepository.findFirstByEventIdAndReservationTokenIsNull(eventId);
-      if (reservation == null) {
-        throw new NotFoundException("No free places in event");
+    return reserve(findOpenEvent(eventId), placeId, holdUntil());
+  }
+
+  // Holds the best free place of event until holdUntil epoch second, whatever hold time of
+  // ordinary reservations is
+  public Reservation holdPlace(Long eventId, long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    return reserve(findOpenEvent(eventId), null, holdUntil);
+  }
+
+  private Reservation reserve(Event event, Long placeId, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    Reservation reservation = claimPlace(event, placeId, holdUntil);
+    seatChangeJournal.reserved(reservation);
+    seatMapCache.reserved(event.getId(), List.of(reservation.getPlaceOnSchema()));
+    return reservation;
+  }
+
+  private Reservation claimPlace(Event event, Long placeId, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    SeatStore store = seatStores.forEvent(event);
+    SeatLayout layout = seatLayouts.forEvent(event);
+    if (placeId != null || !layout.hasRows()) {
+      // Without rows all places are equally good, store picks any free one
+      return store.reserve(event, placeId, newReservationToken(event), holdUntil);
+    }
+    // Seat map of event page read just now is good enough to choose from, chosen place is claimed
+    // with conditional write anyway
+    BitSet takenPlaces = seatMapCache.getTakenPlaces(event.getId())
+        .orElseGet(() -> store.getTakenPlaces(event));
+    List<Long> candidates = layout.findBestFreePlaces(takenPlaces, BEST_PLACE_CANDIDATES);
+    if (!candidates.isEmpty()) {
+      Long place = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+      try {
+        return store.reserve(event, place, newReservationToken(event), holdUntil);
+      } catch (NoFreePlaceException e) {
+        // Taken by other buyer meanwhile
       }
-    } else {
-      reservation = reservationRepository.findByEventIdAndPlaceOnSchema(eventId, placeId);
+    }
+    // Store claims any free place in one statement instead of choosing again
+    return store.reserve(event, null, newReservationToken(event), holdUntil);
+  }
+
+  // Reserves placeIds or, when they are missing, count best free places (standing next to each
+  // other in one row if contiguous). Either all places are reserved or none
+  public List<Reservation> makeReservations(Long eventId, List<Long> placeIds, Integer count,
+      boolean contiguous) throws NotFoundException, NoFreePlaceException {
+    List<Reservation> reservations = claimPlaces(findOpenEvent(eventId), placeIds, count,
+        contiguous);
+    reservations.forEach(seatChangeJournal::reserved);
+    seatMapCache.reserved(eventId, reservations.stream()
+        .map(Reservation::getPlaceOnSchema)
+        .collect(Collectors.toList()));
+    return reservations;
+  }
+
+  private List<Reservation> claimPlaces(Event event, List<Long> placeIds, Integer count,
+      boolean contiguous) throws NotFoundException, NoFreePlaceException {
+    SeatStore store = seatStores.forEvent(event);
+    if (placeIds != null && !placeIds.isEmpty()) {
+      // Places are always claimed in ascending order, so two overlapping requests cannot
+      // deadlock waiting for each other's rows
+      return store.reserveAll(event, placeIds.stream().sorted().collect(Collectors.toList()),
+          newReservationTokens(event, placeIds.size()), holdUntil());
+    }
+    SeatLayout layout = seatLayouts.forEvent(event);
+    // Chosen places can be taken by other buyer before they are claimed, then choose again
+    for (int attempt = 1; ; attempt++) {
+      List<Long> places = choosePlaces(event, layout, store.getTakenPlaces(event), count,
+          contiguous);
+      try {
+        return store.reserveAll(event, places, newReservationTokens(event, count),
+            holdUntil());
+      } catch (NoFreePlaceException e) {
+        if (attempt == RESERVATION_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private Reservation findReservation(String reservationToken) throws NotFoundException {
+    // Write-behind store is asked first: once it forgets reservation, its row is already committed
+    Reservation reservation = seatStores.findUnwrittenReservation(reservationToken);
+    if (reservation == null) {
+      reservation = reservationRepository.findByReservationToken(reservationToken);
     }
     if (reservation == null) {
+      throw new NotFoundException("No such reservation");
+    }
+    return reservation;
+  }
+
+  private Long holdUntil() {
+    return holdSeconds > 0 ? Instant.now().getEpochSecond() + holdSeconds : null;
+  }
+
+  private Event findOpenEvent(Long eventId) throws NotFoundException {
+    Event event = eventRepository.findById(eventId).orElse(null);
+    if (event == null) {
       throw new NotFoundException("No such place in event or such event");
     }
-    if (reservation.getEvent().getStatus() == EventStatus.DONE
-        || reservation.getEvent().getStatus() == EventStatus.CANCELLED) {
+    if (event.getStatus() == EventStatus.DONE || event.getStatus() == EventStatus.CANCELLED) {
       throw new NotFoundException("Event is done or deleted");
     }
-    if (reservation.getReservationToken() != null) {
-      throw new NoFreePlaceException("Place is already reserved");
+    return event;
+  }
+
+  private static List<Long> choosePlaces(Event event, SeatLayout layout, BitSet takenPlaces,
+      int count, boolean contiguous) throws NoFreePlaceException {
+    if (layout.hasRows()) {
+      return layout.findBestPlaces(takenPlaces, count, contiguous)
+          .orElseThrow(() -> new NoFreePlaceException(contiguous
+              ? "No " + count + " free places next to each other in one row"
+              : "Not enough free places in event"));
+    }
+    if (contiguous) {
+      return layout.findContiguousBlock(takenPlaces, count)
+          .orElseThrow(() -> new NoFreePlaceException(
+              "No " + count + " free places next to each other in one row"));
     }
+    List<Long> places = new ArrayList<>();
+    int place = takenPlaces.nextClearBit(0);
+    while (place < event.getMaxPlace() && places.size() < count) {
+      places.add((long) place);
+      place = takenPlaces.nextClearBit(place + 1);
+    }
+    if (places.size() < count) {
+      throw new NoFreePlaceException("Not enough free places in event");
+    }
+    return places;
+  }
 
-    reservation.setReservationToken(UUID.randomUUID().toString());
-    reservationRepository.save(reservation);
-    eventRepository.updateEventById(reservation.getEvent().getId(),
-        reservation.getEvent().getFreePlace() - 1);
-    return reservation;
+  private List<String> newReservationTokens(Event event, int count) {
+    List<String> reservationTokens = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      reservationTokens.add(newReservationToken(event));
+    }
+    return reservationTokens;
+  }
+
+  private String newReservationToken(Event event) {
+    return reservationTokenService.newToken(event.getId(), seatStores.storageOf(event));
   }
 
 }
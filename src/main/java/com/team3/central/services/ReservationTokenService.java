@@ -0,0 +1,120 @@
+package com.team3.central.services;
+
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues reservation tokens which tell event and its seat storage themselves and are signed, so
+ * cancellation knows where reservation is without reading database and forged tokens are
+ * rejected without touching it at all.
+ *
+ * Token is base64url of: version and storage in one byte, event id as varint, 12 random bytes
+ * and first 10 bytes of HMAC-SHA256 of all before. It is not longer than UUID it replaced.
+ * Tokens issued before (plain UUIDs) are not verified and have to be looked up in database.
+ */
+@Service
+public class ReservationTokenService {
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int VERSION = 1;
+  private static final int NONCE_BYTES = 12;
+  private static final int MAC_BYTES = 10;
+  private static final Pattern UUID_TOKEN = Pattern.compile(
+      "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}");
+
+  private final SecretKeySpec key;
+  private final SecureRandom random = new SecureRandom();
+  // Secret generated for this run only, tokens of previous runs cannot be verified
+  private final boolean ephemeralSecret;
+
+  public ReservationTokenService(@Value("${central.reservations.token-secret:}") String secret) {
+    byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+    ephemeralSecret = secretBytes.length == 0;
+    if (ephemeralSecret) {
+      secretBytes = new byte[32];
+      random.nextBytes(secretBytes);
+    }
+    this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+  }
+
+  public String newToken(Long eventId, SeatStorage storage) {
+    ByteArrayOutputStream token = new ByteArrayOutputStream();
+    token.write(VERSION << 4 | storage.ordinal());
+    writeVarLong(token, eventId);
+    byte[] nonce = new byte[NONCE_BYTES];
+    random.nextBytes(nonce);
+    token.writeBytes(nonce);
+    token.writeBytes(mac(token.toByteArray()));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toByteArray());
+  }
+
+  // Empty when token was not issued by this service (or with current secret)
+  public Optional<SignedToken> verify(String token) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+    int signedLength = bytes.length - MAC_BYTES;
+    if (signedLength < 2 + NONCE_BYTES || !MessageDigest.isEqual(
+        mac(Arrays.copyOf(bytes, signedLength)),
+        Arrays.copyOfRange(bytes, signedLength, bytes.length))) {
+      return Optional.empty();
+    }
+    int storage = bytes[0] & 0x0F;
+    if ((bytes[0] & 0xFF) >> 4 != VERSION || storage >= SeatStorage.values().length) {
+      return Optional.empty();
+    }
+    long eventId = 0;
+    for (int i = 1, shift = 0; i < signedLength - NONCE_BYTES; i++, shift += 7) {
+      eventId |= (long) (bytes[i] & 0x7F) << shift;
+    }
+    return Optional.of(new SignedToken(eventId, SeatStorage.values()[storage]));
+  }
+
+  // Whether token which failed verification may still be reservation stored in database
+  public boolean mayBeUnsigned(String token) {
+    return ephemeralSecret || UUID_TOKEN.matcher(token).matches();
+  }
+
+  private byte[] mac(byte[] data) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return Arrays.copyOf(mac.doFinal(data), MAC_BYTES);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class SignedToken {
+
+    private final Long eventId;
+    private final SeatStorage storage;
+  }
+}
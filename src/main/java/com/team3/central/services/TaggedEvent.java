@@ -0,0 +1,14 @@
+package com.team3.central.services;
+
+import com.team3.central.openapi.model.EventWithPlaces;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TaggedEvent {
+
+  private final EventWithPlaces event;
+  // ETag of the event, see EventService.getEventTag()
+  private final String etag;
+}
@@ -0,0 +1,208 @@
+package com.team3.central.services.admission;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotAdmittedException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.SoldOutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Virtual waiting room in front of reservations. When event opens and more buyers come than seat
+ * storage can serve, they join queue of the event and are let in at fixed rate (see
+ * {@link EventQueue}); reservation is accepted only with admitted ticket, which can be used once.
+ * Buyers without ticket get in freely until the first buyer joins queue of the event, then only
+ * while nobody waits and rate allows.
+ *
+ * Ticket is signed and carries event, position and time of joining, so polling position never
+ * touches database. Free places are read from database at most once per refresh interval per
+ * event, so sold out event is rejected at once. Queues live in memory of this instance.
+ */
+@Service
+public class AdmissionService {
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final EventRepository eventRepository;
+  private final Map<Long, EventQueue> queues = new ConcurrentHashMap<>();
+  private final double ratePerSecond;
+  private final int burst;
+  private final long ticketTtlMillis;
+  private final long freePlaceRefreshMillis;
+  private final long soldOutRetryAfter;
+  private final SecretKeySpec key;
+  private final Clock clock;
+
+  @Autowired
+  public AdmissionService(EventRepository eventRepository,
+      @Value("${central.admission.rate-per-second:100}") double ratePerSecond,
+      @Value("${central.admission.burst:200}") int burst,
+      @Value("${central.admission.ticket-ttl-minutes:30}") long ticketTtlMinutes,
+      @Value("${central.admission.free-place-refresh-ms:1000}") long freePlaceRefreshMillis,
+      @Value("${central.admission.sold-out-retry-after-seconds:30}") long soldOutRetryAfter) {
+    this(eventRepository, ratePerSecond, burst, TimeUnit.MINUTES.toMillis(ticketTtlMinutes),
+        freePlaceRefreshMillis, soldOutRetryAfter, Clock.systemUTC());
+  }
+
+  AdmissionService(EventRepository eventRepository, double ratePerSecond, int burst,
+      long ticketTtlMillis, long freePlaceRefreshMillis, long soldOutRetryAfter, Clock clock) {
+    this.eventRepository = eventRepository;
+    this.ratePerSecond = ratePerSecond;
+    this.burst = burst;
+    this.ticketTtlMillis = ticketTtlMillis;
+    this.freePlaceRefreshMillis = freePlaceRefreshMillis;
+    this.soldOutRetryAfter = soldOutRetryAfter;
+    this.clock = clock;
+    // Tickets are only checked by this instance, so key does not have to outlive it
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+  }
+
+  public QueuePosition join(Long eventId) throws NotFoundException, SoldOutException {
+    long now = clock.millis();
+    EventQueue queue = queues.computeIfAbsent(eventId,
+        id -> new EventQueue(ratePerSecond, burst, now));
+    checkNotSoldOut(eventId, queue, now);
+    long position = queue.join(now);
+    return position(eventId, queue, position, sign(eventId, position, now), now);
+  }
+
+  // Only reads memory, so buyers can poll it as often as they like
+  public QueuePosition getPosition(String ticket) throws IllegalArgumentException {
+    Ticket parsed = verify(ticket);
+    return position(parsed.eventId, queues.get(parsed.eventId), parsed.position, ticket,
+        clock.millis());
+  }
+
+  // Runs reservation if ticket is admitted (or queue lets buyer walk in, when ticket is missing).
+  // Admission of ticket is used up only when reservation succeeds
+  public <T> T admit(Long eventId, String ticket, Callable<T> reservation) throws Exception {
+    long now = clock.millis();
+    EventQueue queue = queues.computeIfAbsent(eventId,
+        id -> new EventQueue(ratePerSecond, burst, now));
+    checkNotSoldOut(eventId, queue, now);
+    if (ticket == null) {
+      if (!queue.walkIn(now)) {
+        throw new NotAdmittedException(queue.hasWaiting(now) ? "Buyers are waiting, join queue"
+            : "Too many buyers at once, join queue", queue.secondsToAdmission(null, now));
+      }
+      return reservation.call();
+    }
+    Ticket parsed = verify(ticket);
+    if (!parsed.eventId.equals(eventId) || !queue.hasIssued(parsed.position)) {
+      throw new IllegalArgumentException("Ticket is not for this event");
+    }
+    if (!queue.isAdmitted(parsed.position, now)) {
+      throw new NotAdmittedException("Ticket is not admitted yet",
+          queue.secondsToAdmission(parsed.position, now));
+    }
+    if (!queue.use(parsed.position, now)) {
+      throw new IllegalArgumentException("Ticket was already used");
+    }
+    try {
+      return reservation.call();
+    } catch (NoFreePlaceException e) {
+      // Chosen place was taken by someone else, buyer may try another one
+      queue.giveBack(parsed.position);
+      throw e;
+    }
+  }
+
+  // Queues without new buyers for ticket ttl have only expired tickets left
+  @Scheduled(fixedDelay = 60000)
+  public void dropIdleQueues() {
+    long cutoff = clock.millis() - ticketTtlMillis;
+    queues.values().removeIf(queue -> queue.isIdleSince(cutoff));
+  }
+
+  private void checkNotSoldOut(Long eventId, EventQueue queue, long now)
+      throws NotFoundException, SoldOutException {
+    if (queue.startFreePlaceRefresh(now, freePlaceRefreshMillis)) {
+      Long freePlace = eventRepository.findOpenEventFreePlace(eventId);
+      if (freePlace == null) {
+        queues.remove(eventId, queue);
+        throw new NotFoundException("Event not exist or done");
+      }
+      queue.setFreePlace(freePlace);
+    }
+    if (queue.isSoldOut()) {
+      throw new SoldOutException("Event is sold out", soldOutRetryAfter);
+    }
+  }
+
+  private QueuePosition position(Long eventId, EventQueue queue, long position, String ticket,
+      long now) {
+    if (queue == null || !queue.hasIssued(position)) {
+      throw new IllegalArgumentException("Ticket expired");
+    }
+    if (queue.isSoldOut()) {
+      return new QueuePosition(ticket, eventId, queue.placeInLine(position, now), false, true,
+          soldOutRetryAfter);
+    }
+    boolean admitted = queue.isAdmitted(position, now);
+    return new QueuePosition(ticket, eventId, queue.placeInLine(position, now), admitted, false,
+        admitted ? 0 : queue.secondsToAdmission(position, now));
+  }
+
+  private String sign(Long eventId, long position, long joinedAt) {
+    String payload = eventId + "." + position + "." + joinedAt;
+    return payload + "." + signature(payload);
+  }
+
+  private Ticket verify(String ticket) {
+    if (ticket == null) {
+      throw new IllegalArgumentException("Ticket is empty");
+    }
+    int signatureStart = ticket.lastIndexOf('.');
+    String[] fields = ticket.split("\\.");
+    if (fields.length != 4 || !MessageDigest.isEqual(
+        signature(ticket.substring(0, signatureStart)).getBytes(StandardCharsets.US_ASCII),
+        fields[3].getBytes(StandardCharsets.US_ASCII))) {
+      throw new IllegalArgumentException("Ticket is invalid");
+    }
+    // Fields are signed, so they always parse
+    Ticket parsed = new Ticket(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+    if (Long.parseLong(fields[2]) + ticketTtlMillis < clock.millis()) {
+      throw new IllegalArgumentException("Ticket expired");
+    }
+    return parsed;
+  }
+
+  private String signature(String payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return Base64.getUrlEncoder().withoutPadding()
+          .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Ticket {
+
+    private final Long eventId;
+    private final long position;
+
+    Ticket(Long eventId, long position) {
+      this.eventId = eventId;
+      this.position = position;
+    }
+  }
+}
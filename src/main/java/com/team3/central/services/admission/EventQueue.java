@@ -0,0 +1,134 @@
+package com.team3.central.services.admission;
+
+import java.util.BitSet;
+
+/**
+ * Waiting room of one event. Buyers get consecutive positions and are admitted in their order by
+ * token bucket: it refills at ratePerSecond up to burst tokens and every admitted position takes
+ * one. Buyer without position gets in freely until the first buyer joins; from then on only when
+ * nobody waits and token is left.
+ *
+ * Times are in milliseconds. All state is in memory, nothing here touches database.
+ */
+class EventQueue {
+
+  private final double ratePerSecond;
+  private final double burst;
+
+  // Positions given out so far, next buyer gets this one
+  private long issued;
+  // Positions below this one are admitted
+  private long admitted;
+  private double tokens;
+  private long refilledAt;
+  // Admitted positions already used for reservation
+  private final BitSet used = new BitSet();
+  private long lastJoinAt;
+
+  // Free places last read from database, negative until first read
+  private long freePlace = -1;
+  private long freePlaceReadAt;
+
+  EventQueue(double ratePerSecond, int burst, long now) {
+    this.ratePerSecond = ratePerSecond;
+    this.burst = burst;
+    this.tokens = burst;
+    this.refilledAt = now;
+    this.lastJoinAt = now;
+  }
+
+  synchronized long join(long now) {
+    advance(now);
+    lastJoinAt = now;
+    return issued++;
+  }
+
+  // Whether position was given out by this queue (not by one dropped before)
+  synchronized boolean hasIssued(long position) {
+    return position < issued;
+  }
+
+  // Place of position in line, 1 for next admitted and 0 once it is admitted
+  synchronized long placeInLine(long position, long now) {
+    advance(now);
+    return Math.max(0, position - admitted + 1);
+  }
+
+  synchronized boolean isAdmitted(long position, long now) {
+    advance(now);
+    return position < admitted;
+  }
+
+  // Marks admitted position as used, false if it is not admitted yet or was already used
+  synchronized boolean use(long position, long now) {
+    advance(now);
+    if (position >= admitted || used.get(Math.toIntExact(position))) {
+      return false;
+    }
+    used.set(Math.toIntExact(position));
+    return true;
+  }
+
+  // Position can be used again, its reservation failed
+  synchronized void giveBack(long position) {
+    used.clear(Math.toIntExact(position));
+  }
+
+  // Lets buyer without position in. Queue is not used until first buyer joins, so buyers get in
+  // without limit; afterwards only when nobody waits, taking a token like admitted position
+  synchronized boolean walkIn(long now) {
+    if (issued == 0) {
+      return true;
+    }
+    advance(now);
+    if (admitted < issued || tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  synchronized boolean hasWaiting(long now) {
+    advance(now);
+    return admitted < issued;
+  }
+
+  // Estimated seconds until position (or buyer joining now when position is null) is admitted
+  synchronized long secondsToAdmission(Long position, long now) {
+    advance(now);
+    long waiting = (position == null ? issued : position) - admitted + 1;
+    return Math.max(1, (long) Math.ceil(waiting / ratePerSecond));
+  }
+
+  // Returns true to the one caller which should read free places from database again
+  synchronized boolean startFreePlaceRefresh(long now, long refreshMillis) {
+    if (freePlace >= 0 && now - freePlaceReadAt < refreshMillis) {
+      return false;
+    }
+    freePlaceReadAt = now;
+    return true;
+  }
+
+  synchronized void setFreePlace(long freePlace) {
+    this.freePlace = freePlace;
+  }
+
+  // Unknown (not read yet) is not sold out
+  synchronized boolean isSoldOut() {
+    return freePlace == 0;
+  }
+
+  synchronized boolean isIdleSince(long time) {
+    return lastJoinAt < time;
+  }
+
+  private void advance(long now) {
+    if (now > refilledAt) {
+      tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / 1000);
+      refilledAt = now;
+    }
+    long admit = Math.min((long) tokens, issued - admitted);
+    admitted += admit;
+    tokens -= admit;
+  }
+}
@@ -0,0 +1,18 @@
+package com.team3.central.services.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class QueuePosition {
+
+  private final String ticket;
+  private final Long eventId;
+  // 0 once admitted
+  private final long placeInLine;
+  private final boolean admitted;
+  private final boolean soldOut;
+  // Seconds after which it is worth asking again
+  private final long retryAfter;
+}
@@ -0,0 +1,7 @@
+package com.team3.central.services.exceptions;
+
+public class IdempotencyKeyReusedException extends Exception {
+  public IdempotencyKeyReusedException(String message){
+    super(message);
+  }
+}
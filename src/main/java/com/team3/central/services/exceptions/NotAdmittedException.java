@@ -0,0 +1,15 @@
+package com.team3.central.services.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class NotAdmittedException extends Exception {
+
+  // Seconds after which buyer should ask again
+  private final long retryAfter;
+
+  public NotAdmittedException(String message, long retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+}
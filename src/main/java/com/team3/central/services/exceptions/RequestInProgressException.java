@@ -0,0 +1,7 @@
+package com.team3.central.services.exceptions;
+
+public class RequestInProgressException extends Exception {
+  public RequestInProgressException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,7 @@
+package com.team3.central.services.exceptions;
+
+public class ReservedPlacesException extends Exception {
+  public ReservedPlacesException(String message) {
+    super(message);
+  }
+}
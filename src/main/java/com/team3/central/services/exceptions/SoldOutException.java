@@ -0,0 +1,15 @@
+package com.team3.central.services.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class SoldOutException extends NoFreePlaceException {
+
+  // Seconds after which places released by cancellations or expired holds may be free again
+  private final long retryAfter;
+
+  public SoldOutException(String message, long retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+}
@@ -0,0 +1,28 @@
+package com.team3.central.services.journal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.BitSet;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Places of event rebuilt from journal
+@Getter
+@AllArgsConstructor
+public class ReplayedEvent {
+
+  private final Long eventId;
+  private final long maxPlace;
+  // Bit n is set when place n is reserved or held
+  @JsonIgnore
+  private final BitSet takenPlaces;
+  private final boolean cancelled;
+
+  // Same encoding as takenPlaces of event with bitset place encoding
+  public byte[] getTakenPlaceBitmap() {
+    return takenPlaces.toByteArray();
+  }
+
+  public long getFreePlace() {
+    return maxPlace - takenPlaces.get(0, Math.toIntExact(maxPlace)).cardinality();
+  }
+}
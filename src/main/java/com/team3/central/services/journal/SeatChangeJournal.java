@@ -0,0 +1,145 @@
+package com.team3.central.services.journal;
+
+import com.team3.central.repositories.SeatChangeRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.SeatChange;
+import com.team3.central.repositories.entities.enums.SeatChangeType;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Records every change of places of events to append-only seat_change table. Recording only
+ * queues entry in memory, so reservations never wait for journal; queued entries are written
+ * periodically in batched inserts. Change made inside transaction is queued only after it
+ * commits. Entries still queued when instance crashes are lost, journal is for audit and replay,
+ * not source of truth of places.
+ *
+ * While database is down, entries wait for the next flush up to maxUnwritten of them; newer ones
+ * are dropped, so the written journal stays a gapless prefix. Counters are in {@link #getStats()}.
+ */
+@Component
+public class SeatChangeJournal {
+
+  private final SeatChangeRepository seatChangeRepository;
+  private final Queue<SeatChange> queued = new ConcurrentLinkedQueue<>();
+  // Kept between calls when writing to database fails
+  private final List<SeatChange> unwritten = new ArrayList<>();
+  private final int batchSize;
+  private final int maxUnwritten;
+  private final Clock clock;
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+
+  @Autowired
+  public SeatChangeJournal(SeatChangeRepository seatChangeRepository,
+      @Value("${central.journal.batch-size:500}") int batchSize,
+      @Value("${central.journal.max-unwritten:100000}") int maxUnwritten) {
+    this(seatChangeRepository, batchSize, maxUnwritten, Clock.systemUTC());
+  }
+
+  SeatChangeJournal(SeatChangeRepository seatChangeRepository, int batchSize, int maxUnwritten,
+      Clock clock) {
+    this.seatChangeRepository = seatChangeRepository;
+    this.batchSize = batchSize;
+    this.maxUnwritten = maxUnwritten;
+    this.clock = clock;
+  }
+
+  public void created(Event event) {
+    append(SeatChange.builder()
+        .eventId(event.getId())
+        .type(SeatChangeType.CREATE)
+        .maxPlace(event.getMaxPlace()));
+  }
+
+  public void reserved(Reservation reservation) {
+    append(SeatChange.builder()
+        .eventId(reservation.getEvent().getId())
+        .type(SeatChangeType.RESERVE)
+        .placeId(reservation.getPlaceOnSchema())
+        .reservationToken(reservation.getReservationToken())
+        .holdUntil(reservation.getHoldUntil()));
+  }
+
+  public void confirmed(Long eventId, String reservationToken) {
+    append(SeatChange.builder()
+        .eventId(eventId)
+        .type(SeatChangeType.CONFIRM)
+        .reservationToken(reservationToken));
+  }
+
+  public void cancelled(Long eventId, String reservationToken) {
+    append(SeatChange.builder()
+        .eventId(eventId)
+        .type(SeatChangeType.CANCEL)
+        .reservationToken(reservationToken));
+  }
+
+  public void resized(Long eventId, Long maxPlace) {
+    append(SeatChange.builder()
+        .eventId(eventId)
+        .type(SeatChangeType.RESIZE)
+        .maxPlace(maxPlace));
+  }
+
+  public void eventCancelled(Long eventId) {
+    append(SeatChange.builder()
+        .eventId(eventId)
+        .type(SeatChangeType.CANCEL_EVENT));
+  }
+
+  @Scheduled(fixedDelayString = "${central.journal.flush-interval-ms:500}")
+  @PreDestroy
+  public synchronized void flush() {
+    for (SeatChange change = queued.poll(); change != null; change = queued.poll()) {
+      if (unwritten.size() < maxUnwritten) {
+        unwritten.add(change);
+      } else {
+        dropped.incrementAndGet();
+      }
+    }
+    try {
+      while (!unwritten.isEmpty()) {
+        List<SeatChange> batch = unwritten.subList(0, Math.min(batchSize, unwritten.size()));
+        seatChangeRepository.saveAll(batch);
+        written.addAndGet(batch.size());
+        batch.clear();
+      }
+    } catch (RuntimeException e) {
+      failedFlushes.incrementAndGet();
+      throw e;
+    }
+  }
+
+  public synchronized SeatChangeJournalStats getStats() {
+    return new SeatChangeJournalStats(queued.size(), unwritten.size(), written.get(),
+        dropped.get(), failedFlushes.get());
+  }
+
+  private void append(SeatChange.SeatChangeBuilder change) {
+    SeatChange seatChange = change.changedAt(clock.millis()).build();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          queued.add(seatChange);
+        }
+      });
+    } else {
+      queued.add(seatChange);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.team3.central.services.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Counters of SeatChangeJournal since start of instance
+@Getter
+@AllArgsConstructor
+public class SeatChangeJournalStats {
+
+  // Recorded, waiting for next flush
+  private final int queued;
+  // Flushed while database was down, written by next flush
+  private final int unwritten;
+  private final long written;
+  // Not recorded because maxUnwritten entries were waiting already
+  private final long dropped;
+  private final long failedFlushes;
+}
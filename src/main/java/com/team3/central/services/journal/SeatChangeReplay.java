@@ -0,0 +1,113 @@
+package com.team3.central.services.journal;
+
+import com.team3.central.repositories.SeatChangeRepository;
+import com.team3.central.repositories.entities.SeatChange;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds places of event from {@link SeatChangeJournal} as they were at any moment, for audit,
+ * checking counters of seat storages and capacity planning. Hold which was neither confirmed nor
+ * cancelled is free once its time runs out, just like after hold sweep.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatChangeReplay {
+
+  private final SeatChangeRepository seatChangeRepository;
+
+  // Places of event at epoch millisecond at, empty when journal does not know creation of event
+  // (it was created before journal was kept)
+  public Optional<ReplayedEvent> replay(Long eventId, long at) {
+    Replay replay = new Replay();
+    long lastId = 0;
+    List<SeatChange> changes;
+    do {
+      changes = seatChangeRepository.findTop1000ByEventIdAndIdGreaterThanOrderByIdAsc(eventId,
+          lastId);
+      for (SeatChange change : changes) {
+        if (change.getChangedAt() > at) {
+          return replay.result(eventId, at);
+        }
+        replay.apply(change);
+        lastId = change.getId();
+      }
+    } while (!changes.isEmpty());
+    return replay.result(eventId, at);
+  }
+
+  private static class Replay {
+
+    private final BitSet takenPlaces = new BitSet();
+    private final Map<String, Integer> placeByToken = new HashMap<>();
+    private final Map<Integer, String> tokenByPlace = new HashMap<>();
+    private final Map<Integer, Long> holdUntilByPlace = new HashMap<>();
+    private boolean created;
+    private long maxPlace;
+    private boolean cancelled;
+
+    void apply(SeatChange change) {
+      switch (change.getType()) {
+        case CREATE:
+          created = true;
+          maxPlace = change.getMaxPlace();
+          break;
+        case RESIZE:
+          maxPlace = change.getMaxPlace();
+          break;
+        case RESERVE:
+          int place = Math.toIntExact(change.getPlaceId());
+          // Place may be taken again after hold of previous buyer ran out
+          String previousToken = tokenByPlace.put(place, change.getReservationToken());
+          if (previousToken != null) {
+            placeByToken.remove(previousToken);
+          }
+          takenPlaces.set(place);
+          placeByToken.put(change.getReservationToken(), place);
+          if (change.getHoldUntil() == null) {
+            holdUntilByPlace.remove(place);
+          } else {
+            holdUntilByPlace.put(place, change.getHoldUntil());
+          }
+          break;
+        case CONFIRM:
+          Integer confirmedPlace = placeByToken.get(change.getReservationToken());
+          if (confirmedPlace != null) {
+            holdUntilByPlace.remove(confirmedPlace);
+          }
+          break;
+        case CANCEL:
+          Integer cancelledPlace = placeByToken.remove(change.getReservationToken());
+          if (cancelledPlace != null) {
+            tokenByPlace.remove(cancelledPlace);
+            takenPlaces.clear(cancelledPlace);
+            holdUntilByPlace.remove(cancelledPlace);
+          }
+          break;
+        case CANCEL_EVENT:
+          cancelled = true;
+          break;
+        default:
+          break;
+      }
+    }
+
+    Optional<ReplayedEvent> result(Long eventId, long at) {
+      if (!created) {
+        return Optional.empty();
+      }
+      BitSet taken = (BitSet) takenPlaces.clone();
+      holdUntilByPlace.forEach((place, holdUntil) -> {
+        if (holdUntil * 1000 <= at) {
+          taken.clear(place);
+        }
+      });
+      return Optional.of(new ReplayedEvent(eventId, maxPlace, taken, cancelled));
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.CancelledReservation;
+import com.team3.central.repositories.projections.ReleasedPlace;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * State of all places is one packed bitmap in event row (bit n set = place n reserved), so
+ * event with 50k places costs ~6 kB instead of 50k rows. Reservation rows exist only for
+ * reserved places and map reservation token to place.
+ *
+ * Bit numbering is the same in {@link BitSet#valueOf(byte[])} and PostgreSQL get_bit/set_bit.
+ */
+@Component
+@RequiredArgsConstructor
+public class BitmapSeatStore implements SeatStore {
+
+  private final ReservationRepository reservationRepository;
+  private final EventRepository eventRepository;
+  private final TransactionOperations transactionOperations;
+
+  @Override
+  public SeatStorage getStorage() {
+    return SeatStorage.BITMAP;
+  }
+
+  @Override
+  public void createPlaces(Event event) {
+    byte[] occupancy = new byte[bitmapSize(event.getMaxPlace())];
+    eventRepository.updateOccupancy(event.getId(), occupancy);
+    event.setOccupancy(occupancy);
+  }
+
+  @Override
+  public void resize(Event event, Long maxPlace) throws ReservedPlacesException {
+    byte[] occupancy = eventRepository.findOccupancyById(event.getId()).getOccupancy();
+    if (BitSet.valueOf(occupancy).nextSetBit(Math.toIntExact(maxPlace)) != -1) {
+      throw new ReservedPlacesException("Places above new maxPlace are already reserved");
+    }
+    byte[] resized = Arrays.copyOf(occupancy, bitmapSize(maxPlace));
+    eventRepository.updateOccupancy(event.getId(), resized);
+    event.setOccupancy(resized);
+  }
+
+  @Override
+  @Transactional
+  public Reservation reserve(Event event, Long placeId, String reservationToken, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    if (placeId != null) {
+      if (placeId >= event.getMaxPlace()) {
+        throw new NotFoundException("No such place in event or such event");
+      }
+      if (eventRepository.claimPlace(event.getId(), placeId) == 0) {
+        throw new NoFreePlaceException("Place is already reserved");
+      }
+      return saveReservation(event, placeId, reservationToken, holdUntil);
+    }
+
+    long maxPlace = event.getMaxPlace();
+    BitSet takenPlaces = getTakenPlaces(event);
+    int candidate = FreePlaceFinder.nextFreePlace(takenPlaces,
+        FreePlaceFinder.startOffset(reservationToken, maxPlace), maxPlace);
+    for (long attempt = 1; candidate != -1; attempt++) {
+      if (eventRepository.claimPlace(event.getId(), (long) candidate) == 1) {
+        return saveReservation(event, (long) candidate, reservationToken, holdUntil);
+      }
+      if (attempt == event.getMaxPlace()) {
+        throw new NoFreePlaceException("All free places are being reserved, try again");
+      }
+      // Place was taken in the meantime, look for next one in current bitmap
+      takenPlaces = BitSet.valueOf(
+          eventRepository.findOccupancyById(event.getId()).getOccupancy());
+      if (!takenPlaces.get(candidate)) {
+        // Bit is clear, so place no longer exists: maxPlace was lowered meanwhile
+        maxPlace = currentMaxPlace(event);
+      }
+      candidate = FreePlaceFinder.nextFreePlace(takenPlaces, candidate + 1, maxPlace);
+    }
+    throw new NotFoundException("No free places in event");
+  }
+
+  // Places are claimed one by one in one transaction, failed claim rolls back the previous ones
+  @Override
+  @Transactional(rollbackFor = {NotFoundException.class, NoFreePlaceException.class})
+  public List<Reservation> reserveAll(Event event, List<Long> placeIds,
+      List<String> reservationTokens, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    List<Reservation> reservations = new ArrayList<>();
+    for (int i = 0; i < placeIds.size(); i++) {
+      reservations.add(reserve(event, placeIds.get(i), reservationTokens.get(i), holdUntil));
+    }
+    return reservations;
+  }
+
+  @Override
+  public void confirm(Reservation reservation, long now) throws NotFoundException {
+    if (reservationRepository.confirmReservation(reservation.getId(),
+        reservation.getReservationToken(), now) == 0) {
+      throw new NotFoundException("No such reservation or hold expired");
+    }
+    reservation.setHoldUntil(null);
+  }
+
+  @Override
+  @Transactional
+  public void cancel(Reservation reservation) throws NotFoundException {
+    if (reservationRepository.deleteReservation(reservation.getId(),
+        reservation.getReservationToken()) == 0) {
+      throw new NotFoundException("No such reservation");
+    }
+    eventRepository.releasePlace(reservation.getEvent().getId(),
+        reservation.getPlaceOnSchema());
+  }
+
+  @Override
+  @Transactional
+  public void cancelHold(Reservation reservation) throws NotFoundException {
+    if (reservationRepository.deleteHold(reservation.getId(),
+        reservation.getReservationToken()) == 0) {
+      throw new NotFoundException("No such hold");
+    }
+    eventRepository.releasePlace(reservation.getEvent().getId(),
+        reservation.getPlaceOnSchema());
+  }
+
+  @Override
+  @Transactional
+  public void cancel(Long eventId, String reservationToken) throws NotFoundException {
+    Long placeId = reservationRepository.deleteReservationByToken(eventId, reservationToken);
+    if (placeId == null) {
+      throw new NotFoundException("No such reservation");
+    }
+    eventRepository.releasePlace(eventId, placeId);
+  }
+
+  // Rows go in one statement, bits with one update per event like in releaseExpiredHolds
+  @Override
+  @Transactional
+  public Set<String> cancelAll(Collection<String> reservationTokens) {
+    List<CancelledReservation> cancelled =
+        reservationRepository.deleteReservationsByTokens(reservationTokens);
+    releasePlaces(cancelled.stream().collect(Collectors.groupingBy(
+        CancelledReservation::getEventId, TreeMap::new,
+        Collectors.mapping(CancelledReservation::getPlaceOnSchema, Collectors.toList()))));
+    return cancelled.stream()
+        .map(CancelledReservation::getReservationToken)
+        .collect(Collectors.toSet());
+  }
+
+  // Every batch commits on its own, so event rows are locked only while one batch is released
+  @Override
+  public void releaseExpiredHolds(long now) {
+    Boolean released;
+    do {
+      released = transactionOperations.execute(status -> {
+        List<ReleasedPlace> releasedPlaces = reservationRepository
+            .deleteExpiredHoldsReturningPlaces(now, getStorage().name(), HOLD_RELEASE_BATCH);
+        releasePlaces(releasedPlaces.stream().collect(Collectors.groupingBy(
+            ReleasedPlace::getEventId, TreeMap::new,
+            Collectors.mapping(ReleasedPlace::getPlaceOnSchema, Collectors.toList()))));
+        return !releasedPlaces.isEmpty();
+      });
+    } while (Boolean.TRUE.equals(released));
+  }
+
+  @Override
+  public BitSet getTakenPlaces(Event event) {
+    return BitSet.valueOf(event.getOccupancy());
+  }
+
+  // Bits of one event cannot be cleared together in SQL, so bitmap is read under lock of event
+  // row and written back with all of them cleared in one update (restoring freePlace as well).
+  // Events are locked in order of their ids, so two releases never wait for each other in circle
+  private void releasePlaces(TreeMap<Long, List<Long>> placesByEvent) {
+    for (Map.Entry<Long, List<Long>> places : placesByEvent.entrySet()) {
+      byte[] occupancy = eventRepository.findOccupancyForUpdate(places.getKey());
+      if (occupancy == null) {
+        continue;
+      }
+      BitSet takenPlaces = BitSet.valueOf(occupancy);
+      long released = 0;
+      for (Long placeId : places.getValue()) {
+        int place = Math.toIntExact(placeId);
+        if (takenPlaces.get(place)) {
+          takenPlaces.clear(place);
+          released++;
+        }
+      }
+      if (released > 0) {
+        eventRepository.releasePlaces(places.getKey(),
+            Arrays.copyOf(takenPlaces.toByteArray(), occupancy.length), released);
+      }
+    }
+  }
+
+  private static int bitmapSize(Long maxPlace) {
+    return Math.toIntExact((maxPlace + 7) / 8);
+  }
+
+  private long currentMaxPlace(Event event) throws NotFoundException {
+    Long maxPlace = eventRepository.findMaxPlaceById(event.getId());
+    if (maxPlace == null) {
+      throw new NotFoundException("No such event");
+    }
+    return maxPlace;
+  }
+
+  private Reservation saveReservation(Event event, Long placeId, String reservationToken,
+      Long holdUntil) {
+    Reservation reservation = new Reservation(event, placeId, reservationToken, holdUntil);
+    reservationRepository.save(reservation);
+    return reservation;
+  }
+}
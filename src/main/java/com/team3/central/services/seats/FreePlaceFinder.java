@@ -0,0 +1,32 @@
+package com.team3.central.services.seats;
+
+import java.util.BitSet;
+
+/**
+ * Picks place for reservation without chosen place. Search starts at offset derived from
+ * reservation token and wraps around maxPlace, so concurrent buyers try different places instead
+ * of all racing for the first free one.
+ */
+final class FreePlaceFinder {
+
+  private FreePlaceFinder() {
+  }
+
+  // Reservation tokens are random UUIDs, so offsets are spread evenly over all places
+  static int startOffset(String reservationToken, long maxPlace) {
+    if (maxPlace == 0) {
+      return 0;
+    }
+    return Math.toIntExact(Math.floorMod((long) reservationToken.hashCode(), maxPlace));
+  }
+
+  // Returns first free place at or after from (wrapping to 0), or -1 when all places are taken
+  static int nextFreePlace(BitSet takenPlaces, int from, long maxPlace) {
+    int candidate = takenPlaces.nextClearBit(from);
+    if (candidate < maxPlace) {
+      return candidate;
+    }
+    candidate = takenPlaces.nextClearBit(0);
+    return candidate < maxPlace ? candidate : -1;
+  }
+}
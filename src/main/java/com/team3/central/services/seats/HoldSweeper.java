@@ -0,0 +1,25 @@
+package com.team3.central.services.seats;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically frees places of expired holds of all storages in batches, so abandoned checkouts
+ * do not keep places for good. Hold stays valid until sweep only for cancelling, confirming it
+ * fails as soon as it expires.
+ */
+@Component
+@RequiredArgsConstructor
+public class HoldSweeper {
+
+  private final List<SeatStore> seatStores;
+
+  @Scheduled(fixedDelayString = "${central.reservations.hold-sweep-interval-ms:5000}")
+  public void releaseExpiredHolds() {
+    long now = Instant.now().getEpochSecond();
+    seatStores.forEach(seatStore -> seatStore.releaseExpiredHolds(now));
+  }
+}
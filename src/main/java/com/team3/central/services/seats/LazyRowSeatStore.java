@@ -0,0 +1,188 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.CancelledReservation;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reservation row is inserted only when place is reserved and deleted when reservation is
+ * cancelled, so creating event costs nothing and table grows with sales, not with capacity.
+ * Free places are places below maxPlace without row; unique (event_id, place_on_schema) makes
+ * sure place is reserved only once.
+ */
+@Component
+@RequiredArgsConstructor
+public class LazyRowSeatStore implements SeatStore {
+
+  private final ReservationRepository reservationRepository;
+  private final EventRepository eventRepository;
+
+  @Override
+  public SeatStorage getStorage() {
+    return SeatStorage.LAZY_ROWS;
+  }
+
+  @Override
+  public void createPlaces(Event event) {
+    // Nothing to do, all places without reservation row are free
+  }
+
+  @Override
+  public void resize(Event event, Long maxPlace) throws ReservedPlacesException {
+    if (maxPlace < event.getMaxPlace()
+        && reservationRepository.countByEventIdAndPlaceOnSchemaGreaterThanEqual(event.getId(),
+        maxPlace) > 0) {
+      throw new ReservedPlacesException("Places above new maxPlace are already reserved");
+    }
+  }
+
+  @Override
+  @Transactional
+  public Reservation reserve(Event event, Long placeId, String reservationToken, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    long hold = ReservationRepository.holdParameter(holdUntil);
+    if (placeId != null) {
+      if (placeId >= event.getMaxPlace()) {
+        throw new NotFoundException("No such place in event or such event");
+      }
+      if (reservationRepository.insertReservation(event.getId(), placeId, reservationToken,
+          hold) == 0) {
+        throw new NoFreePlaceException("Place is already reserved");
+      }
+      return reserved(event, placeId, reservationToken, holdUntil);
+    }
+
+    long maxPlace = event.getMaxPlace();
+    BitSet takenPlaces = getTakenPlaces(event);
+    int candidate = FreePlaceFinder.nextFreePlace(takenPlaces,
+        FreePlaceFinder.startOffset(reservationToken, maxPlace), maxPlace);
+    for (long attempt = 1; candidate != -1; attempt++) {
+      if (reservationRepository.insertReservation(event.getId(), (long) candidate,
+          reservationToken, hold) == 1) {
+        return reserved(event, (long) candidate, reservationToken, holdUntil);
+      }
+      if (attempt == event.getMaxPlace()) {
+        throw new NoFreePlaceException("All free places are being reserved, try again");
+      }
+      // Place was taken in the meantime, look for next one among current reservations
+      takenPlaces = getTakenPlaces(event);
+      if (!takenPlaces.get(candidate)) {
+        // Place is not reserved, so it no longer exists: maxPlace was lowered meanwhile
+        maxPlace = currentMaxPlace(event);
+      }
+      candidate = FreePlaceFinder.nextFreePlace(takenPlaces, candidate + 1, maxPlace);
+    }
+    throw new NotFoundException("No free places in event");
+  }
+
+  // Places are claimed one by one in one transaction, failed claim rolls back the previous ones
+  @Override
+  @Transactional(rollbackFor = {NotFoundException.class, NoFreePlaceException.class})
+  public List<Reservation> reserveAll(Event event, List<Long> placeIds,
+      List<String> reservationTokens, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    List<Reservation> reservations = new ArrayList<>();
+    for (int i = 0; i < placeIds.size(); i++) {
+      reservations.add(reserve(event, placeIds.get(i), reservationTokens.get(i), holdUntil));
+    }
+    return reservations;
+  }
+
+  @Override
+  public void confirm(Reservation reservation, long now) throws NotFoundException {
+    if (reservationRepository.confirmReservation(reservation.getId(),
+        reservation.getReservationToken(), now) == 0) {
+      throw new NotFoundException("No such reservation or hold expired");
+    }
+    reservation.setHoldUntil(null);
+  }
+
+  @Override
+  @Transactional
+  public void cancel(Reservation reservation) throws NotFoundException {
+    if (reservationRepository.deleteReservation(reservation.getId(),
+        reservation.getReservationToken()) == 0) {
+      throw new NotFoundException("No such reservation");
+    }
+    eventRepository.changeFreePlace(reservation.getEvent().getId(), 1L);
+  }
+
+  @Override
+  @Transactional
+  public void cancelHold(Reservation reservation) throws NotFoundException {
+    if (reservationRepository.deleteHold(reservation.getId(),
+        reservation.getReservationToken()) == 0) {
+      throw new NotFoundException("No such hold");
+    }
+    eventRepository.changeFreePlace(reservation.getEvent().getId(), 1L);
+  }
+
+  @Override
+  @Transactional
+  public void cancel(Long eventId, String reservationToken) throws NotFoundException {
+    if (reservationRepository.deleteReservationByToken(eventId, reservationToken) == null) {
+      throw new NotFoundException("No such reservation");
+    }
+    eventRepository.changeFreePlace(eventId, 1L);
+  }
+
+  @Override
+  @Transactional
+  public Set<String> cancelAll(Collection<String> reservationTokens) {
+    List<CancelledReservation> cancelled =
+        reservationRepository.deleteReservationsByTokens(reservationTokens);
+    // One counter change per event
+    cancelled.stream()
+        .collect(Collectors.groupingBy(CancelledReservation::getEventId, Collectors.counting()))
+        .forEach(eventRepository::changeFreePlace);
+    return cancelled.stream()
+        .map(CancelledReservation::getReservationToken)
+        .collect(Collectors.toSet());
+  }
+
+  @Override
+  public void releaseExpiredHolds(long now) {
+    // Each batch deletes its rows and restores freePlace in one statement
+    while (reservationRepository.deleteExpiredHolds(now, getStorage().name(),
+        HOLD_RELEASE_BATCH) > 0) {
+      // Next batch
+    }
+  }
+
+  @Override
+  public BitSet getTakenPlaces(Event event) {
+    BitSet takenPlaces = new BitSet();
+    reservationRepository.findReservedPlaces(event.getId())
+        .forEach(placeId -> takenPlaces.set(Math.toIntExact(placeId)));
+    return takenPlaces;
+  }
+
+  private long currentMaxPlace(Event event) throws NotFoundException {
+    Long maxPlace = eventRepository.findMaxPlaceById(event.getId());
+    if (maxPlace == null) {
+      throw new NotFoundException("No such event");
+    }
+    return maxPlace;
+  }
+
+  private Reservation reserved(Event event, Long placeId, String reservationToken,
+      Long holdUntil) {
+    eventRepository.changeFreePlace(event.getId(), -1L);
+    return new Reservation(event, placeId, reservationToken, holdUntil);
+  }
+}
@@ -0,0 +1,206 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.CancelledReservation;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Every place is a reservation row, created together with event. Free place has null
+ * reservation token.
+ */
+@Component
+@RequiredArgsConstructor
+public class RowSeatStore implements SeatStore {
+
+  // Wait before next claim of any free place is random up to this, doubled with every attempt up
+  // to MAX_CLAIM_BACKOFF_MILLIS, so buyers who lost do not retry in lockstep
+  private static final long CLAIM_BACKOFF_MILLIS = 2;
+  private static final long MAX_CLAIM_BACKOFF_MILLIS = 64;
+
+  private final ReservationRepository reservationRepository;
+  private final EventRepository eventRepository;
+  private final TransactionOperations transactionOperations;
+
+  @Override
+  public SeatStorage getStorage() {
+    return SeatStorage.ROWS;
+  }
+
+  @Override
+  public void createPlaces(Event event) {
+    reservationRepository.insertFreePlaces(event.getId(), 0L, event.getMaxPlace());
+  }
+
+  @Override
+  @Transactional(rollbackFor = ReservedPlacesException.class)
+  public void resize(Event event, Long maxPlace) throws ReservedPlacesException {
+    if (maxPlace > event.getMaxPlace()) {
+      reservationRepository.insertFreePlaces(event.getId(), event.getMaxPlace(), maxPlace);
+      return;
+    }
+    // Free places are dropped, whatever is left above maxPlace is reserved
+    reservationRepository.deleteFreePlacesFrom(event.getId(), maxPlace);
+    if (reservationRepository.countByEventIdAndPlaceOnSchemaGreaterThanEqual(event.getId(),
+        maxPlace) > 0) {
+      throw new ReservedPlacesException("Places above new maxPlace are already reserved");
+    }
+  }
+
+  // Place is claimed with conditional update and counter is changed in the same transaction, so
+  // reservation costs two statements and place can never be given to two buyers. Every claim
+  // commits on its own, so buyer waiting for another try of any free place holds no connection
+  @Override
+  public Reservation reserve(Event event, Long placeId, String reservationToken, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    long hold = ReservationRepository.holdParameter(holdUntil);
+    if (placeId != null) {
+      if (!Boolean.TRUE.equals(transactionOperations.execute(status -> {
+        if (reservationRepository.claimPlace(event.getId(), placeId, reservationToken, hold)
+            == 0) {
+          return false;
+        }
+        eventRepository.changeFreePlace(event.getId(), -1L);
+        return true;
+      }))) {
+        if (!reservationRepository.existsByEventIdAndPlaceOnSchema(event.getId(), placeId)) {
+          throw new NotFoundException("No such place in event or such event");
+        }
+        throw new NoFreePlaceException("Place is already reserved");
+      }
+      return new Reservation(event, placeId, reservationToken, holdUntil);
+    }
+
+    for (int attempt = 1; ; attempt++) {
+      Long claimedPlace = transactionOperations.execute(status -> {
+        Long place = reservationRepository.claimFirstFreePlace(event.getId(), reservationToken,
+            hold);
+        if (place != null) {
+          eventRepository.changeFreePlace(event.getId(), -1L);
+        }
+        return place;
+      });
+      if (claimedPlace != null) {
+        return new Reservation(event, claimedPlace, reservationToken, holdUntil);
+      }
+      // Either event is sold out or all remaining free places are being reserved right now, and
+      // those are either taken or free again once their claims end
+      if (!reservationRepository.existsByEventIdAndReservationTokenIsNull(event.getId())) {
+        throw new NotFoundException("No free places in event");
+      }
+      backOff(attempt);
+    }
+  }
+
+  // Places are claimed one by one in one transaction, failed claim rolls back the previous ones
+  @Override
+  @Transactional(rollbackFor = {NotFoundException.class, NoFreePlaceException.class})
+  public List<Reservation> reserveAll(Event event, List<Long> placeIds,
+      List<String> reservationTokens, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    List<Reservation> reservations = new ArrayList<>();
+    for (int i = 0; i < placeIds.size(); i++) {
+      reservations.add(reserve(event, placeIds.get(i), reservationTokens.get(i), holdUntil));
+    }
+    return reservations;
+  }
+
+  @Override
+  public void confirm(Reservation reservation, long now) throws NotFoundException {
+    if (reservationRepository.confirmReservation(reservation.getId(),
+        reservation.getReservationToken(), now) == 0) {
+      throw new NotFoundException("No such reservation or hold expired");
+    }
+    reservation.setHoldUntil(null);
+  }
+
+  @Override
+  @Transactional
+  public void cancel(Reservation reservation) throws NotFoundException {
+    if (reservationRepository.releaseReservation(reservation.getId(),
+        reservation.getReservationToken()) == 0) {
+      throw new NotFoundException("No such reservation");
+    }
+    reservation.setReservationToken(null);
+    eventRepository.changeFreePlace(reservation.getEvent().getId(), 1L);
+  }
+
+  @Override
+  @Transactional
+  public void cancelHold(Reservation reservation) throws NotFoundException {
+    if (reservationRepository.releaseHold(reservation.getId(),
+        reservation.getReservationToken()) == 0) {
+      throw new NotFoundException("No such hold");
+    }
+    reservation.setReservationToken(null);
+    eventRepository.changeFreePlace(reservation.getEvent().getId(), 1L);
+  }
+
+  @Override
+  @Transactional
+  public void cancel(Long eventId, String reservationToken) throws NotFoundException {
+    if (reservationRepository.releaseReservationByToken(eventId, reservationToken) == null) {
+      throw new NotFoundException("No such reservation");
+    }
+    eventRepository.changeFreePlace(eventId, 1L);
+  }
+
+  @Override
+  @Transactional
+  public Set<String> cancelAll(Collection<String> reservationTokens) {
+    List<CancelledReservation> cancelled =
+        reservationRepository.releaseReservationsByTokens(reservationTokens);
+    // One counter change per event
+    cancelled.stream()
+        .collect(Collectors.groupingBy(CancelledReservation::getEventId, Collectors.counting()))
+        .forEach(eventRepository::changeFreePlace);
+    return cancelled.stream()
+        .map(CancelledReservation::getReservationToken)
+        .collect(Collectors.toSet());
+  }
+
+  @Override
+  public void releaseExpiredHolds(long now) {
+    // Each batch frees its places and restores freePlace in one statement
+    while (reservationRepository.releaseExpiredHolds(now, getStorage().name(),
+        HOLD_RELEASE_BATCH) > 0) {
+      // Next batch
+    }
+  }
+
+  @Override
+  public BitSet getTakenPlaces(Event event) {
+    // Query instead of event.getReservations(), which may be loaded long before
+    BitSet takenPlaces = new BitSet();
+    reservationRepository.findReservedPlaces(event.getId())
+        .forEach(placeId -> takenPlaces.set(Math.toIntExact(placeId)));
+    return takenPlaces;
+  }
+
+  private static void backOff(int attempt) throws NoFreePlaceException {
+    long backOffMillis = Math.min(CLAIM_BACKOFF_MILLIS << Math.min(attempt, 8),
+        MAX_CLAIM_BACKOFF_MILLIS);
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(backOffMillis) + 1);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new NoFreePlaceException("Interrupted while waiting for free place");
+    }
+  }
+}
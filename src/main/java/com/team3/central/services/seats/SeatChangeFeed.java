@@ -0,0 +1,145 @@
+package com.team3.central.services.seats;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Changes of places of recently viewed events, so clients showing live seat map download only
+ * places changed since their last read instead of all places again. Changes are found by
+ * comparing each new {@link SeatMap} of event with the one seen before, so they show here as
+ * soon as event page of this instance shows them.
+ *
+ * Every event keeps ring of its latest changes. Client further behind than the ring, or with
+ * version of other instance or previous run, gets all places again. Versions are numbered per
+ * instance: their high bits are random epoch of this run, low bits count changes. Two runs share
+ * epoch with chance 1 in 2^21, and version of such run would read as delta of this one.
+ */
+@Component
+public class SeatChangeFeed {
+
+  // Versions stay below 2^53, so JavaScript clients read them exactly. Sequence bits last for
+  // billions of changes, epoch takes the rest
+  private static final int SEQUENCE_BITS = 32;
+  static final int EPOCHS = 1 << (53 - SEQUENCE_BITS);
+  // New epoch starts once sequence passes this, room above is left for changes of one update
+  private static final long LAST_SEQUENCE = 1L << (SEQUENCE_BITS - 1);
+
+  private final Map<Long, Ring> rings;
+  private final int ringSize;
+  // Guarded by rings
+  private long epoch;
+  // Last version given to change of any event, guarded by rings
+  private long sequence;
+
+  @Autowired
+  public SeatChangeFeed(@Value("${central.events.seat-changes.events:1000}") int events,
+      @Value("${central.events.seat-changes.ring-size:1024}") int ringSize) {
+    this(events, ringSize, ThreadLocalRandom.current().nextInt(1, EPOCHS));
+  }
+
+  SeatChangeFeed(int events, int ringSize, int epoch) {
+    this.rings = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Ring> eldest) {
+        return size() > events;
+      }
+    };
+    this.ringSize = ringSize;
+    this.epoch = (long) epoch << SEQUENCE_BITS;
+  }
+
+  // Places of current seatMap of event which changed since version, or all of them when changes
+  // since version are not known. Null version asks for all places
+  public SeatChanges changesSince(Long eventId, SeatMap seatMap, Long since) {
+    long maxPlace = seatMap.getEvent().getMaxPlace();
+    BitSet places;
+    long version;
+    synchronized (rings) {
+      if (sequence > LAST_SEQUENCE) {
+        // Versions start again in next epoch, all clients get all places once
+        epoch = ((epoch >>> SEQUENCE_BITS) % (EPOCHS - 1) + 1) << SEQUENCE_BITS;
+        sequence = 0;
+        rings.clear();
+      }
+      Ring ring = rings.get(eventId);
+      if (ring == null || ring.maxPlace != maxPlace) {
+        // Places of resized event are listed again, changes before do not apply to them
+        ring = new Ring(seatMap, maxPlace, ++sequence);
+        rings.put(eventId, ring);
+      } else if (ring.seatMap != seatMap) {
+        ring.update(seatMap);
+      }
+      version = ring.version;
+      places = since == null || (since & ~sequenceMask()) != epoch
+          ? null : ring.changedSince(since & sequenceMask());
+    }
+    boolean snapshot = places == null;
+    if (snapshot) {
+      places = new BitSet();
+      places.set(0, Math.toIntExact(maxPlace));
+    }
+    return new SeatChanges(epoch | version, snapshot, places, seatMap.getTakenPlaces(),
+        seatMap.getFreePlace(), maxPlace);
+  }
+
+  private static long sequenceMask() {
+    return (1L << SEQUENCE_BITS) - 1;
+  }
+
+  // Latest changes of one event, oldest first. Guarded by rings
+  private class Ring {
+
+    private final long maxPlace;
+    private final long[] versions = new long[ringSize];
+    private final int[] changedPlaces = new int[ringSize];
+    private SeatMap seatMap;
+    private int first;
+    private int size;
+    // Changes since this version are all in ring
+    private long complete;
+    private long version;
+
+    Ring(SeatMap seatMap, long maxPlace, long version) {
+      this.seatMap = seatMap;
+      this.maxPlace = maxPlace;
+      this.complete = version;
+      this.version = version;
+    }
+
+    void update(SeatMap newSeatMap) {
+      BitSet changed = (BitSet) seatMap.getTakenPlaces().clone();
+      changed.xor(newSeatMap.getTakenPlaces());
+      for (int place = changed.nextSetBit(0); place >= 0; place = changed.nextSetBit(place + 1)) {
+        version = ++sequence;
+        if (size == ringSize) {
+          // Oldest change is overwritten, client which has not seen it has to read all places
+          complete = versions[first];
+          first = (first + 1) % ringSize;
+          size--;
+        }
+        int last = (first + size) % ringSize;
+        versions[last] = version;
+        changedPlaces[last] = place;
+        size++;
+      }
+      seatMap = newSeatMap;
+    }
+
+    // Null when some of changes since version are not kept
+    BitSet changedSince(long since) {
+      if (since < complete || since > version) {
+        return null;
+      }
+      BitSet places = new BitSet();
+      for (int i = size - 1; i >= 0 && versions[(first + i) % ringSize] > since; i--) {
+        places.set(changedPlaces[(first + i) % ringSize]);
+      }
+      return places;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.team3.central.services.seats;
+
+import java.util.BitSet;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Places of event changed since version client read before, see SeatChangeFeed
+@Getter
+@AllArgsConstructor
+public class SeatChanges {
+
+  // Version of places after these changes, client asks for changes since it next time
+  private final long version;
+  // All places of event are listed, not only changed ones
+  private final boolean snapshot;
+  // Bit n is set when place n is listed
+  private final BitSet places;
+  // Bit n is set when place n is reserved, must not be changed
+  private final BitSet takenPlaces;
+  private final Long freePlace;
+  private final Long maxPlace;
+}
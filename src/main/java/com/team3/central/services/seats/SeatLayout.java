@@ -0,0 +1,232 @@
+package com.team3.central.services.seats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Rows of places of event. Read from placeSchema when it is JSON with "rows" array, e.g.
+ * {"rows": [10, 10, 12]}: places are numbered row by row from 0. Row may also be object telling
+ * its section and quality, e.g. {"seats": 10, "section": "Balcony", "quality": 2}; rows of higher
+ * quality are better, rows of the same quality are better the nearer to front they are. Any other
+ * placeSchema (it is opaque for backend) means all places stand in one row.
+ *
+ * Layout does not change while placeSchema and maxPlace stay the same, so it is parsed once per
+ * event and kept by {@link SeatLayouts}.
+ */
+public class SeatLayout {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final String placeSchema;
+  // First place of each row, last row ends at maxPlace
+  private final long[] rowStarts;
+  private final String[] sections;
+  private final long maxPlace;
+  // Row numbers from the best row to the worst
+  private final int[] rowsByRank;
+  // Whether rows were read from placeSchema, otherwise all places are equally good
+  private final boolean hasRows;
+
+  private SeatLayout(String placeSchema, List<Row> rows, long maxPlace, boolean hasRows) {
+    this.placeSchema = placeSchema;
+    this.rowStarts = rows.stream().mapToLong(row -> row.start).toArray();
+    this.sections = rows.stream().map(row -> row.section).toArray(String[]::new);
+    this.maxPlace = maxPlace;
+    this.hasRows = hasRows;
+    this.rowsByRank = IntStream.range(0, rows.size()).boxed()
+        .sorted(Comparator.comparingDouble((Integer row) -> -rows.get(row).quality)
+            .thenComparing(row -> row))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  public static SeatLayout of(String placeSchema, long maxPlace) {
+    List<Row> rows = new ArrayList<>();
+    JsonNode rowNodes = readRows(placeSchema);
+    if (rowNodes != null) {
+      long rowStart = 0;
+      for (JsonNode rowNode : rowNodes) {
+        long seats = rowNode.isObject() ? rowNode.path("seats").asLong() : rowNode.asLong();
+        if (seats <= 0) {
+          continue;
+        }
+        // Places above maxPlace do not exist, rows listed after it are ignored
+        if (rowStart >= maxPlace) {
+          break;
+        }
+        rows.add(new Row(rowStart, rowNode.path("section").asText(null),
+            rowNode.path("quality").asDouble(0)));
+        rowStart += seats;
+      }
+    }
+    boolean hasRows = !rows.isEmpty();
+    if (!hasRows) {
+      rows.add(new Row(0, null, 0));
+    }
+    return new SeatLayout(placeSchema, rows, maxPlace, hasRows);
+  }
+
+  // Whether layout was read from placeSchema (and still fits maxPlace)
+  boolean isOf(String placeSchema, long maxPlace) {
+    return this.maxPlace == maxPlace && Objects.equals(this.placeSchema, placeSchema);
+  }
+
+  public boolean hasRows() {
+    return hasRows;
+  }
+
+  public int getRowCount() {
+    return rowStarts.length;
+  }
+
+  public long getRowStart(int row) {
+    return rowStarts[row];
+  }
+
+  // First place after the row
+  public long getRowEnd(int row) {
+    return row + 1 < rowStarts.length ? rowStarts[row + 1] : maxPlace;
+  }
+
+  // Null when placeSchema does not name it
+  public String getSection(int row) {
+    return sections[row];
+  }
+
+  // First count free places standing next to each other in one row, empty if there are none
+  public Optional<List<Long>> findContiguousBlock(BitSet takenPlaces, int count) {
+    for (int row = 0; row < getRowCount(); row++) {
+      long blockStart = getRowStart(row);
+      while (blockStart + count <= getRowEnd(row)) {
+        int taken = takenPlaces.nextSetBit(Math.toIntExact(blockStart));
+        if (taken == -1 || taken >= blockStart + count) {
+          return Optional.of(placesFrom(blockStart, count));
+        }
+        blockStart = taken + 1L;
+      }
+    }
+    return Optional.empty();
+  }
+
+  // Best count free places: block next to each other in the best row that has one, nearest to
+  // middle of the row. Without such block the best free places one by one, empty when there are
+  // not enough free places or contiguous block was required
+  public Optional<List<Long>> findBestPlaces(BitSet takenPlaces, int count, boolean contiguous) {
+    for (int row : rowsByRank) {
+      long blockStart = bestBlockInRow(takenPlaces, row, count);
+      if (blockStart != -1) {
+        return Optional.of(placesFrom(blockStart, count));
+      }
+    }
+    if (contiguous) {
+      return Optional.empty();
+    }
+    List<Long> places = findBestFreePlaces(takenPlaces, count);
+    if (places.size() < count) {
+      return Optional.empty();
+    }
+    places.sort(null);
+    return Optional.of(places);
+  }
+
+  // Up to count best free places one by one, from the best row and nearest to middle of the row
+  // first. Fewer when event does not have so many free places
+  public List<Long> findBestFreePlaces(BitSet takenPlaces, int count) {
+    List<Long> places = new ArrayList<>();
+    for (int i = 0; i < rowsByRank.length && places.size() < count; i++) {
+      addFreePlacesFromMiddle(takenPlaces, rowsByRank[i], count, places);
+    }
+    return places;
+  }
+
+  // Start of free block of count places in row nearest to middle of the row, -1 if none fits.
+  // Walks free runs of the row word by word, runs shorter than count are skipped
+  private long bestBlockInRow(BitSet takenPlaces, int row, int count) {
+    int rowEnd = Math.toIntExact(getRowEnd(row));
+    // Block is centred when it starts here
+    double centredStart = middleOf(row) - (count - 1) / 2.0;
+    long bestStart = -1;
+    double bestDistance = Double.MAX_VALUE;
+    int runStart = takenPlaces.nextClearBit(Math.toIntExact(getRowStart(row)));
+    while (runStart + count <= rowEnd) {
+      int runEnd = takenPlaces.nextSetBit(runStart);
+      runEnd = runEnd == -1 ? rowEnd : Math.min(runEnd, rowEnd);
+      if (runEnd - runStart >= count) {
+        long start = Math.max(runStart, Math.min(runEnd - count, Math.round(centredStart)));
+        double distance = Math.abs(start - centredStart);
+        if (distance < bestDistance) {
+          bestStart = start;
+          bestDistance = distance;
+        }
+      }
+      if (runEnd == rowEnd) {
+        break;
+      }
+      runStart = takenPlaces.nextClearBit(runEnd);
+    }
+    return bestStart;
+  }
+
+  // Adds free places of row, nearest to its middle first, until there are count places
+  private void addFreePlacesFromMiddle(BitSet takenPlaces, int row, int count,
+      List<Long> places) {
+    long rowStart = getRowStart(row);
+    long rowEnd = getRowEnd(row);
+    if (takenPlaces.nextClearBit(Math.toIntExact(rowStart)) >= rowEnd) {
+      return;
+    }
+    double middle = middleOf(row);
+    long left = (long) Math.floor(middle);
+    long right = left + 1;
+    while (places.size() < count && (left >= rowStart || right < rowEnd)) {
+      boolean takeLeft = right >= rowEnd || left >= rowStart && middle - left <= right - middle;
+      long place = takeLeft ? left-- : right++;
+      if (!takenPlaces.get(Math.toIntExact(place))) {
+        places.add(place);
+      }
+    }
+  }
+
+  private double middleOf(int row) {
+    return (getRowStart(row) + getRowEnd(row) - 1) / 2.0;
+  }
+
+  private static List<Long> placesFrom(long start, int count) {
+    return LongStream.range(start, start + count).boxed().collect(Collectors.toList());
+  }
+
+  private static JsonNode readRows(String placeSchema) {
+    if (placeSchema == null || placeSchema.isBlank()) {
+      return null;
+    }
+    try {
+      JsonNode rows = OBJECT_MAPPER.readTree(placeSchema).path("rows");
+      return rows.isArray() ? rows : null;
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  private static class Row {
+
+    private final long start;
+    private final String section;
+    private final double quality;
+
+    Row(long start, String section, double quality) {
+      this.start = start;
+      this.section = section;
+      this.quality = quality;
+    }
+  }
+}
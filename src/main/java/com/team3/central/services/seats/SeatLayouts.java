@@ -0,0 +1,40 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.repositories.entities.Event;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps parsed {@link SeatLayout} of recently used events, so placeSchema is not parsed on every
+ * reservation. Layout is parsed again when placeSchema or maxPlace of event changes.
+ */
+@Component
+public class SeatLayouts {
+
+  private final Map<Long, SeatLayout> layouts;
+
+  public SeatLayouts(@Value("${central.seats.layout-cache-size:1000}") int cacheSize) {
+    this.layouts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, SeatLayout> eldest) {
+        return size() > cacheSize;
+      }
+    });
+  }
+
+  public SeatLayout forEvent(Event event) {
+    long maxPlace = event.getMaxPlace() == null ? 0 : event.getMaxPlace();
+    if (event.getId() == null) {
+      return SeatLayout.of(event.getPlaceSchema(), maxPlace);
+    }
+    SeatLayout layout = layouts.get(event.getId());
+    if (layout == null || !layout.isOf(event.getPlaceSchema(), maxPlace)) {
+      layout = SeatLayout.of(event.getPlaceSchema(), maxPlace);
+      layouts.put(event.getId(), layout);
+    }
+    return layout;
+  }
+}
@@ -0,0 +1,48 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.openapi.model.EventWithPlaces;
+import com.team3.central.repositories.entities.enums.EventStatus;
+import java.util.BitSet;
+import java.util.Collection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Event page as read from database: the event without its places, and the places as bitmap.
+ * Seat map is never changed once made, so it is shared by all requests reading it from
+ * {@link SeatMapCache}; a change of places makes new seat map.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatMap {
+
+  // Places are not set, they are rendered from takenPlaces for every request
+  private final EventWithPlaces event;
+  private final EventStatus status;
+  private final Long freePlace;
+  // Bit n is set when place n is reserved, must not be changed
+  private final BitSet takenPlaces;
+  // Event.getVersion() the seat map was read with
+  private final Long version;
+  // Number of reservations applied since it was read, places differ from those of version then
+  private final int patches;
+
+  // Same seat map with placeIds reserved too. Places already reserved are not counted twice, so
+  // change already read with the seat map can be applied again safely
+  SeatMap withTaken(Collection<Long> placeIds) {
+    BitSet taken = (BitSet) takenPlaces.clone();
+    long newlyTaken = 0;
+    for (Long placeId : placeIds) {
+      int place = Math.toIntExact(placeId);
+      if (!taken.get(place)) {
+        taken.set(place);
+        newlyTaken++;
+      }
+    }
+    if (newlyTaken == 0) {
+      return this;
+    }
+    return new SeatMap(event, status, freePlace == null ? null : freePlace - newlyTaken, taken,
+        version, patches + 1);
+  }
+}
@@ -0,0 +1,192 @@
+package com.team3.central.services.seats;
+
+import java.time.Clock;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of {@link SeatMap} of recently viewed events, so event page is not read
+ * from database on every request. Reservations made here patch cached seat map, other changes
+ * (cancellations, changes of event) remove it; both only after their transaction commits.
+ *
+ * Changes made by other instances and holds released by {@link HoldSweeper} are not seen, seat
+ * map read longer than time to live ago is read again. Seat map whose places changed while it
+ * was read is not cached, so cache never keeps missing a change made here.
+ */
+@Component
+public class SeatMapCache {
+
+  private final Map<Long, Entry> entries;
+  private final long ttlMillis;
+  private final Clock clock;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final AtomicLong patches = new AtomicLong();
+  private final AtomicLong discardedLoads = new AtomicLong();
+  private final AtomicLong servedAgeMillis = new AtomicLong();
+  private final LongAccumulator maxServedAgeMillis = new LongAccumulator(Math::max, 0);
+
+  @Autowired
+  public SeatMapCache(@Value("${central.events.seat-map-cache.size:1000}") int cacheSize,
+      @Value("${central.events.seat-map-cache.ttl-ms:1000}") long ttlMillis) {
+    this(cacheSize, ttlMillis, Clock.systemUTC());
+  }
+
+  SeatMapCache(int cacheSize, long ttlMillis, Clock clock) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        if (size() > cacheSize) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+  }
+
+  // Cached seat map of event, or seat map of loader when there is none. Loader returns null for
+  // missing event, which is not cached
+  public SeatMap get(Long eventId, Supplier<SeatMap> loader) {
+    long now = clock.millis();
+    Entry loading = new Entry(null, now);
+    synchronized (entries) {
+      Entry entry = entries.get(eventId);
+      if (entry != null && entry.seatMap != null) {
+        long age = now - entry.loadedAt;
+        if (age < ttlMillis) {
+          hits.incrementAndGet();
+          servedAgeMillis.addAndGet(age);
+          maxServedAgeMillis.accumulate(age);
+          return entry.seatMap;
+        }
+        expirations.incrementAndGet();
+      }
+      misses.incrementAndGet();
+      // Marks load, change of places meanwhile makes it dirty. Load of other request still
+      // running is discarded, this one started later
+      entries.put(eventId, loading);
+    }
+    SeatMap seatMap = loader.get();
+    synchronized (entries) {
+      boolean current = entries.get(eventId) == loading;
+      if (seatMap != null && current && !loading.dirty) {
+        entries.put(eventId, new Entry(seatMap, now));
+        return seatMap;
+      }
+      if (current) {
+        entries.remove(eventId);
+      }
+      if (seatMap != null) {
+        discardedLoads.incrementAndGet();
+      }
+    }
+    return seatMap;
+  }
+
+  // Taken places of cached seat map of event younger than time to live, must not be changed.
+  // Nothing is loaded when there is none, and it does not count as cache hit or miss
+  public Optional<BitSet> getTakenPlaces(Long eventId) {
+    long now = clock.millis();
+    synchronized (entries) {
+      Entry entry = entries.get(eventId);
+      if (entry == null || entry.seatMap == null || now - entry.loadedAt >= ttlMillis) {
+        return Optional.empty();
+      }
+      return Optional.of(entry.seatMap.getTakenPlaces());
+    }
+  }
+
+  // Places were reserved in event
+  public void reserved(Long eventId, Collection<Long> placeIds) {
+    afterCommit(() -> {
+      synchronized (entries) {
+        Entry entry = entries.get(eventId);
+        if (entry == null) {
+          return;
+        }
+        if (entry.seatMap == null) {
+          entry.dirty = true;
+        } else {
+          entries.put(eventId, new Entry(entry.seatMap.withTaken(placeIds), entry.loadedAt));
+        }
+        patches.incrementAndGet();
+      }
+    });
+  }
+
+  // Places or other fields of event changed in way which is not patched
+  public void invalidate(Long eventId) {
+    afterCommit(() -> {
+      synchronized (entries) {
+        Entry entry = entries.get(eventId);
+        if (entry == null) {
+          return;
+        }
+        if (entry.seatMap == null) {
+          entry.dirty = true;
+        } else {
+          entries.remove(eventId);
+        }
+        invalidations.incrementAndGet();
+      }
+    });
+  }
+
+  public SeatMapCacheStats getStats() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    long hitCount = hits.get();
+    long missCount = misses.get();
+    long requests = hitCount + missCount;
+    return new SeatMapCacheStats(size, hitCount, missCount,
+        requests == 0 ? 0 : (double) hitCount / requests, evictions.get(), expirations.get(),
+        invalidations.get(), patches.get(), discardedLoads.get(),
+        hitCount == 0 ? 0 : servedAgeMillis.get() / hitCount, maxServedAgeMillis.get());
+  }
+
+  private static void afterCommit(Runnable change) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          change.run();
+        }
+      });
+    } else {
+      change.run();
+    }
+  }
+
+  // Seat map is null while it is loaded
+  private static class Entry {
+
+    private final SeatMap seatMap;
+    private final long loadedAt;
+    private boolean dirty;
+
+    Entry(SeatMap seatMap, long loadedAt) {
+      this.seatMap = seatMap;
+      this.loadedAt = loadedAt;
+    }
+  }
+}
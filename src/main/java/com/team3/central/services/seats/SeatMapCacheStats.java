@@ -0,0 +1,26 @@
+package com.team3.central.services.seats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Counters of SeatMapCache since start of instance
+@Getter
+@AllArgsConstructor
+public class SeatMapCacheStats {
+
+  private final int size;
+  private final long hits;
+  private final long misses;
+  private final double hitRate;
+  // Removed as least recently used when cache was full
+  private final long evictions;
+  // Read again because they were older than time to live
+  private final long expirations;
+  private final long invalidations;
+  private final long patches;
+  // Loads not cached because places changed while they were read
+  private final long discardedLoads;
+  // Age of seat maps when they were served from cache
+  private final long averageServedAgeMillis;
+  private final long maxServedAgeMillis;
+}
@@ -0,0 +1,69 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps state (free or reserved) of places of events stored in one {@link SeatStorage} mode.
+ * Store of given event is chosen by {@link SeatStores}.
+ */
+public interface SeatStore {
+
+  // Most expired holds released by one statement
+  int HOLD_RELEASE_BATCH = 1000;
+
+  SeatStorage getStorage();
+
+  // Creates event.getMaxPlace() free places for already saved event
+  void createPlaces(Event event);
+
+  // Changes number of places from event.getMaxPlace() to maxPlace keeping existing reservations.
+  // Called with event row already locked, fails if any place from maxPlace upwards is reserved
+  void resize(Event event, Long maxPlace) throws ReservedPlacesException;
+
+  // Reserves place placeId (or any free place if placeId is null) under reservationToken. With
+  // holdUntil place is only held until that epoch second unless confirmed, null reserves for good
+  Reservation reserve(Event event, Long placeId, String reservationToken, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException;
+
+  // Reserves every place of placeIds under reservation token of the same index, or none of them
+  List<Reservation> reserveAll(Event event, List<Long> placeIds, List<String> reservationTokens,
+      Long holdUntil) throws NotFoundException, NoFreePlaceException;
+
+  // Turns hold into reservation, fails if hold expired before now or reservation was cancelled
+  void confirm(Reservation reservation, long now) throws NotFoundException;
+
+  // Frees place held by reservation, fails if reservation was already cancelled meanwhile
+  void cancel(Reservation reservation) throws NotFoundException;
+
+  // Same as cancel(Reservation), but only while reservation is still a hold: confirmed
+  // reservation is kept and NotFoundException is thrown instead
+  void cancelHold(Reservation reservation) throws NotFoundException;
+
+  // Same as cancel(Reservation) for reservation known only by event and token, without reading
+  // reservation first
+  void cancel(Long eventId, String reservationToken) throws NotFoundException;
+
+  // Cancels all reservations of this storage held by reservationTokens at once, returns tokens
+  // which were cancelled (others were not found or cancelled already)
+  Set<String> cancelAll(Collection<String> reservationTokens);
+
+  // Frees places of all holds of this storage that expired before now
+  void releaseExpiredHolds(long now);
+
+  // Bit n of result is set when place n of event is reserved
+  BitSet getTakenPlaces(Event event);
+
+  // Reservation already confirmed but not yet written to database, null if there is none
+  default Reservation findUnwrittenReservation(String reservationToken) {
+    return null;
+  }
+}
@@ -0,0 +1,53 @@
+package com.team3.central.services.seats;
+
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SeatStores {
+
+  private final Map<SeatStorage, SeatStore> stores = new EnumMap<>(SeatStorage.class);
+  private final SeatStorage defaultStorage;
+
+  @Autowired
+  public SeatStores(List<SeatStore> stores,
+      @Value("${central.seats.storage:ROWS}") SeatStorage defaultStorage) {
+    stores.forEach(store -> this.stores.put(store.getStorage(), store));
+    this.defaultStorage = defaultStorage;
+  }
+
+  // Storage used for newly created events
+  public SeatStorage getDefaultStorage() {
+    return defaultStorage;
+  }
+
+  // Reservation confirmed by write-behind store and not yet visible in database, null if none
+  public Reservation findUnwrittenReservation(String reservationToken) {
+    return stores.values().stream()
+        .map(store -> store.findUnwrittenReservation(reservationToken))
+        .filter(Objects::nonNull)
+        .findFirst()
+        .orElse(null);
+  }
+
+  public SeatStore forEvent(Event event) {
+    return forStorage(storageOf(event));
+  }
+
+  public SeatStore forStorage(SeatStorage storage) {
+    return stores.get(storage);
+  }
+
+  public SeatStorage storageOf(Event event) {
+    // Events created before storage modes existed have one reservation row per place
+    return event.getSeatStorage() == null ? SeatStorage.ROWS : event.getSeatStorage();
+  }
+}
@@ -0,0 +1,123 @@
+package com.team3.central.services.seats.memory;
+
+import com.team3.central.repositories.entities.Reservation;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Places of one event held by {@link MemorySeatStore}. Each event has its own lock, so buyers of
+ * different events never wait for each other. All methods except lock must be called with lock
+ * held.
+ */
+class EventSeats {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final BitSet takenPlaces = new BitSet();
+  private final Map<Integer, String> reservationTokens = new HashMap<>();
+  // Expiry second of places which are only held
+  private final Map<Integer, Long> holds = new HashMap<>();
+
+  @Getter
+  private boolean loaded;
+  @Getter
+  private boolean evicted;
+  @Getter
+  @Setter
+  private long maxPlace;
+  // Journal entries of this event not yet written to database
+  private int unwritten;
+  private long lastUsed;
+
+  void lock() {
+    lock.lock();
+  }
+
+  void unlock() {
+    lock.unlock();
+  }
+
+  void load(long maxPlace, List<Reservation> reservations) {
+    this.maxPlace = maxPlace;
+    reservations.forEach(reservation -> take(Math.toIntExact(reservation.getPlaceOnSchema()),
+        reservation.getReservationToken(), reservation.getHoldUntil()));
+    loaded = true;
+  }
+
+  BitSet getTakenPlaces() {
+    return (BitSet) takenPlaces.clone();
+  }
+
+  boolean isTaken(int place) {
+    return takenPlaces.get(place);
+  }
+
+  // Returns first free place or -1 when all places are taken
+  int firstFreePlace() {
+    int place = takenPlaces.nextClearBit(0);
+    return place < maxPlace ? place : -1;
+  }
+
+  // Returns first reserved place at or above from, or -1 when there is none
+  int firstTakenPlace(int from) {
+    return takenPlaces.nextSetBit(from);
+  }
+
+  String getReservationToken(int place) {
+    return reservationTokens.get(place);
+  }
+
+  void take(int place, String reservationToken, Long holdUntil) {
+    takenPlaces.set(place);
+    reservationTokens.put(place, reservationToken);
+    if (holdUntil != null) {
+      holds.put(place, holdUntil);
+    }
+  }
+
+  // Returns expiry second of hold of place, null when place is free or reserved for good
+  Long getHoldUntil(int place) {
+    return holds.get(place);
+  }
+
+  Map<Integer, Long> getHolds() {
+    return holds;
+  }
+
+  void confirm(int place) {
+    holds.remove(place);
+  }
+
+  void release(int place) {
+    takenPlaces.clear(place);
+    reservationTokens.remove(place);
+    holds.remove(place);
+  }
+
+  void journaled() {
+    unwritten++;
+    lastUsed = System.currentTimeMillis();
+  }
+
+  void written() {
+    unwritten--;
+  }
+
+  void touch() {
+    lastUsed = System.currentTimeMillis();
+  }
+
+  // Event can be dropped from memory only when database already has all its changes and no hold
+  // waits for expiry in wheel
+  boolean isIdleSince(long time) {
+    return unwritten == 0 && holds.isEmpty() && lastUsed < time;
+  }
+
+  void evict() {
+    evicted = true;
+  }
+}
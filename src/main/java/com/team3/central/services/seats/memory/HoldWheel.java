@@ -0,0 +1,63 @@
+package com.team3.central.services.seats.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Hashed timing wheel of holds of {@link MemorySeatStore}: one bucket per second, hold goes to
+ * bucket of its expiry second modulo number of buckets. Advancing visits only buckets of seconds
+ * that passed, so no hold has its own timer and holds far from expiry are not scanned.
+ *
+ * Confirmed or cancelled holds are not removed; store ignores them when they come out.
+ */
+class HoldWheel {
+
+  private static final int BUCKETS = 512;
+
+  private final List<List<Hold>> buckets = new ArrayList<>();
+  // Last second whose bucket was already emptied of due holds
+  private long lastTick = Long.MIN_VALUE;
+
+  HoldWheel() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.add(new ArrayList<>());
+    }
+  }
+
+  synchronized void add(Hold hold) {
+    // Hold expiring in second already passed would wait for whole turn of wheel
+    long tick = lastTick == Long.MIN_VALUE ? hold.getHoldUntil()
+        : Math.max(hold.getHoldUntil(), lastTick + 1);
+    buckets.get(Math.floorMod(tick, BUCKETS)).add(hold);
+  }
+
+  // Removes and returns holds which expired before now (holdUntil < now)
+  synchronized List<Hold> advance(long now) {
+    List<Hold> due = new ArrayList<>();
+    long from = lastTick == Long.MIN_VALUE ? now - BUCKETS
+        : Math.max(lastTick + 1, now - BUCKETS);
+    for (long tick = from; tick < now; tick++) {
+      buckets.get(Math.floorMod(tick, BUCKETS)).removeIf(hold -> {
+        if (hold.getHoldUntil() < now) {
+          due.add(hold);
+          return true;
+        }
+        return false;
+      });
+    }
+    lastTick = Math.max(lastTick, now - 1);
+    return due;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  static class Hold {
+
+    private final Long eventId;
+    private final int place;
+    private final String reservationToken;
+    private final long holdUntil;
+  }
+}
@@ -0,0 +1,47 @@
+package com.team3.central.services.seats.memory;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.services.seats.memory.SeatJournal.Entry;
+import com.team3.central.services.seats.memory.SeatJournal.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes journal entries to reservation table in one transaction. Counter freePlace is changed
+ * once per event by number of rows actually inserted or deleted, so writing the same entries
+ * again (replay after crash) leaves database unchanged. It is changed even when the rows cancel
+ * each other out, so version of event still changes with its places.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemorySeatBatchWriter {
+
+  private final ReservationRepository reservationRepository;
+  private final EventRepository eventRepository;
+
+  @Transactional
+  public void write(List<Entry> entries) {
+    Map<Long, Long> freePlaceChanges = new HashMap<>();
+    for (Entry entry : entries) {
+      if (entry.getType() == Type.RESERVE) {
+        if (reservationRepository.insertReservation(entry.getEventId(), entry.getPlaceId(),
+            entry.getReservationToken(),
+            ReservationRepository.holdParameter(entry.getHoldUntil())) == 1) {
+          freePlaceChanges.merge(entry.getEventId(), -1L, Long::sum);
+        }
+      } else if (entry.getType() == Type.CONFIRM) {
+        reservationRepository.confirmPlaceReservation(entry.getEventId(), entry.getPlaceId(),
+            entry.getReservationToken());
+      } else if (reservationRepository.deletePlaceReservation(entry.getEventId(),
+          entry.getPlaceId(), entry.getReservationToken()) == 1) {
+        freePlaceChanges.merge(entry.getEventId(), 1L, Long::sum);
+      }
+    }
+    freePlaceChanges.forEach(eventRepository::changeFreePlace);
+  }
+}
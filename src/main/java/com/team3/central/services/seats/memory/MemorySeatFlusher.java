@@ -0,0 +1,66 @@
+package com.team3.central.services.seats.memory;
+
+import com.team3.central.services.seats.memory.SeatJournal.Entry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind of {@link MemorySeatStore}: periodically writes journaled reservations and
+ * cancellations to database in batches and deletes journal segments that are no longer needed.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemorySeatFlusher {
+
+  private final SeatJournal journal;
+  private final MemorySeatBatchWriter batchWriter;
+  private final MemorySeatStore store;
+
+  // Kept between calls when writing to database fails, so nothing is dropped
+  private final List<Entry> unwritten = new ArrayList<>();
+  private final List<Path> closedSegments = new ArrayList<>();
+
+  // Writes what previous run confirmed but did not manage to write, before any event is loaded.
+  // Then loads events with holds, so holds of previous run expire
+  @PostConstruct
+  public void replayJournal() throws IOException {
+    List<Path> segments = journal.existingSegments();
+    List<Entry> entries = new ArrayList<>();
+    for (Path segment : segments) {
+      entries.addAll(journal.read(segment));
+    }
+    if (!entries.isEmpty()) {
+      batchWriter.write(entries);
+    }
+    journal.delete(segments);
+    store.loadEventsWithHolds();
+  }
+
+  @Scheduled(fixedDelayString = "${central.seats.memory.flush-interval-ms:200}")
+  public synchronized void flush() throws IOException {
+    // Every entry of closed segment is already queued, so after this batch segment can go
+    journal.rotate().ifPresent(closedSegments::add);
+    unwritten.addAll(journal.drainUnwritten());
+    if (!unwritten.isEmpty()) {
+      // Sync first, so seat sold in database is never one whose buyer may still get an error
+      journal.sync(unwritten.get(unwritten.size() - 1).getSequence());
+      batchWriter.write(unwritten);
+      store.written(unwritten);
+      unwritten.clear();
+    }
+    journal.delete(closedSegments);
+    closedSegments.clear();
+  }
+
+  @PreDestroy
+  public void shutdown() throws IOException {
+    flush();
+  }
+}
@@ -0,0 +1,394 @@
+package com.team3.central.services.seats.memory;
+
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import com.team3.central.services.seats.SeatStore;
+import com.team3.central.services.seats.memory.HoldWheel.Hold;
+import com.team3.central.services.seats.memory.SeatJournal.Entry;
+import com.team3.central.services.seats.memory.SeatJournal.Type;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Places of event are held in memory and reservation is confirmed as soon as it is in
+ * {@link SeatJournal}; reservation rows (only for reserved places, like LAZY_ROWS) and freePlace
+ * are written behind in batches by {@link MemorySeatFlusher}. Event is loaded from database on
+ * first use and dropped from memory after it was not used for a while.
+ *
+ * Memory is the only source of truth for events in this mode, so it works only when one
+ * application instance serves reservations.
+ *
+ * Change is visible in memory before its journal entry is synced. When sync fails, caller gets
+ * the error and reservations are cancelled again (by journal entries of their own, as the failed
+ * ones may still reach disk). Confirmation and cancellation stay done: retried confirmation
+ * succeeds and retried cancellation finds nothing to cancel, as if the first one had succeeded.
+ */
+@Component
+public class MemorySeatStore implements SeatStore {
+
+  private final ReservationRepository reservationRepository;
+  private final SeatJournal journal;
+  private final long idleMillis;
+
+  private final Map<Long, EventSeats> events = new ConcurrentHashMap<>();
+  private final HoldWheel holdWheel = new HoldWheel();
+  // Confirmed reservations whose rows are not in database yet, by reservation token
+  private final Map<String, Reservation> unwrittenReservations = new ConcurrentHashMap<>();
+
+  @Autowired
+  public MemorySeatStore(ReservationRepository reservationRepository, SeatJournal journal,
+      @Value("${central.seats.memory.idle-eviction-minutes:30}") long idleMinutes) {
+    this.reservationRepository = reservationRepository;
+    this.journal = journal;
+    this.idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+  }
+
+  @Override
+  public SeatStorage getStorage() {
+    return SeatStorage.MEMORY;
+  }
+
+  @Override
+  public void createPlaces(Event event) {
+    // Nothing to do, event without reservation rows is loaded with all places free
+  }
+
+  @Override
+  public void resize(Event event, Long maxPlace) throws ReservedPlacesException {
+    EventSeats seats = lock(event);
+    try {
+      if (seats.firstTakenPlace(Math.toIntExact(maxPlace)) != -1) {
+        throw new ReservedPlacesException("Places above new maxPlace are already reserved");
+      }
+      seats.setMaxPlace(maxPlace);
+    } finally {
+      seats.unlock();
+    }
+  }
+
+  @Override
+  public Reservation reserve(Event event, Long placeId, String reservationToken, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    Reservation reservation;
+    long sequence;
+    EventSeats seats = lock(event);
+    try {
+      int place;
+      if (placeId != null) {
+        if (placeId >= seats.getMaxPlace()) {
+          throw new NotFoundException("No such place in event or such event");
+        }
+        place = Math.toIntExact(placeId);
+        if (seats.isTaken(place)) {
+          throw new NoFreePlaceException("Place is already reserved");
+        }
+      } else {
+        place = seats.firstFreePlace();
+        if (place == -1) {
+          throw new NotFoundException("No free places in event");
+        }
+      }
+      sequence = journal(Type.RESERVE, event.getId(), (long) place, reservationToken, holdUntil);
+      reservation = take(seats, event, place, reservationToken, holdUntil);
+    } finally {
+      seats.unlock();
+    }
+    // Outside of lock, so buyers of the same event share one fsync
+    syncReserved(sequence, List.of(reservation));
+    return reservation;
+  }
+
+  @Override
+  public List<Reservation> reserveAll(Event event, List<Long> placeIds,
+      List<String> reservationTokens, Long holdUntil)
+      throws NotFoundException, NoFreePlaceException {
+    List<Reservation> reservations = new ArrayList<>();
+    long sequence = 0;
+    EventSeats seats = lock(event);
+    try {
+      // All places are checked before first one is taken, so nothing needs to be undone
+      for (Long placeId : placeIds) {
+        if (placeId >= seats.getMaxPlace()) {
+          throw new NotFoundException("No such place in event or such event");
+        }
+        if (seats.isTaken(Math.toIntExact(placeId))) {
+          throw new NoFreePlaceException("Place is already reserved");
+        }
+      }
+      for (int i = 0; i < placeIds.size(); i++) {
+        sequence = journal(Type.RESERVE, event.getId(), placeIds.get(i),
+            reservationTokens.get(i), holdUntil);
+        reservations.add(take(seats, event, Math.toIntExact(placeIds.get(i)),
+            reservationTokens.get(i), holdUntil));
+      }
+    } finally {
+      seats.unlock();
+    }
+    syncReserved(sequence, reservations);
+    return reservations;
+  }
+
+  @Override
+  public void confirm(Reservation reservation, long now) throws NotFoundException {
+    long sequence;
+    EventSeats seats = lock(reservation.getEvent());
+    try {
+      int place = Math.toIntExact(reservation.getPlaceOnSchema());
+      Long holdUntil = seats.getHoldUntil(place);
+      if (!reservation.getReservationToken().equals(seats.getReservationToken(place))
+          || holdUntil != null && holdUntil < now) {
+        throw new NotFoundException("No such reservation or hold expired");
+      }
+      if (holdUntil == null) {
+        return;
+      }
+      sequence = journal(Type.CONFIRM, reservation.getEvent().getId(),
+          reservation.getPlaceOnSchema(), reservation.getReservationToken(), null);
+      seats.confirm(place);
+      seats.journaled();
+      reservation.setHoldUntil(null);
+    } finally {
+      seats.unlock();
+    }
+    sync(sequence);
+  }
+
+  @Override
+  public void cancel(Reservation reservation) throws NotFoundException {
+    cancel(reservation, false);
+  }
+
+  @Override
+  public void cancelHold(Reservation reservation) throws NotFoundException {
+    cancel(reservation, true);
+  }
+
+  private void cancel(Reservation reservation, boolean holdOnly) throws NotFoundException {
+    long sequence;
+    EventSeats seats = lock(reservation.getEvent());
+    try {
+      int place = Math.toIntExact(reservation.getPlaceOnSchema());
+      if (!reservation.getReservationToken().equals(seats.getReservationToken(place))) {
+        throw new NotFoundException("No such reservation");
+      }
+      if (holdOnly && seats.getHoldUntil(place) == null) {
+        throw new NotFoundException("No such hold");
+      }
+      sequence = journal(Type.CANCEL, reservation.getEvent().getId(),
+          reservation.getPlaceOnSchema(), reservation.getReservationToken(), null);
+      seats.release(place);
+      seats.journaled();
+      unwrittenReservations.remove(reservation.getReservationToken());
+    } finally {
+      seats.unlock();
+    }
+    sync(sequence);
+  }
+
+  // Place of token is in memory only while its reservation is unwritten, otherwise it is read
+  @Override
+  public void cancel(Long eventId, String reservationToken) throws NotFoundException {
+    Reservation reservation = unwrittenReservations.get(reservationToken);
+    if (reservation == null) {
+      reservation = reservationRepository.findByReservationToken(reservationToken);
+    }
+    if (reservation == null || !reservation.getEvent().getId().equals(eventId)) {
+      throw new NotFoundException("No such reservation");
+    }
+    cancel(reservation);
+  }
+
+  // Places are freed in memory one by one, all rows go to database in next write-behind batch
+  @Override
+  public Set<String> cancelAll(Collection<String> reservationTokens) {
+    Set<String> cancelled = new HashSet<>();
+    for (String reservationToken : reservationTokens) {
+      Reservation reservation = unwrittenReservations.get(reservationToken);
+      if (reservation == null) {
+        reservation = reservationRepository.findByReservationToken(reservationToken);
+      }
+      try {
+        if (reservation != null) {
+          cancel(reservation);
+          cancelled.add(reservationToken);
+        }
+      } catch (NotFoundException e) {
+        // Cancelled meanwhile
+      }
+    }
+    return cancelled;
+  }
+
+  // Released places go to database with next write-behind batch, which also restores freePlace
+  // once per event
+  @Override
+  public void releaseExpiredHolds(long now) {
+    Map<Long, List<Hold>> dueHolds = holdWheel.advance(now).stream()
+        .collect(Collectors.groupingBy(Hold::getEventId));
+    dueHolds.forEach((eventId, holds) -> {
+      EventSeats seats = events.get(eventId);
+      if (seats == null) {
+        return;
+      }
+      seats.lock();
+      try {
+        for (Hold hold : holds) {
+          // Hold could be confirmed or cancelled (and place taken again) since it entered wheel
+          if (hold.getReservationToken().equals(seats.getReservationToken(hold.getPlace()))
+              && Long.valueOf(hold.getHoldUntil()).equals(seats.getHoldUntil(hold.getPlace()))) {
+            journal(Type.CANCEL, eventId, (long) hold.getPlace(), hold.getReservationToken(),
+                null);
+            seats.release(hold.getPlace());
+            seats.journaled();
+            unwrittenReservations.remove(hold.getReservationToken());
+          }
+        }
+      } finally {
+        seats.unlock();
+      }
+    });
+  }
+
+  // Hold enters wheel only when its event is loaded. Holds written by previous run would never
+  // expire if nobody used their event again, so such events are loaded at start
+  public void loadEventsWithHolds() {
+    reservationRepository.findEventsWithHolds(SeatStorage.MEMORY)
+        .forEach(event -> lock(event).unlock());
+  }
+
+  @Override
+  public BitSet getTakenPlaces(Event event) {
+    EventSeats seats = lock(event);
+    try {
+      return seats.getTakenPlaces();
+    } finally {
+      seats.unlock();
+    }
+  }
+
+  @Override
+  public Reservation findUnwrittenReservation(String reservationToken) {
+    return unwrittenReservations.get(reservationToken);
+  }
+
+  // Called by flusher after entries are committed to database
+  void written(List<Entry> entries) {
+    for (Entry entry : entries) {
+      if (entry.getType() == Type.RESERVE) {
+        unwrittenReservations.remove(entry.getReservationToken());
+      }
+      EventSeats seats = events.get(entry.getEventId());
+      if (seats != null) {
+        seats.lock();
+        seats.written();
+        seats.unlock();
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${central.seats.memory.eviction-interval-ms:60000}")
+  public void evictIdleEvents() {
+    long idleSince = System.currentTimeMillis() - idleMillis;
+    events.forEach((eventId, seats) -> {
+      seats.lock();
+      try {
+        if (seats.isIdleSince(idleSince)) {
+          seats.evict();
+          events.remove(eventId, seats);
+        }
+      } finally {
+        seats.unlock();
+      }
+    });
+  }
+
+  // Returns locked places of event, loading them from database on first use
+  private EventSeats lock(Event event) {
+    while (true) {
+      EventSeats seats = events.computeIfAbsent(event.getId(), eventId -> new EventSeats());
+      seats.lock();
+      if (!seats.isEvicted()) {
+        try {
+          if (!seats.isLoaded()) {
+            seats.load(event.getMaxPlace(),
+                reservationRepository.findByEventIdAndReservationTokenIsNotNull(event.getId()));
+            seats.getHolds().forEach((place, holdUntil) -> holdWheel.add(new Hold(event.getId(),
+                place, seats.getReservationToken(place), holdUntil)));
+          }
+        } catch (RuntimeException e) {
+          seats.unlock();
+          throw e;
+        }
+        seats.touch();
+        return seats;
+      }
+      // Evicted between lookup and lock, next lookup creates fresh entry
+      seats.unlock();
+    }
+  }
+
+  // Takes place journaled as RESERVE entry, called with seats locked
+  private Reservation take(EventSeats seats, Event event, int place, String reservationToken,
+      Long holdUntil) {
+    seats.take(place, reservationToken, holdUntil);
+    seats.journaled();
+    if (holdUntil != null) {
+      holdWheel.add(new Hold(event.getId(), place, reservationToken, holdUntil));
+    }
+    Reservation reservation = new Reservation(event, (long) place, reservationToken, holdUntil);
+    unwrittenReservations.put(reservationToken, reservation);
+    return reservation;
+  }
+
+  private long journal(Type type, Long eventId, Long placeId, String reservationToken,
+      Long holdUntil) {
+    try {
+      return journal.append(type, eventId, placeId, reservationToken, holdUntil);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write seat journal", e);
+    }
+  }
+
+  // Buyer told that reservation failed must not keep place
+  private void syncReserved(long sequence, List<Reservation> reservations) {
+    try {
+      sync(sequence);
+    } catch (UncheckedIOException e) {
+      for (Reservation reservation : reservations) {
+        try {
+          cancel(reservation);
+        } catch (NotFoundException | RuntimeException cancelFailure) {
+          e.addSuppressed(cancelFailure);
+        }
+      }
+      throw e;
+    }
+  }
+
+  private void sync(long sequence) {
+    try {
+      journal.sync(sequence);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write seat journal", e);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.team3.central.services.seats.memory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only file journal of reservations and cancellations confirmed by
+ * {@link MemorySeatStore} that may not be in database yet. Buyer gets confirmation only after
+ * {@link #sync(long)}, so journal together with database always holds every confirmed seat.
+ *
+ * Entries go to current segment file. {@link MemorySeatFlusher} closes segment before each
+ * database flush and deletes closed segments once their entries are written; segments left after
+ * crash are written to database again on startup (writing entry twice changes nothing).
+ */
+@Component
+public class SeatJournal {
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private final Path directory;
+  private final Object syncLock = new Object();
+  private final Queue<Entry> unwritten = new ConcurrentLinkedQueue<>();
+
+  private FileChannel segment;
+  private Path segmentPath;
+  private long segmentNumber;
+  private long lastAppended;
+  private long lastSynced;
+
+  public SeatJournal(
+      @Value("${central.seats.memory.journal:seat-journal}") String directory)
+      throws IOException {
+    this.directory = Path.of(directory);
+    // New segments must sort after the ones left by previous run
+    for (Path existing : existingSegments()) {
+      segmentNumber = Math.max(segmentNumber, segmentNumber(existing));
+    }
+  }
+
+  // Writes entry to current segment and queues it for database, returns its sequence number.
+  // Entry is durable only after sync of that number
+  public synchronized long append(Type type, Long eventId, Long placeId, String reservationToken,
+      Long holdUntil) throws IOException {
+    if (segment == null) {
+      Files.createDirectories(directory);
+      segmentPath = directory.resolve(
+          String.format("%s%019d%s", SEGMENT_PREFIX, ++segmentNumber, SEGMENT_SUFFIX));
+      segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    Entry entry = new Entry(lastAppended + 1, type, eventId, placeId, reservationToken,
+        holdUntil);
+    ByteBuffer line = StandardCharsets.UTF_8.encode(entry.toLine());
+    try {
+      while (line.hasRemaining()) {
+        segment.write(line);
+      }
+    } catch (IOException e) {
+      // Next entries go to new segment, so torn line never merges with valid one
+      closeSegment();
+      throw e;
+    }
+    lastAppended = entry.getSequence();
+    unwritten.add(entry);
+    return entry.getSequence();
+  }
+
+  // Forces all entries up to sequence to disk. Callers waiting at the same time share one fsync
+  public void sync(long sequence) throws IOException {
+    synchronized (syncLock) {
+      if (lastSynced >= sequence) {
+        return;
+      }
+      FileChannel channel;
+      long target;
+      synchronized (this) {
+        channel = segment;
+        target = lastAppended;
+      }
+      if (channel != null) {
+        channel.force(false);
+      }
+      lastSynced = target;
+    }
+  }
+
+  // Closes current segment, all its entries are durable and already returned by drainUnwritten
+  // or will be returned by its next call. Empty when nothing was appended since last rotation
+  public Optional<Path> rotate() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        if (segment == null) {
+          return Optional.empty();
+        }
+        Path closed = segmentPath;
+        segment.force(false);
+        closeSegment();
+        lastSynced = lastAppended;
+        return Optional.of(closed);
+      }
+    }
+  }
+
+  // Takes entries appended since previous call, in order of appending
+  public List<Entry> drainUnwritten() {
+    List<Entry> entries = new ArrayList<>();
+    Entry entry;
+    while ((entry = unwritten.poll()) != null) {
+      entries.add(entry);
+    }
+    return entries;
+  }
+
+  // Segments not deleted by previous run, oldest first
+  public List<Path> existingSegments() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  public List<Entry> read(Path segment) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    String content = Files.readString(segment, StandardCharsets.UTF_8);
+    // Last line without newline was torn by crash. It was never synced, so never confirmed
+    String[] lines = content.substring(0, content.lastIndexOf('\n') + 1).split("\n");
+    for (String line : lines) {
+      Entry.fromLine(line).ifPresent(entries::add);
+    }
+    return entries;
+  }
+
+  public void delete(List<Path> segments) throws IOException {
+    for (Path closed : segments) {
+      Files.deleteIfExists(closed);
+    }
+  }
+
+  private void closeSegment() {
+    try {
+      segment.close();
+    } catch (IOException e) {
+      // Segment stays on disk and is written again on next startup
+    }
+    segment = null;
+  }
+
+  private static long segmentNumber(Path segment) {
+    String name = segment.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+          name.length() - SEGMENT_SUFFIX.length()));
+    } catch (RuntimeException e) {
+      return 0;
+    }
+  }
+
+  public enum Type {
+    RESERVE,
+    CONFIRM,
+    CANCEL
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class Entry {
+
+    private final long sequence;
+    private final Type type;
+    private final Long eventId;
+    private final Long placeId;
+    private final String reservationToken;
+    // Only for RESERVE of hold, null otherwise
+    private final Long holdUntil;
+
+    String toLine() {
+      return sequence + "|" + type + "|" + eventId + "|" + placeId + "|" + reservationToken + "|"
+          + (holdUntil == null ? "" : holdUntil) + "\n";
+    }
+
+    static Optional<Entry> fromLine(String line) {
+      // Segments written before holds existed have no last field
+      String[] fields = line.split("\\|", -1);
+      if (fields.length != 5 && fields.length != 6) {
+        return Optional.empty();
+      }
+      try {
+        Long holdUntil = fields.length == 6 && !fields[5].isEmpty()
+            ? Long.parseLong(fields[5]) : null;
+        return Optional.of(new Entry(Long.parseLong(fields[0]), Type.valueOf(fields[1]),
+            Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4], holdUntil));
+      } catch (IllegalArgumentException e) {
+        return Optional.empty();
+      }
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package com.team3.central.services.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team3.central.openapi.model.PlaceChanges;
+import com.team3.central.services.EventService;
+import com.team3.central.services.exceptions.NotFoundException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent event streams of places of events, so clients showing live seat map are pushed
+ * changes instead of polling for them. Dispatcher reads changes of every streamed event from
+ * {@link EventService#getPlaceChanges} once per interval, so burst of reservations goes out as
+ * one message, and queues the same message to every subscriber of the event. Booking never
+ * touches streams, reservations reach them through the seat map cache.
+ *
+ * Messages are written by sender threads, never by dispatcher, so slow client delays nobody but
+ * itself. Subscriber whose queue is full is dropped; its EventSource reconnects with
+ * Last-Event-ID and gets changes since then, or all places again.
+ */
+@Service
+public class SeatStreamService {
+
+  private static final String EVENT_NAME = "places";
+  private static final Message HEARTBEAT = new Message(null, null);
+
+  private final EventService eventService;
+  private final ObjectMapper objectMapper;
+  private final Executor sender;
+  private final Map<Long, EventStream> streams = new ConcurrentHashMap<>();
+  private final int queueSize;
+  private final long timeoutMillis;
+
+  @Autowired
+  public SeatStreamService(EventService eventService, ObjectMapper objectMapper,
+      @Value("${central.events.seat-streams.sender-threads:4}") int senderThreads,
+      @Value("${central.events.seat-streams.queue-size:16}") int queueSize,
+      @Value("${central.events.seat-streams.timeout-ms:1800000}") long timeoutMillis) {
+    this(eventService, objectMapper, Executors.newFixedThreadPool(senderThreads,
+        senderThreadFactory()), queueSize, timeoutMillis);
+  }
+
+  SeatStreamService(EventService eventService, ObjectMapper objectMapper, Executor sender,
+      int queueSize, long timeoutMillis) {
+    this.eventService = eventService;
+    this.objectMapper = objectMapper;
+    this.sender = sender;
+    this.queueSize = queueSize;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  // First message lists places changed since lastEventId, or all places when it is null or not
+  // known any more
+  public SseEmitter subscribe(Long eventId, Long lastEventId) throws NotFoundException {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    subscribe(eventId, lastEventId, emitter);
+    return emitter;
+  }
+
+  void subscribe(Long eventId, Long lastEventId, SseEmitter emitter) throws NotFoundException {
+    while (true) {
+      EventStream stream = streams.computeIfAbsent(eventId, id -> new EventStream());
+      // Dispatch of the event waits, so subscriber misses no change between first message and
+      // next dispatch
+      synchronized (stream) {
+        if (stream.closed) {
+          continue;
+        }
+        PlaceChanges changes = eventService.getPlaceChanges(eventId, lastEventId);
+        if (stream.version == null) {
+          stream.version = changes.getVersion();
+          stream.freePlace = changes.getFreePlace();
+        }
+        Subscriber subscriber = new Subscriber(stream, emitter);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onError(error -> subscriber.remove());
+        stream.subscribers.add(subscriber);
+        subscriber.offer(message(changes));
+        return;
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${central.events.seat-streams.dispatch-interval-ms:250}")
+  public void dispatch() {
+    streams.forEach((eventId, stream) -> {
+      synchronized (stream) {
+        if (stream.subscribers.isEmpty()) {
+          stream.closed = true;
+          streams.remove(eventId, stream);
+          return;
+        }
+        try {
+          PlaceChanges changes = eventService.getPlaceChanges(eventId, stream.version);
+          boolean freePlaceChanged = !Objects.equals(changes.getFreePlace(), stream.freePlace);
+          stream.version = changes.getVersion();
+          stream.freePlace = changes.getFreePlace();
+          if (changes.getSnapshot() || !changes.getPlaces().isEmpty() || freePlaceChanged) {
+            Message message = message(changes);
+            stream.subscribers.forEach(subscriber -> subscriber.offer(message));
+          }
+        } catch (NotFoundException e) {
+          // Event was deleted
+          stream.subscribers.forEach(Subscriber::drop);
+        }
+      }
+    });
+  }
+
+  // Comment nobody reads, so connections closed by clients are found and dropped
+  @Scheduled(fixedDelayString = "${central.events.seat-streams.heartbeat-ms:15000}")
+  public void heartbeat() {
+    streams.values().forEach(stream -> stream.subscribers
+        .forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+  }
+
+  // Serialized once for all subscribers of the event
+  private Message message(PlaceChanges changes) {
+    try {
+      return new Message(changes.getVersion(), objectMapper.writeValueAsString(changes));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static CustomizableThreadFactory senderThreadFactory() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("seat-stream-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
+
+  private static class Message {
+
+    // Null for heartbeat
+    private final Long version;
+    private final String json;
+
+    Message(Long version, String json) {
+      this.version = version;
+      this.json = json;
+    }
+
+    SseEmitter.SseEventBuilder toEvent() {
+      if (version == null) {
+        return SseEmitter.event().comment("heartbeat");
+      }
+      return SseEmitter.event()
+          .id(version.toString())
+          .name(EVENT_NAME)
+          .data(json, MediaType.APPLICATION_JSON);
+    }
+  }
+
+  // Subscribers of one event, changed under its lock
+  private static class EventStream {
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Version and free places of last dispatch
+    private Long version;
+    private Long freePlace;
+    // Removed from streams, subscriber has to make new one
+    private boolean closed;
+  }
+
+  private class Subscriber {
+
+    private final EventStream stream;
+    private final SseEmitter emitter;
+    private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean dropped;
+    // Version of last message queued, messages are never older than what subscriber has.
+    // Guarded by lock of stream
+    private long version = Long.MIN_VALUE;
+
+    Subscriber(EventStream stream, SseEmitter emitter) {
+      this.stream = stream;
+      this.emitter = emitter;
+    }
+
+    void offer(Message message) {
+      if (dropped) {
+        return;
+      }
+      if (message.version != null) {
+        if (message.version <= version) {
+          return;
+        }
+        version = message.version;
+      }
+      if (queued.incrementAndGet() > queueSize) {
+        // Client does not read as fast as places change
+        drop();
+        return;
+      }
+      queue.add(message);
+      sendQueued();
+    }
+
+    private void sendQueued() {
+      if (sending.compareAndSet(false, true)) {
+        sender.execute(this::send);
+      }
+    }
+
+    private void send() {
+      try {
+        for (Message message = queue.poll(); message != null && !dropped;
+            message = queue.poll()) {
+          queued.decrementAndGet();
+          emitter.send(message.toEvent());
+        }
+      } catch (IOException | IllegalStateException e) {
+        drop();
+      } finally {
+        sending.set(false);
+      }
+      // Message queued while this sender was finishing
+      if (!queue.isEmpty() && !dropped) {
+        sendQueued();
+      }
+    }
+
+    void drop() {
+      dropped = true;
+      remove();
+      queue.clear();
+      emitter.complete();
+    }
+
+    void remove() {
+      stream.subscribers.remove(this);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.team3.central.services.waitlist;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Events whose places were freed since waitlist was last served. Cancellation only marks event
+ * here, waiting buyers are served later in batches by {@link WaitlistService}.
+ */
+@Component
+public class FreedPlaces {
+
+  private final Set<Long> eventIds = ConcurrentHashMap.newKeySet();
+
+  public void freed(Long eventId) {
+    if (eventId != null) {
+      eventIds.add(eventId);
+    }
+  }
+
+  // Returns marked events and forgets them
+  List<Long> drain() {
+    List<Long> drained = new ArrayList<>();
+    for (Long eventId : eventIds) {
+      if (eventIds.remove(eventId)) {
+        drained.add(eventId);
+      }
+    }
+    return drained;
+  }
+}
@@ -0,0 +1,181 @@
+package com.team3.central.services.waitlist;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.WaitlistRepository;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.WaitlistEntry;
+import com.team3.central.repositories.entities.enums.WaitlistStatus;
+import com.team3.central.services.EmailService;
+import com.team3.central.services.ReservationService;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Waitlist of sold out events, so buyers do not have to poll event for freed places. Cancellation
+ * marks event in {@link FreedPlaces}, and dispatcher then holds freed places for the buyers
+ * waiting longest, one place each, and sends them reservation token by email. Buyer confirms hold
+ * like any other reservation; hold which is not confirmed in time is released and its place goes
+ * to the next buyer.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+
+  private final WaitlistRepository waitlistRepository;
+  private final EventRepository eventRepository;
+  private final ReservationService reservationService;
+  private final EmailService emailService;
+  private final FreedPlaces freedPlaces;
+  private final long holdSeconds;
+  private final int batchSize;
+  // Offer is closed only after expired holds were surely swept, so its place is already free
+  private final long holdSweepSeconds;
+  private final Clock clock;
+
+  @Autowired
+  public WaitlistService(WaitlistRepository waitlistRepository, EventRepository eventRepository,
+      ReservationService reservationService, EmailService emailService, FreedPlaces freedPlaces,
+      @Value("${central.waitlist.hold-seconds:600}") long holdSeconds,
+      @Value("${central.waitlist.batch-size:100}") int batchSize,
+      @Value("${central.reservations.hold-sweep-interval-ms:5000}") long holdSweepMillis) {
+    this(waitlistRepository, eventRepository, reservationService, emailService, freedPlaces,
+        holdSeconds, batchSize, TimeUnit.MILLISECONDS.toSeconds(holdSweepMillis) + 1,
+        Clock.systemUTC());
+  }
+
+  WaitlistService(WaitlistRepository waitlistRepository, EventRepository eventRepository,
+      ReservationService reservationService, EmailService emailService, FreedPlaces freedPlaces,
+      long holdSeconds, int batchSize, long holdSweepSeconds, Clock clock) {
+    this.waitlistRepository = waitlistRepository;
+    this.eventRepository = eventRepository;
+    this.reservationService = reservationService;
+    this.emailService = emailService;
+    this.freedPlaces = freedPlaces;
+    this.holdSeconds = holdSeconds;
+    this.batchSize = batchSize;
+    this.holdSweepSeconds = holdSweepSeconds;
+    this.clock = clock;
+  }
+
+  public WaitlistEntry join(Long eventId, String email) throws NotFoundException {
+    Long freePlace = eventRepository.findOpenEventFreePlace(eventId);
+    if (freePlace == null) {
+      throw new NotFoundException("Event not exist or done");
+    }
+    WaitlistEntry entry = waitlistRepository.save(WaitlistEntry.builder()
+        .eventId(eventId)
+        .waitlistToken(UUID.randomUUID().toString())
+        .email(email)
+        .status(WaitlistStatus.WAITING)
+        .build());
+    if (freePlace > 0) {
+      // Places were freed before buyer joined, nobody else is going to mark them
+      freedPlaces.freed(eventId);
+    }
+    return entry;
+  }
+
+  public WaitlistEntry getEntry(String waitlistToken) throws NotFoundException {
+    WaitlistEntry entry = waitlistRepository.findByWaitlistToken(waitlistToken);
+    if (entry == null) {
+      throw new NotFoundException("No such waitlist entry");
+    }
+    return entry;
+  }
+
+  // 1 for the next buyer to get place, 0 when entry does not wait anymore
+  public long getPlaceInLine(WaitlistEntry entry) {
+    if (entry.getStatus() != WaitlistStatus.WAITING) {
+      return 0;
+    }
+    return waitlistRepository.countByEventIdAndStatusAndIdLessThan(entry.getEventId(),
+        WaitlistStatus.WAITING, entry.getId()) + 1;
+  }
+
+  // Leaves waitlist, place still held for buyer is released but confirmed reservation is kept
+  public void leave(String waitlistToken) throws NotFoundException {
+    WaitlistEntry entry = getEntry(waitlistToken);
+    if (entry.getStatus() == WaitlistStatus.LEFT) {
+      throw new NotFoundException("Already left waitlist");
+    }
+    if (entry.getStatus() == WaitlistStatus.OFFERED) {
+      try {
+        reservationService.releaseHold(entry.getReservationToken());
+      } catch (NotFoundException e) {
+        // Hold expired or was confirmed already
+      }
+    }
+    entry.setStatus(WaitlistStatus.LEFT);
+    waitlistRepository.save(entry);
+  }
+
+  @Scheduled(fixedDelayString = "${central.waitlist.dispatch-interval-ms:1000}")
+  public void promoteWaiting() {
+    long now = Instant.ofEpochMilli(clock.millis()).getEpochSecond();
+    // Place of offer which ran out is free again unless it was confirmed
+    List<WaitlistEntry> endedOffers = waitlistRepository.findByStatusAndHoldUntilLessThan(
+        WaitlistStatus.OFFERED, now - holdSweepSeconds, PageRequest.of(0, batchSize));
+    endedOffers.forEach(entry -> {
+      entry.setStatus(WaitlistStatus.CLOSED);
+      if (!reservationService.isConfirmed(entry.getReservationToken())) {
+        freedPlaces.freed(entry.getEventId());
+      }
+    });
+    waitlistRepository.saveAll(endedOffers);
+    List<Long> eventIds = freedPlaces.drain();
+    for (int i = 0; i < eventIds.size(); i++) {
+      try {
+        promote(eventIds.get(i), now);
+      } catch (RuntimeException e) {
+        // Events not served yet are marked again, so the next run does not forget them
+        eventIds.subList(i, eventIds.size()).forEach(freedPlaces::freed);
+        throw e;
+      }
+    }
+  }
+
+  private void promote(Long eventId, long now) {
+    List<WaitlistEntry> waiting = waitlistRepository.findByEventIdAndStatusOrderByIdAsc(eventId,
+        WaitlistStatus.WAITING, PageRequest.of(0, batchSize));
+    try {
+      for (WaitlistEntry entry : waiting) {
+        Reservation hold = reservationService.holdPlace(eventId, now + holdSeconds);
+        if (waitlistRepository.offer(entry.getId(), hold.getReservationToken(),
+            hold.getHoldUntil()) == 0) {
+          // Buyer left or was served by other instance meanwhile
+          reservationService.deleteReservation(hold.getReservationToken());
+          continue;
+        }
+        try {
+          emailService.sendSimpleMessage(entry.getEmail(), "Place is waiting for you",
+              "Place " + hold.getPlaceOnSchema() + " of event " + eventId
+                  + " is held for you until " + Instant.ofEpochSecond(hold.getHoldUntil())
+                  + ". Confirm reservation " + hold.getReservationToken() + " to keep it.");
+        } catch (RuntimeException e) {
+          // Offer stands, buyer still finds it in waitlist entry. Unconfirmed hold goes to the
+          // next buyer once it expires
+          log.warn("Could not send offer of event {} to waitlist entry {}", eventId,
+              entry.getId(), e);
+        }
+      }
+    } catch (NotFoundException | NoFreePlaceException e) {
+      // No more free places (or event is over), the rest keeps waiting
+      return;
+    }
+    if (waiting.size() == batchSize) {
+      // Whole batch got places, there may be more of them for next batch
+      freedPlaces.freed(eventId);
+    }
+  }
+}
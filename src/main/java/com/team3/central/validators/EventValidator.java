@@ -9,6 +9,8 @@ import org.springframework.stereotype.Component;
 @AllArgsConstructor
 public class EventValidator {
 
+  private static final int MAX_PAGE_LIMIT = 200;
+
   CategoryValidator categoryValidator;
 
   public void validateEventForm(EventForm eventForm) throws IllegalArgumentException {
@@ -52,6 +54,15 @@ public class EventValidator {
     }
   }
 
+  public void validatePage(Integer limit, Long from, Long to) throws IllegalArgumentException {
+    if (limit != null && (limit < 1 || limit > MAX_PAGE_LIMIT)) {
+      throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_LIMIT);
+    }
+    if (from != null && to != null && to <= from) {
+      throw new IllegalArgumentException("Time window end must be after its start");
+    }
+  }
+
   public void validateEventPatch(EventPatch eventPatch) throws IllegalArgumentException {
     Long endTime = eventPatch.getEndTime();
     Long startTime = eventPatch.getStartTime();
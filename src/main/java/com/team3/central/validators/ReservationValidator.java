@@ -1,10 +1,23 @@
 package com.team3.central.validators;
 
+import com.team3.central.openapi.model.CancellationForm;
+import com.team3.central.openapi.model.ReservationsForm;
+import com.team3.central.openapi.model.WaitlistForm;
+import java.util.HashSet;
+import java.util.regex.Pattern;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ReservationValidator {
 
+  // Most places one request can reserve
+  public static final int MAX_PLACES_IN_RESERVATION = 50;
+  // Most reservations one request can cancel
+  public static final int MAX_RESERVATIONS_IN_CANCELLATION = 100;
+  // Same rule as for organizer emails
+  private static final Pattern EMAIL = Pattern.compile(
+      "^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z]{2,6}$", Pattern.CASE_INSENSITIVE);
+
   public void validateReservationToken(String token) throws IllegalArgumentException {
     if (token == null || token.isBlank()) {
       throw new IllegalArgumentException("Token is empty");
@@ -16,4 +29,55 @@ public class ReservationValidator {
       throw new IllegalArgumentException("Place id is invalid");
     }
   }
+
+  public void validateReservationsForm(ReservationsForm reservationsForm)
+      throws IllegalArgumentException {
+    if (reservationsForm == null) {
+      throw new IllegalArgumentException("Reservations form cannot be null");
+    }
+    if (reservationsForm.getPlaceIds() != null && !reservationsForm.getPlaceIds().isEmpty()) {
+      if (reservationsForm.getPlaceIds().size() > MAX_PLACES_IN_RESERVATION) {
+        throw new IllegalArgumentException(
+            "Cannot reserve more than " + MAX_PLACES_IN_RESERVATION + " places at once");
+      }
+      for (Long placeId : reservationsForm.getPlaceIds()) {
+        if (placeId == null) {
+          throw new IllegalArgumentException("Place id is invalid");
+        }
+        validatePlaceId(placeId);
+      }
+      if (new HashSet<>(reservationsForm.getPlaceIds()).size()
+          != reservationsForm.getPlaceIds().size()) {
+        throw new IllegalArgumentException("Place ids cannot repeat");
+      }
+      return;
+    }
+    Integer count = reservationsForm.getCount();
+    if (count == null || count < 1 || count > MAX_PLACES_IN_RESERVATION) {
+      throw new IllegalArgumentException("Count must be between 1 and "
+          + MAX_PLACES_IN_RESERVATION + " when place ids are missing");
+    }
+  }
+
+  public void validateCancellationForm(CancellationForm cancellationForm)
+      throws IllegalArgumentException {
+    if (cancellationForm == null || cancellationForm.getReservationTokens() == null
+        || cancellationForm.getReservationTokens().isEmpty()) {
+      throw new IllegalArgumentException("Reservation tokens are missing");
+    }
+    if (cancellationForm.getReservationTokens().size() > MAX_RESERVATIONS_IN_CANCELLATION) {
+      throw new IllegalArgumentException("Cannot cancel more than "
+          + MAX_RESERVATIONS_IN_CANCELLATION + " reservations at once");
+    }
+    for (String token : cancellationForm.getReservationTokens()) {
+      validateReservationToken(token);
+    }
+  }
+
+  public void validateWaitlistForm(WaitlistForm waitlistForm) throws IllegalArgumentException {
+    if (waitlistForm == null || waitlistForm.getEmail() == null
+        || !EMAIL.matcher(waitlistForm.getEmail()).matches()) {
+      throw new IllegalArgumentException("Email is null or invalid");
+    }
+  }
 }
@@ -0,0 +1,101 @@
+package com.team3.central.repositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Compares seat creation of one event done row by row (old addEvent loop) with the set-based
+ * {@link ReservationRepository#INSERT_FREE_PLACES} statement.
+ *
+ * Needs running PostgreSQL, so it is skipped unless started explicitly:
+ * mvn test -Dbenchmark=true -Dtest=SeatProvisioningBenchmarkTest
+ *   -DDB_URL=localhost -DDB_PORT=5432 -DDB_NAME=... -DDB_USERNAME=... -DDB_PASSWORD=...
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SeatProvisioningBenchmarkTest {
+
+  private static final long EVENT_ID = 1L;
+  private static final double MIN_SPEEDUP = 2.0;
+
+  private static Connection connection;
+  private static NamedParameterJdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void setUp() throws SQLException {
+    connection = DriverManager.getConnection(
+        "jdbc:postgresql://" + System.getProperty("DB_URL") + ":" + System.getProperty("DB_PORT")
+            + "/" + System.getProperty("DB_NAME"),
+        System.getProperty("DB_USERNAME"), System.getProperty("DB_PASSWORD"));
+    // Temporary table shadows the real one, so benchmark never touches application data
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TEMPORARY TABLE reservation (id bigserial PRIMARY KEY, "
+          + "place_on_schema bigint, reservation_token varchar(255), event_id bigint)");
+    }
+    jdbcTemplate = new NamedParameterJdbcTemplate(new SingleConnectionDataSource(connection, true));
+  }
+
+  @AfterAll
+  static void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {1_000L, 10_000L, 100_000L})
+  void createPlaces(long maxPlaces) throws SQLException {
+    clear();
+    long start = System.nanoTime();
+    try (PreparedStatement statement = connection.prepareStatement(
+        "INSERT INTO reservation (event_id, place_on_schema) VALUES (?, ?)")) {
+      for (long placeId = 0; placeId < maxPlaces; placeId++) {
+        statement.setLong(1, EVENT_ID);
+        statement.setLong(2, placeId);
+        statement.executeUpdate();
+      }
+    }
+    long rowByRow = System.nanoTime() - start;
+    assertThat(count()).isEqualTo(maxPlaces);
+
+    clear();
+    start = System.nanoTime();
+    int inserted = jdbcTemplate.update(ReservationRepository.INSERT_FREE_PLACES,
+        Map.of("eventId", EVENT_ID, "fromPlace", 0L, "toPlace", maxPlaces));
+    long setBased = System.nanoTime() - start;
+    assertThat((long) inserted).isEqualTo(maxPlaces);
+    assertThat(count()).isEqualTo(maxPlaces);
+
+    log.info("{} places: row by row {} ms, set-based {} ms", maxPlaces, rowByRow / 1_000_000,
+        setBased / 1_000_000);
+    // One statement instead of one round trip per place
+    assertThat((double) rowByRow / setBased).isGreaterThan(MIN_SPEEDUP);
+  }
+
+  private static void clear() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("TRUNCATE reservation");
+    }
+  }
+
+  private static long count() throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM reservation")) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+}
@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 
 import com.team3.central.repositories.CategoryRepository;
 import com.team3.central.repositories.entities.Category;
+import com.team3.central.repositories.projections.CategoriesVersion;
 import com.team3.central.services.exceptions.CategoryExistsException;
 import java.util.ArrayList;
 import java.util.List;
@@ -66,6 +67,25 @@ public class CategoriesServiceTest {
         .hasSize(categories.size());
   }
 
+  @Test
+  void categoriesTagIsReadWithoutCategories() {
+    // given
+    List<com.team3.central.openapi.model.Category> categories = List.of(
+        new com.team3.central.openapi.model.Category().id(3L),
+        new com.team3.central.openapi.model.Category().id(8L));
+    CategoriesVersion version = Mockito.mock(CategoriesVersion.class);
+    when(version.getTotal()).thenReturn(2L);
+    when(version.getMaxId()).thenReturn(8L);
+    when(categoryRepository.findVersion()).thenReturn(version);
+
+    // when
+    String etag = categoriesService.getCategoriesTag();
+
+    // then
+    assertThat(etag).isEqualTo(categoriesService.getCategoriesTag(categories))
+        .isNotEqualTo(categoriesService.getCategoriesTag(categories.subList(0, 1)));
+  }
+
   @Test
   void existsByName() {
     // given
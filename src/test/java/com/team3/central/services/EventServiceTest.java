@@ -8,10 +8,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.team3.central.mappers.PlaceEncoding;
 import com.team3.central.openapi.model.EventPatch;
+import com.team3.central.openapi.model.EventWithPlaces;
 import com.team3.central.repositories.CategoryRepository;
+import com.team3.central.repositories.EventPageQuery;
 import com.team3.central.repositories.EventRepository;
 import com.team3.central.repositories.ReservationRepository;
 import com.team3.central.repositories.entities.Category;
@@ -19,11 +25,25 @@ import com.team3.central.repositories.entities.Event;
 import com.team3.central.repositories.entities.OrganizerEntity;
 import com.team3.central.repositories.entities.Reservation;
 import com.team3.central.repositories.entities.enums.EventStatus;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.EventSummary;
+import com.team3.central.repositories.projections.EventVersion;
 import com.team3.central.services.exceptions.EventNotChangedException;
 import com.team3.central.services.exceptions.NoCategoryException;
 import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import com.team3.central.services.journal.SeatChangeJournal;
+import com.team3.central.services.seats.RowSeatStore;
+import com.team3.central.services.seats.SeatChangeFeed;
+import com.team3.central.services.seats.SeatMapCache;
+import com.team3.central.services.seats.SeatStore;
+import com.team3.central.services.seats.SeatStores;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -34,6 +54,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionOperations;
 
 class EventServiceTest {
 
@@ -47,7 +68,17 @@ class EventServiceTest {
     eventRepository = Mockito.mock(EventRepository.class);
     categoryRepository = Mockito.mock(CategoryRepository.class);
     reservationRepository = Mockito.mock(ReservationRepository.class);
-    eventService = new EventService(eventRepository, reservationRepository, categoryRepository);
+    SeatStores seatStores = new SeatStores(
+        List.of(new RowSeatStore(reservationRepository, eventRepository,
+            TransactionOperations.withoutTransaction())), SeatStorage.ROWS);
+    // Cached seat maps expire at once, so every test reads its own event
+    eventService = new EventService(eventRepository, categoryRepository, seatStores,
+        Mockito.mock(SeatChangeJournal.class), new SeatMapCache(10, 0),
+        new SeatChangeFeed(10, 16));
+  }
+
+  private static EventPageQuery pageQuery(EventPageQuery.Sort sort, int limit) {
+    return EventPageQuery.builder().sort(sort).limit(limit).build();
   }
 
   private static Stream<Arguments> testData() {
@@ -91,6 +122,7 @@ class EventServiceTest {
             "longitude", "categories")
         .containsExactly(title, name, freePlace, startTime,
             endTime, latitude, longitude, List.of());
+    verify(reservationRepository).insertFreePlaces(any(), eq(0L), eq(freePlace));
   }
 
   @SneakyThrows
@@ -124,14 +156,13 @@ class EventServiceTest {
         .startTime(startTime)
         .build();
 
-    when(eventRepository.existsById(1L)).thenReturn(true);
     when(eventRepository.findById(id)).thenReturn(Optional.of(event));
 
     // when
-    Optional<com.team3.central.openapi.model.EventWithPlaces> result = eventService.getById(id);
+    TaggedEvent result = eventService.getById(id, PlaceEncoding.LIST);
 
     // then
-    assertThat(result).isPresent().hasValueSatisfying(
+    assertThat(result.getEvent()).satisfies(
         r -> assertThat(r).extracting("title", "name", "freePlace", "startTime", "endTime",
                 "latitude",
                 "longitude", "categories", "placeSchema")
@@ -139,15 +170,52 @@ class EventServiceTest {
                 endTime, latitude, longitude, List.of(), placeSchema));
   }
 
+  @SneakyThrows
+  @Test
+  void placesAreEncodedFromBitmapOfTakenPlaces() {
+    // given
+    final SeatStores seatStores = Mockito.mock(SeatStores.class);
+    final SeatStore seatStore = Mockito.mock(SeatStore.class);
+    final EventService service = new EventService(eventRepository, categoryRepository,
+        seatStores, Mockito.mock(SeatChangeJournal.class), new SeatMapCache(10, 0),
+        Mockito.mock(SeatChangeFeed.class));
+    final Event event = Event.builder()
+        .id(3L)
+        .title("test title")
+        .maxPlace(12L)
+        .freePlace(9L)
+        .categories(Set.of())
+        .status(EventStatus.INFUTURE)
+        .startTime(123L)
+        .endTime(321L)
+        .build();
+    final BitSet takenPlaces = new BitSet();
+    takenPlaces.set(0);
+    takenPlaces.set(9, 11);
+    when(eventRepository.findById(3L)).thenReturn(Optional.of(event));
+    when(seatStores.forEvent(event)).thenReturn(seatStore);
+    when(seatStore.getTakenPlaces(event)).thenReturn(takenPlaces);
+
+    // when
+    EventWithPlaces bitset = service.getById(3L, PlaceEncoding.BITSET).getEvent();
+    EventWithPlaces ranges = service.getById(3L, PlaceEncoding.RANGES).getEvent();
+
+    // then
+    assertThat(bitset.getPlaces()).isNull();
+    assertThat(bitset.getTakenPlaces()).containsExactly(0x01, 0x06);
+    assertThat(ranges.getPlaces()).isNull();
+    assertThat(ranges.getPlaceRanges()).containsExactly(0L, 1L, 8L, 2L, 1L);
+  }
+
   @Test
   void getByNonExistingId() {
     // given
     final Long id = 2L;
-    when(eventRepository.existsById(id)).thenReturn(false);
+    when(eventRepository.findById(id)).thenReturn(Optional.empty());
 
     assertThatThrownBy(() -> {
       // when
-      eventService.getById(id);
+      eventService.getById(id, PlaceEncoding.LIST);
     })
         // then
         .isInstanceOf(NotFoundException.class)
@@ -157,119 +225,203 @@ class EventServiceTest {
   @Test
   void getAllEvents() {
     // given
-    final Long id = 1L;
-    final Long maxPlaces = 12L;
-    final String title = "test title";
-    final String name = "test name";
+    final EventSummary event = new EventSummary(1L, "test title", "test name", 123L, 321L, "12",
+        "-12", 12L, 12L, 0L, EventStatus.INFUTURE, 0L);
+    when(eventRepository.findSummaryPage(argThat(query -> query != null
+        && query.getCategoryId() == null && query.getOrganizerId() == null)))
+        .thenReturn(List.of(event));
+
+    // when
+    EventsPage res = eventService.getAllEvents(pageQuery(EventPageQuery.Sort.ID, 50), null);
+
+    // then
+    assertThat(res.getEvents()).isNotEmpty();
+    assertThat(res.getNextCursor()).isNull();
+  }
+
+  @Test
+  void getAllEventsContinuesAfterLastEventOfPage() {
+    // given
+    final EventSummary first = new EventSummary(1L, "first", "first", 100L, 200L, "12", "-12",
+        12L, 12L, 0L, EventStatus.INFUTURE, 0L);
+    final EventSummary second = new EventSummary(2L, "second", "second", 50L, 200L, "12", "-12",
+        12L, 12L, 0L, EventStatus.INFUTURE, 0L);
+    when(eventRepository.findSummaryPage(argThat(query -> query != null
+        && query.getSort() == EventPageQuery.Sort.START_TIME
+        && query.getAfterId() == null))).thenReturn(List.of(second, first));
+    EventsPage firstPage = eventService.getAllEvents(
+        pageQuery(EventPageQuery.Sort.START_TIME, 1), null);
+
+    // when
+    eventService.getAllEvents(pageQuery(EventPageQuery.Sort.START_TIME, 1),
+        firstPage.getNextCursor());
+
+    // then
+    assertThat(firstPage.getEvents()).hasSize(1);
+    verify(eventRepository).findSummaryPage(argThat(query -> query != null
+        && query.getAfterId() != null && query.getAfterId() == 2L
+        && query.getAfterStartTime() == 50L && query.getLimit() == 2));
+    // Cursor is valid only for the sort it was made with
+    assertThatThrownBy(() -> eventService.getAllEvents(pageQuery(EventPageQuery.Sort.ID, 1),
+        firstPage.getNextCursor())).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> eventService.getAllEvents(pageQuery(EventPageQuery.Sort.ID, 1),
+        "not a cursor")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void listingCallsEachRepositoryMethodOnceWhateverItsSize() {
+    // given
+    final EventRepository repository = Mockito.mock(EventRepository.class);
+    final CategoryRepository categories = Mockito.mock(CategoryRepository.class);
+    final EventService service = new EventService(repository, categories,
+        Mockito.mock(SeatStores.class), Mockito.mock(SeatChangeJournal.class),
+        Mockito.mock(SeatMapCache.class), Mockito.mock(SeatChangeFeed.class));
+    final Category category = new Category(3L, "category name");
+    final List<EventSummary> events = new ArrayList<>();
+    final Map<Long, List<Category>> categoriesOfEvents = new HashMap<>();
+    for (long id = 1; id <= 100; id++) {
+      events.add(new EventSummary(id, "title", "name", 123L, 321L, "12", "-12", 12L, 12L, 0L,
+          EventStatus.INFUTURE, 0L));
+      categoriesOfEvents.put(id, List.of(category));
+    }
+    when(repository.findSummaryPage(any())).thenReturn(events);
+    when(repository.findCategoriesByEventIds(any())).thenReturn(categoriesOfEvents);
+
+    // when
+    EventsPage res = service.getEventsByCategory(3L, pageQuery(EventPageQuery.Sort.ID, 100),
+        null);
+
+    // then
+    assertThat(res.getEvents()).hasSize(100)
+        .allSatisfy(event -> assertThat(event.getCategories()).hasSize(1));
+    // Summaries and categories come from one repository call each, not one call per event
+    verify(repository).findSummaryPage(any());
+    verify(repository).findCategoriesByEventIds(any());
+    Mockito.verifyNoMoreInteractions(repository, categories);
+  }
+
+  @SneakyThrows
+  @Test
+  void eventTagIsReadWithoutEventAndChangesWithVersion() {
+    // given
+    final EventRepository repository = Mockito.mock(EventRepository.class);
+    final EventService service = new EventService(repository, categoryRepository,
+        new SeatStores(List.of(new RowSeatStore(reservationRepository, repository,
+            TransactionOperations.withoutTransaction())),
+            SeatStorage.ROWS), Mockito.mock(SeatChangeJournal.class), new SeatMapCache(10, 0),
+        Mockito.mock(SeatChangeFeed.class));
     final OrganizerEntity organizer = new OrganizerEntity("someName", "some@mail.com", "password");
-    final String placeSchema = "test place schema";
-    final String latitude = "12";
-    final String longitude = "-12";
-    final Long startTime = 123L;
-    final Long endTime = 321L;
     final Event event = Event.builder()
-        .id(id)
-        .title(title)
-        .name(name)
-        .maxPlace(maxPlaces)
-        .reservations(Set.of())
+        .id(1L)
+        .title("test title")
+        .maxPlace(2L)
+        .freePlace(2L)
+        .version(7L)
         .categories(Set.of())
         .organizer(organizer)
         .status(EventStatus.INFUTURE)
-        .placeSchema(placeSchema)
-        .freePlace(maxPlaces)
-        .longitude(longitude)
-        .latitude(latitude)
-        .endTime(endTime)
-        .startTime(startTime)
+        .startTime(123L)
+        .endTime(321L)
         .build();
-    when(eventRepository.findAll()).thenReturn(List.of(event));
+    when(repository.findById(1L)).thenReturn(Optional.of(event));
+    when(repository.findVersionById(1L))
+        .thenReturn(new EventVersion(1L, 7L, EventStatus.INFUTURE, 123L, 321L));
+    final String etag = service.getById(1L, PlaceEncoding.LIST).getEtag();
+
+    // when
+    Optional<String> unchanged = service.getEventTag(1L);
+    service.patchEvent(1L, "some@mail.com", new EventPatch().title("new title"));
+    when(repository.findVersionById(1L))
+        .thenReturn(new EventVersion(1L, 8L, EventStatus.INFUTURE, 123L, 321L));
+    Optional<String> patched = service.getEventTag(1L);
+
+    // then
+    assertThat(unchanged).contains(etag);
+    verify(repository).bumpRevision(1L);
+    assertThat(patched).isPresent().get().isNotEqualTo(etag);
+    assertThat(service.getEventTag(2L)).isEmpty();
+  }
+
+  @Test
+  void pageTagIsReadFromVersionsOnly() {
+    // given
+    final EventRepository repository = Mockito.mock(EventRepository.class);
+    final EventService service = new EventService(repository, categoryRepository,
+        Mockito.mock(SeatStores.class), Mockito.mock(SeatChangeJournal.class),
+        Mockito.mock(SeatMapCache.class), Mockito.mock(SeatChangeFeed.class));
+    when(repository.findSummaryPage(any())).thenReturn(List.of(
+        new EventSummary(1L, "title", "name", 123L, 321L, "12", "-12", 12L, 12L, 0L,
+            EventStatus.INFUTURE, 3L),
+        new EventSummary(2L, "title", "name", 123L, 321L, "12", "-12", 12L, 12L, 0L,
+            EventStatus.INFUTURE, 5L)));
+    when(repository.findCategoriesByEventIds(any())).thenReturn(Map.of());
+    when(repository.findVersionPage(any())).thenReturn(List.of(
+        new EventVersion(1L, 3L, EventStatus.INFUTURE, 123L, 321L),
+        new EventVersion(2L, 5L, EventStatus.INFUTURE, 123L, 321L)));
+    final String etag = service.getAllEvents(pageQuery(EventPageQuery.Sort.ID, 1), null)
+        .getEtag();
 
     // when
-    List<com.team3.central.openapi.model.Event> res = eventService.getAllEvents();
+    String unchanged = service.getAllEventsTag(pageQuery(EventPageQuery.Sort.ID, 1), null);
+    // Change of event after the page does not change the page
+    when(repository.findVersionPage(any())).thenReturn(List.of(
+        new EventVersion(1L, 3L, EventStatus.INFUTURE, 123L, 321L),
+        new EventVersion(2L, 6L, EventStatus.INFUTURE, 123L, 321L)));
+    String afterPageChanged = service.getAllEventsTag(pageQuery(EventPageQuery.Sort.ID, 1), null);
+    when(repository.findVersionPage(any())).thenReturn(List.of(
+        new EventVersion(1L, 4L, EventStatus.INFUTURE, 123L, 321L),
+        new EventVersion(2L, 6L, EventStatus.INFUTURE, 123L, 321L)));
+    String changed = service.getAllEventsTag(pageQuery(EventPageQuery.Sort.ID, 1), null);
 
     // then
-    assertThat(res).isNotEmpty();
+    assertThat(unchanged).isEqualTo(etag);
+    assertThat(afterPageChanged).isEqualTo(etag);
+    assertThat(changed).isNotEqualTo(etag);
   }
 
   @Test
   void getEventsByCategory() {
-    final Long id = 1L;
-    final Long maxPlaces = 12L;
-    final String title = "test title";
-    final String name = "test name";
-    final OrganizerEntity organizer = new OrganizerEntity("someName", "some@mail.com", "password");
-    final String placeSchema = "test place schema";
-    final String latitude = "12";
-    final String longitude = "-12";
-    final Long startTime = 123L;
-    final Long endTime = 321L;
-    final Category category = new Category();
-    category.setId(1L);
-    category.setName("category name");
-    final Event event = Event.builder()
-        .id(id)
-        .title(title)
-        .name(name)
-        .maxPlace(maxPlaces)
-        .reservations(Set.of())
-        .categories(Set.of(category))
-        .organizer(organizer)
-        .status(EventStatus.INFUTURE)
-        .placeSchema(placeSchema)
-        .freePlace(maxPlaces)
-        .longitude(longitude)
-        .latitude(latitude)
-        .endTime(endTime)
-        .startTime(startTime)
-        .build();
-    when(categoryRepository.findById(1L)).thenReturn(category);
-    when(eventRepository.findByCategories(category)).thenReturn(List.of(event));
+    // given
+    final EventSummary event = new EventSummary(1L, "test title", "test name", 123L, 321L, "12",
+        "-12", 12L, 12L, 0L, EventStatus.INFUTURE, 0L);
+    when(eventRepository.findSummaryPage(argThat(query -> query != null
+        && query.getCategoryId() != null && query.getCategoryId() == 1L)))
+        .thenReturn(List.of(event));
+    when(eventRepository.findCategoriesByEventIds(List.of(1L)))
+        .thenReturn(Map.of(1L, List.of(new Category(1L, "category name"))));
 
     // when
-    List<com.team3.central.openapi.model.Event> res = eventService.getEventsByCategory(1L);
+    EventsPage res = eventService.getEventsByCategory(1L, pageQuery(EventPageQuery.Sort.ID, 50),
+        null);
 
     // then
-    assertThat(res).isNotEmpty();
+    assertThat(res.getEvents()).isNotEmpty();
+    assertThat(res.getEvents().get(0).getCategories()).hasSize(1);
   }
 
   @Test
-  void getForUser() {
-    final Long id = 1L;
-    final Long maxPlaces = 12L;
-    final String title = "test title";
-    final String name = "test name";
+  void getForOrganizer() {
+    // given
     final Long organizerId = 21L;
-    final OrganizerEntity organizer = new OrganizerEntity("someName", "some@mail.com", "password");
-    organizer.setId(organizerId);
-    final String placeSchema = "test place schema";
-    final String latitude = "12";
-    final String longitude = "-12";
-    final Long startTime = 123L;
-    final Long endTime = 321L;
-    final Event event = Event.builder()
-        .id(id)
-        .title(title)
-        .name(name)
-        .maxPlace(maxPlaces)
-        .reservations(Set.of())
-        .categories(Set.of())
-        .organizer(organizer)
-        .status(EventStatus.INFUTURE)
-        .placeSchema(placeSchema)
-        .freePlace(maxPlaces)
-        .longitude(longitude)
-        .latitude(latitude)
-        .endTime(endTime)
-        .startTime(startTime)
-        .build();
-    when(eventRepository.findAll()).thenReturn(List.of(event));
+    final Category category = new Category(3L, "category name");
+    final EventSummary first = new EventSummary(1L, "test title", "test name", 123L, 321L, "12",
+        "-12", 12L, 12L, -2L, EventStatus.INFUTURE, 0L);
+    final EventSummary second = new EventSummary(2L, "test title", "test name", 123L, 321L, "12",
+        "-12", 12L, 12L, 0L, EventStatus.INFUTURE, 0L);
+    when(eventRepository.findSummaryPage(argThat(query -> query != null
+        && organizerId.equals(query.getOrganizerId())))).thenReturn(List.of(first, second));
+    when(eventRepository.findCategoriesByEventIds(List.of(1L, 2L)))
+        .thenReturn(Map.of(1L, List.of(category)));
 
     // when
-    List<com.team3.central.openapi.model.Event> res = eventService.getForUser("some@mail.com");
+    EventsPage res = eventService.getForOrganizer(organizerId,
+        pageQuery(EventPageQuery.Sort.ID, 50), null);
 
     // then
-    assertThat(res).isNotEmpty();
+    assertThat(res.getEvents()).hasSize(2);
+    assertThat(res.getEvents().get(0).getFreePlace()).isEqualTo(10L);
+    assertThat(res.getEvents().get(0).getCategories()).hasSize(1);
+    assertThat(res.getEvents().get(1).getCategories()).isEmpty();
   }
 
   @Test
@@ -353,7 +505,8 @@ class EventServiceTest {
 
   @Test
   public void patchEventValid()
-      throws NotFoundException, NoCategoryException, EventNotChangedException {
+      throws NotFoundException, NoCategoryException, EventNotChangedException,
+      ReservedPlacesException {
     // given
     Long eventId = 1L;
     String organizerEmail = "organizer@example.com";
@@ -396,6 +549,61 @@ class EventServiceTest {
     eventService.patchEvent(eventId, organizerEmail, eventPatch);
   }
 
+  @SneakyThrows
+  @Test
+  public void patchEventIncreasingMaxPlaceAddsOnlyNewPlaces() {
+    // given
+    Long eventId = 4L;
+    String organizerEmail = "organizer@example.com";
+    EventPatch eventPatch = new EventPatch().maxPlace(15L);
+
+    OrganizerEntity organizer = new OrganizerEntity();
+    organizer.setEmail(organizerEmail);
+
+    Event event = Event.builder()
+        .id(eventId)
+        .maxPlace(10L)
+        .organizer(organizer)
+        .status(EventStatus.INFUTURE)
+        .build();
+
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+
+    // when
+    eventService.patchEvent(eventId, organizerEmail, eventPatch);
+
+    // then
+    verify(eventRepository).updateMaxPlace(eventId, 15L);
+    verify(reservationRepository).insertFreePlaces(eventId, 10L, 15L);
+    assertThat(event.getMaxPlace()).isEqualTo(15L);
+  }
+
+  @Test
+  public void patchEventDecreasingMaxPlaceBelowReservedPlace() {
+    // given
+    Long eventId = 3L;
+    String organizerEmail = "organizer@example.com";
+    EventPatch eventPatch = new EventPatch().maxPlace(10L);
+
+    OrganizerEntity organizer = new OrganizerEntity();
+    organizer.setEmail(organizerEmail);
+
+    Event event = Event.builder()
+        .id(eventId)
+        .maxPlace(100L)
+        .organizer(organizer)
+        .status(EventStatus.INFUTURE)
+        .build();
+
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.countByEventIdAndPlaceOnSchemaGreaterThanEqual(eventId, 10L))
+        .thenReturn(2L);
+
+    // when & then
+    assertThatThrownBy(() -> eventService.patchEvent(eventId, organizerEmail, eventPatch))
+        .isInstanceOf(ReservedPlacesException.class);
+  }
+
   @Test
   public void patchEventWithInvalidEventId() {
     // given
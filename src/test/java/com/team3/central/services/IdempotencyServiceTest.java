@@ -0,0 +1,142 @@
+package com.team3.central.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.services.exceptions.IdempotencyKeyReusedException;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.RequestInProgressException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyServiceTest {
+
+  private Clock clock;
+  private IdempotencyService idempotencyService;
+  private AtomicInteger calls;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    idempotencyService = new IdempotencyService(Duration.ofMinutes(1), 2, Duration.ofMillis(50),
+        clock);
+    calls = new AtomicInteger();
+  }
+
+  @Test
+  void retryReturnsFirstResult() throws Exception {
+    // when
+    Integer first = idempotencyService.execute("op", "key", "1", calls::incrementAndGet);
+    Integer retry = idempotencyService.execute("op", "key", "1", calls::incrementAndGet);
+
+    // then
+    assertThat(first).isEqualTo(1);
+    assertThat(retry).isEqualTo(1);
+    assertThat(calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  void requestWithoutKeyIsAlwaysRun() throws Exception {
+    // when
+    idempotencyService.execute("op", null, "1", calls::incrementAndGet);
+    idempotencyService.execute("op", null, "1", calls::incrementAndGet);
+
+    // then
+    assertThat(calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  void keyUsedForOtherRequest() throws Exception {
+    // given
+    idempotencyService.execute("op", "key", "1", calls::incrementAndGet);
+
+    // when & then
+    assertThatThrownBy(() -> idempotencyService.execute("op", "key", "2", calls::incrementAndGet))
+        .isInstanceOf(IdempotencyKeyReusedException.class);
+    assertThat(calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  void failedRequestIsRunAgain() throws Exception {
+    // given
+    assertThatThrownBy(() -> idempotencyService.execute("op", "key", "1", () -> {
+      throw new NoFreePlaceException("No free place");
+    })).isInstanceOf(NoFreePlaceException.class);
+
+    // when
+    Integer retry = idempotencyService.execute("op", "key", "1", calls::incrementAndGet);
+
+    // then
+    assertThat(retry).isEqualTo(1);
+  }
+
+  @Test
+  void expiredKeyIsForgotten() throws Exception {
+    // given
+    idempotencyService.execute("op", "key", "1", calls::incrementAndGet);
+    when(clock.millis()).thenReturn(Duration.ofMinutes(2).toMillis());
+
+    // when
+    Integer retry = idempotencyService.execute("op", "key", "1", calls::incrementAndGet);
+
+    // then
+    assertThat(retry).isEqualTo(2);
+  }
+
+  @Test
+  void oldestKeyIsDroppedOverLimit() throws Exception {
+    // given
+    idempotencyService.execute("op", "first", "1", calls::incrementAndGet);
+    idempotencyService.execute("op", "second", "1", calls::incrementAndGet);
+    idempotencyService.execute("op", "third", "1", calls::incrementAndGet);
+
+    // when
+    Integer first = idempotencyService.execute("op", "first", "1", calls::incrementAndGet);
+    Integer third = idempotencyService.execute("op", "third", "1", calls::incrementAndGet);
+
+    // then
+    assertThat(first).isEqualTo(4);
+    assertThat(third).isEqualTo(3);
+  }
+
+  @Test
+  void tooLongKey() {
+    // when & then
+    assertThatThrownBy(() -> idempotencyService.execute("op",
+        "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), "1", calls::incrementAndGet))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void retryDoesNotWaitForStuckRequestForever() throws Exception {
+    // given
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Integer> first = executor.submit(() -> idempotencyService.execute("op", "key", "1",
+        () -> {
+          started.countDown();
+          release.await();
+          return calls.incrementAndGet();
+        }));
+    started.await();
+
+    // when & then
+    assertThatThrownBy(() -> idempotencyService.execute("op", "key", "1", calls::incrementAndGet))
+        .isInstanceOf(RequestInProgressException.class);
+    release.countDown();
+    assertThat(first.get()).isEqualTo(1);
+    assertThat(idempotencyService.execute("op", "key", "1", calls::incrementAndGet)).isEqualTo(1);
+    executor.shutdown();
+  }
+}
@@ -1,7 +1,18 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.team3.central.repositories.EventRepository;
@@ -9,20 +20,40 @@ import com.team3.central.repositories.ReservationRepository;
 import com.team3.central.repositories.entities.Event;
 import com.team3.central.repositories.entities.Reservation;
 import com.team3.central.repositories.entities.enums.EventStatus;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.CancelledReservation;
 import com.team3.central.services.ReservationService;
+import com.team3.central.services.ReservationTokenService;
 import com.team3.central.services.exceptions.NoFreePlaceException;
 import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.journal.SeatChangeJournal;
+import com.team3.central.services.seats.RowSeatStore;
+import com.team3.central.services.seats.SeatLayouts;
+import com.team3.central.services.seats.SeatMapCache;
+import com.team3.central.services.seats.SeatStores;
+import com.team3.central.services.waitlist.FreedPlaces;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.transaction.support.TransactionOperations;
 
 public class ReservationServiceTest {
 
   private ReservationRepository reservationRepository;
   private EventRepository eventRepository;
+  private SeatStores seatStores;
+  private SeatLayouts seatLayouts;
+  private FreedPlaces freedPlaces;
+  private SeatChangeJournal seatChangeJournal;
+  private SeatMapCache seatMapCache;
   private ReservationService reservationService;
 
   private static Stream<Arguments> testData() {
@@ -36,7 +67,16 @@ public class ReservationServiceTest {
   public void setUp() {
     reservationRepository = mock(ReservationRepository.class);
     eventRepository = mock(EventRepository.class);
-    reservationService = new ReservationService(reservationRepository, eventRepository);
+    seatStores = new SeatStores(
+        List.of(new RowSeatStore(reservationRepository, eventRepository,
+            TransactionOperations.withoutTransaction())), SeatStorage.ROWS);
+    seatLayouts = new SeatLayouts(10);
+    freedPlaces = mock(FreedPlaces.class);
+    seatChangeJournal = mock(SeatChangeJournal.class);
+    seatMapCache = mock(SeatMapCache.class);
+    reservationService = new ReservationService(reservationRepository, eventRepository,
+        seatStores, seatLayouts, freedPlaces, seatChangeJournal,
+        new ReservationTokenService(""), seatMapCache, 0L);
   }
 
   @Test
@@ -52,11 +92,31 @@ public class ReservationServiceTest {
     // when
     when(reservationRepository.findByReservationToken(reservationToken))
         .thenReturn(reservation);
+    when(reservationRepository.releaseReservation(any(), eq(reservationToken))).thenReturn(1);
 
     reservationService.deleteReservation(reservationToken);
 
     // then
     assertNull(reservation.getReservationToken());
+    verify(eventRepository).changeFreePlace(any(), eq(1L));
+  }
+
+  @Test
+  public void deleteReservationCancelledConcurrently() {
+    // given
+    String reservationToken = "reservationToken";
+    Reservation reservation = new Reservation();
+    reservation.setEvent(new Event());
+    reservation.setReservationToken(reservationToken);
+
+    // when & then
+    when(reservationRepository.findByReservationToken(reservationToken))
+        .thenReturn(reservation);
+    when(reservationRepository.releaseReservation(any(), eq(reservationToken))).thenReturn(0);
+
+    assertThrows(NotFoundException.class, () -> {
+      reservationService.deleteReservation(reservationToken);
+    });
   }
 
   @Test
@@ -73,23 +133,172 @@ public class ReservationServiceTest {
   }
 
   @Test
-  public void makeReservationWithoutPlaceIdSuccess()
-      throws NotFoundException, NoFreePlaceException {
+  public void deleteReservationWithSignedTokenIsNotLookedUp() throws NotFoundException {
     // given
-    Long eventId = 1L;
+    ReservationTokenService reservationTokenService = new ReservationTokenService("secret");
+    reservationService = new ReservationService(reservationRepository, eventRepository,
+        seatStores, seatLayouts, freedPlaces, seatChangeJournal,
+        reservationTokenService, seatMapCache, 0L);
+    String reservationToken = reservationTokenService.newToken(1L, SeatStorage.ROWS);
+
+    // when
+    when(reservationRepository.releaseReservationByToken(1L, reservationToken)).thenReturn(3L);
+
+    reservationService.deleteReservation(reservationToken);
+
+    // then
+    verify(reservationRepository, never()).findByReservationToken(any());
+    verify(eventRepository).changeFreePlace(1L, 1L);
+    verify(freedPlaces).freed(1L);
+  }
+
+  @Test
+  public void deleteReservationWithForgedTokenIsNotLookedUp() {
+    // given
+    reservationService = new ReservationService(reservationRepository, eventRepository,
+        seatStores, seatLayouts, freedPlaces, seatChangeJournal,
+        new ReservationTokenService("secret"), seatMapCache, 0L);
+    String reservationToken = new ReservationTokenService("other").newToken(1L, SeatStorage.ROWS);
+
+    // when & then
+    assertThrows(NotFoundException.class, () -> {
+      reservationService.deleteReservation(reservationToken);
+    });
+    verify(reservationRepository, never()).findByReservationToken(any());
+  }
+
+  @Test
+  public void deleteReservationsChangesFreePlaceOncePerEvent() {
+    // given
+    ReservationTokenService reservationTokenService = new ReservationTokenService("secret");
+    reservationService = new ReservationService(reservationRepository, eventRepository,
+        seatStores, seatLayouts, freedPlaces, seatChangeJournal,
+        reservationTokenService, seatMapCache, 0L);
+    String first = reservationTokenService.newToken(1L, SeatStorage.ROWS);
+    String second = reservationTokenService.newToken(1L, SeatStorage.ROWS);
+    String missing = reservationTokenService.newToken(1L, SeatStorage.ROWS);
+    String forged = new ReservationTokenService("other").newToken(1L, SeatStorage.ROWS);
+    List<CancelledReservation> cancelled = Stream.of(first, second).map(token -> {
+      CancelledReservation reservation = mock(CancelledReservation.class);
+      when(reservation.getReservationToken()).thenReturn(token);
+      when(reservation.getEventId()).thenReturn(1L);
+      return reservation;
+    }).collect(Collectors.toList());
+
+    // when
+    when(reservationRepository.releaseReservationsByTokens(List.of(first, second, missing)))
+        .thenReturn(cancelled);
+
+    Set<String> cancelledTokens =
+        reservationService.deleteReservations(List.of(first, second, missing, forged));
+
+    // then
+    assertEquals(Set.of(first, second), cancelledTokens);
+    verify(eventRepository).changeFreePlace(1L, 2L);
+    verify(reservationRepository, never()).findByReservationTokenIn(any());
+  }
+
+  @Test
+  public void confirmReservationSuccess() throws NotFoundException {
+    // given
+    String reservationToken = "reservationToken";
     Reservation reservation = new Reservation();
     reservation.setEvent(new Event());
-    reservation.getEvent().setId(eventId);
-    reservation.getEvent().setFreePlace(5L);
+    reservation.setReservationToken(reservationToken);
+    reservation.setHoldUntil(Long.MAX_VALUE);
 
     // when
-    when(reservationRepository.findFirstByEventIdAndReservationTokenIsNull(eventId))
+    when(reservationRepository.findByReservationToken(reservationToken))
+        .thenReturn(reservation);
+    when(reservationRepository.confirmReservation(any(), eq(reservationToken), anyLong()))
+        .thenReturn(1);
+
+    Reservation result = reservationService.confirmReservation(reservationToken);
+
+    // then
+    assertNull(result.getHoldUntil());
+  }
+
+  @Test
+  public void confirmReservationHoldExpired() {
+    // given
+    String reservationToken = "reservationToken";
+    Reservation reservation = new Reservation();
+    reservation.setEvent(new Event());
+    reservation.setReservationToken(reservationToken);
+    reservation.setHoldUntil(0L);
+
+    // when & then
+    when(reservationRepository.findByReservationToken(reservationToken))
         .thenReturn(reservation);
+    when(reservationRepository.confirmReservation(any(), eq(reservationToken), anyLong()))
+        .thenReturn(0);
+
+    assertThrows(NotFoundException.class, () -> {
+      reservationService.confirmReservation(reservationToken);
+    });
+  }
+
+  @Test
+  public void isConfirmedOnlyForReservationWithoutHold() {
+    // given
+    Reservation hold = new Reservation();
+    hold.setEvent(new Event());
+    hold.setHoldUntil(Long.MAX_VALUE);
+    Reservation confirmed = new Reservation();
+    confirmed.setEvent(new Event());
+
+    // when
+    when(reservationRepository.findByReservationToken("hold")).thenReturn(hold);
+    when(reservationRepository.findByReservationToken("confirmed")).thenReturn(confirmed);
+
+    // then
+    assertTrue(reservationService.isConfirmed("confirmed"));
+    assertFalse(reservationService.isConfirmed("hold"));
+    assertFalse(reservationService.isConfirmed("missing"));
+  }
+
+  @Test
+  public void makeReservationWithoutPlaceIdSuccess()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setFreePlace(5L);
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimFirstFreePlace(eq(eventId), anyString(), anyLong()))
+        .thenReturn(2L);
 
     Reservation result = reservationService.makeReservation(eventId, null);
 
     // then
     assertNotNull(result.getReservationToken());
+    assertEquals(2L, result.getPlaceOnSchema());
+    verify(eventRepository).changeFreePlace(eventId, -1L);
+  }
+
+  @Test
+  public void makeReservationWithoutPlaceIdRetriesWhenPlaceWasTakenMeanwhile()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimFirstFreePlace(eq(eventId), anyString(), anyLong()))
+        .thenReturn(null, 3L);
+    when(reservationRepository.existsByEventIdAndReservationTokenIsNull(eventId))
+        .thenReturn(true);
+
+    Reservation result = reservationService.makeReservation(eventId, null);
+
+    // then
+    assertEquals(3L, result.getPlaceOnSchema());
   }
 
   @Test
@@ -102,18 +311,17 @@ public class ReservationServiceTest {
     event.setId(eventId);
     event.setFreePlace(5L);
 
-    Reservation reservation = new Reservation();
-    reservation.setReservationToken(null);
-    reservation.setEvent(event);
-
     // when
-    when(reservationRepository.findByEventIdAndPlaceOnSchema(eventId, placeId)).thenReturn(
-        reservation);
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimPlace(eq(eventId), eq(placeId), anyString(), anyLong()))
+        .thenReturn(1);
 
     Reservation result = reservationService.makeReservation(eventId, placeId);
 
     // then
     assertNotNull(result.getReservationToken());
+    assertEquals(placeId, result.getPlaceOnSchema());
+    verify(eventRepository).changeFreePlace(eventId, -1L);
   }
 
   @Test
@@ -122,9 +330,15 @@ public class ReservationServiceTest {
     Long eventId = 1L;
     Long placeId = null;
 
+    Event event = new Event();
+    event.setId(eventId);
+
     // when
-    when(reservationRepository.findFirstByEventIdAndReservationTokenIsNull(eventId)).thenReturn(
-        null);
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimFirstFreePlace(eq(eventId), anyString(), anyLong()))
+        .thenReturn(null);
+    when(reservationRepository.existsByEventIdAndReservationTokenIsNull(eventId))
+        .thenReturn(false);
 
     // then
     assertThrows(NotFoundException.class,
@@ -141,13 +355,12 @@ public class ReservationServiceTest {
     event.setId(eventId);
     event.setFreePlace(5L);
 
-    Reservation reservation = new Reservation();
-    reservation.setReservationToken("token");
-    reservation.setEvent(event);
-
     // when & then
-    when(reservationRepository.findByEventIdAndPlaceOnSchema(eventId, placeId)).thenReturn(
-        reservation);
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimPlace(eq(eventId), eq(placeId), anyString(), anyLong()))
+        .thenReturn(0);
+    when(reservationRepository.existsByEventIdAndPlaceOnSchema(eventId, placeId))
+        .thenReturn(true);
 
     assertThrows(NoFreePlaceException.class, () -> {
       reservationService.makeReservation(eventId, placeId);
@@ -164,12 +377,12 @@ public class ReservationServiceTest {
     event.setId(eventId);
     event.setFreePlace(5L);
 
-    Reservation reservation = new Reservation();
-    reservation.setReservationToken("token");
-    reservation.setEvent(event);
-
     // when & then
-    when(reservationRepository.findByEventIdAndPlaceOnSchema(eventId, placeId)).thenReturn(null);
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimPlace(eq(eventId), eq(placeId), anyString(), anyLong()))
+        .thenReturn(0);
+    when(reservationRepository.existsByEventIdAndPlaceOnSchema(eventId, placeId))
+        .thenReturn(false);
 
     assertThrows(NotFoundException.class, () -> {
       reservationService.makeReservation(eventId, placeId);
@@ -188,15 +401,210 @@ public class ReservationServiceTest {
     event.setFreePlace(5L);
     event.setStatus(eventStatus);
 
-    Reservation reservation = new Reservation();
-    reservation.setEvent(event);
-
     // when & then
-    when(reservationRepository.findByEventIdAndPlaceOnSchema(eventId, placeId)).thenReturn(
-        reservation);
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
 
     assertThrows(NotFoundException.class, () -> {
       reservationService.makeReservation(eventId, placeId);
     });
   }
-}
\ No newline at end of file
+
+  @Test
+  public void makeReservationsOfChosenPlaces() throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(10L);
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(1);
+
+    List<Reservation> result = reservationService.makeReservations(eventId, List.of(7L, 5L),
+        null, false);
+
+    // then
+    assertEquals(List.of(5L, 7L), placesOf(result));
+    assertNotEquals(result.get(0).getReservationToken(), result.get(1).getReservationToken());
+  }
+
+  @Test
+  public void makeReservationsByCountTakesFirstFreePlaces()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(6L);
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.findReservedPlaces(eventId)).thenReturn(List.of(0L, 2L));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(1);
+
+    List<Reservation> result = reservationService.makeReservations(eventId, null, 3, false);
+
+    // then
+    assertEquals(List.of(1L, 3L, 4L), placesOf(result));
+  }
+
+  @Test
+  public void makeReservationsOfContiguousPlacesKeepsToOneRow()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(6L);
+    event.setPlaceSchema("{\"rows\": [3, 3]}");
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.findReservedPlaces(eventId)).thenReturn(List.of(1L));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(1);
+
+    List<Reservation> result = reservationService.makeReservations(eventId, null, 3, true);
+
+    // then
+    assertEquals(List.of(3L, 4L, 5L), placesOf(result));
+  }
+
+  @Test
+  public void makeReservationsTakesBestPlacesOfPlaceSchema()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(12L);
+    event.setPlaceSchema("{\"rows\": [{\"seats\": 6}, {\"seats\": 6, \"quality\": 1}]}");
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.findReservedPlaces(eventId)).thenReturn(List.of(8L));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(1);
+
+    List<Reservation> result = reservationService.makeReservations(eventId, null, 2, false);
+
+    // then
+    assertEquals(List.of(9L, 10L), placesOf(result));
+  }
+
+  @Test
+  public void makeReservationWithoutPlaceIdTakesOneOfBestPlaces()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(20L);
+    event.setPlaceSchema("{\"rows\": [10, 10]}");
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.findReservedPlaces(eventId)).thenReturn(List.of(4L));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(1);
+
+    Reservation result = reservationService.makeReservation(eventId, null);
+
+    // then
+    // Best places are the free ones of the first row, nearest to its middle
+    assertTrue(result.getPlaceOnSchema() < 10L && result.getPlaceOnSchema() != 4L);
+    verify(reservationRepository, never()).claimFirstFreePlace(any(), any(), anyLong());
+  }
+
+  @Test
+  public void makeReservationWithoutPlaceIdTakesAnyPlaceWhenChosenOneWasTaken()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(10L);
+    event.setPlaceSchema("{\"rows\": [5, 5]}");
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(seatMapCache.getTakenPlaces(eventId)).thenReturn(Optional.of(new BitSet()));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(0);
+    when(reservationRepository.existsByEventIdAndPlaceOnSchema(eq(eventId), anyLong()))
+        .thenReturn(true);
+    when(reservationRepository.claimFirstFreePlace(eq(eventId), anyString(), anyLong()))
+        .thenReturn(7L);
+
+    Reservation result = reservationService.makeReservation(eventId, null);
+
+    // then
+    assertEquals(7L, result.getPlaceOnSchema());
+    verify(reservationRepository, times(1)).claimPlace(eq(eventId), anyLong(), anyString(),
+        anyLong());
+    verify(reservationRepository, never()).findReservedPlaces(eventId);
+  }
+
+  @Test
+  public void makeReservationsChoosesAgainWhenPlaceWasTakenMeanwhile()
+      throws NotFoundException, NoFreePlaceException {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(6L);
+
+    // when
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.findReservedPlaces(eventId)).thenReturn(List.of(), List.of(0L));
+    when(reservationRepository.claimPlace(eq(eventId), anyLong(), anyString(), anyLong()))
+        .thenReturn(1);
+    when(reservationRepository.claimPlace(eq(eventId), eq(0L), anyString(), anyLong()))
+        .thenReturn(0);
+    when(reservationRepository.existsByEventIdAndPlaceOnSchema(eventId, 0L)).thenReturn(true);
+
+    List<Reservation> result = reservationService.makeReservations(eventId, null, 2, false);
+
+    // then
+    assertEquals(List.of(1L, 2L), placesOf(result));
+  }
+
+  @Test
+  public void makeReservationsWithNotEnoughFreePlaces() {
+    // given
+    Long eventId = 1L;
+    Event event = new Event();
+    event.setId(eventId);
+    event.setMaxPlace(5L);
+
+    // when & then
+    when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+    when(reservationRepository.findReservedPlaces(eventId))
+        .thenReturn(List.of(0L, 1L, 2L, 3L));
+
+    assertThrows(NoFreePlaceException.class, () -> {
+      reservationService.makeReservations(eventId, null, 2, false);
+    });
+  }
+
+  @Test
+  public void makeReservationOnNotExistingEvent() {
+    // given
+    Long eventId = 7L;
+
+    // when & then
+    when(eventRepository.findById(eventId)).thenReturn(Optional.empty());
+
+    assertThrows(NotFoundException.class, () -> {
+      reservationService.makeReservation(eventId, 1L);
+    });
+  }
+
+  private static List<Long> placesOf(List<Reservation> reservations) {
+    return reservations.stream().map(Reservation::getPlaceOnSchema)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,48 @@
+package com.team3.central.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.ReservationTokenService.SignedToken;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ReservationTokenServiceTest {
+
+  private final ReservationTokenService reservationTokenService =
+      new ReservationTokenService("secret");
+
+  @Test
+  void tokenTellsEventAndStorage() {
+    // given
+    String token = reservationTokenService.newToken(123456789L, SeatStorage.BITMAP);
+
+    // when
+    SignedToken signedToken = reservationTokenService.verify(token).orElseThrow();
+
+    // then
+    assertThat(token.length()).isLessThanOrEqualTo(36);
+    assertThat(signedToken.getEventId()).isEqualTo(123456789L);
+    assertThat(signedToken.getStorage()).isEqualTo(SeatStorage.BITMAP);
+  }
+
+  @Test
+  void tokenSignedWithOtherSecretIsRejected() {
+    // given
+    String token = new ReservationTokenService("other").newToken(1L, SeatStorage.ROWS);
+
+    // when & then
+    assertThat(reservationTokenService.verify(token)).isEmpty();
+    assertThat(reservationTokenService.mayBeUnsigned(token)).isFalse();
+  }
+
+  @Test
+  void uuidTokenIsLookedUp() {
+    // given
+    String token = UUID.randomUUID().toString();
+
+    // when & then
+    assertThat(reservationTokenService.verify(token)).isEmpty();
+    assertThat(reservationTokenService.mayBeUnsigned(token)).isTrue();
+  }
+}
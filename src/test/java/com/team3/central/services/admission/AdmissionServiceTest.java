@@ -0,0 +1,155 @@
+package com.team3.central.services.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotAdmittedException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.SoldOutException;
+import java.time.Clock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdmissionServiceTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private EventRepository eventRepository;
+  private Clock clock;
+  private AdmissionService admissionService;
+
+  @BeforeEach
+  void setUp() {
+    eventRepository = mock(EventRepository.class);
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    when(eventRepository.findOpenEventFreePlace(EVENT_ID)).thenReturn(100L);
+    // One buyer per second, at most two at once
+    admissionService = new AdmissionService(eventRepository, 1, 2, 60000, 1000, 30, clock);
+  }
+
+  @Test
+  void buyersAreAdmittedInOrderAtRate() throws Exception {
+    // given
+    // Burst is taken by the first two
+    admissionService.join(EVENT_ID);
+    admissionService.join(EVENT_ID);
+    QueuePosition first = admissionService.join(EVENT_ID);
+    QueuePosition second = admissionService.join(EVENT_ID);
+
+    // when
+    when(clock.millis()).thenReturn(1000L);
+    QueuePosition firstLater = admissionService.getPosition(first.getTicket());
+    QueuePosition secondLater = admissionService.getPosition(second.getTicket());
+
+    // then
+    assertThat(first.isAdmitted()).isFalse();
+    assertThat(second.getPlaceInLine()).isEqualTo(2);
+    assertThat(firstLater.isAdmitted()).isTrue();
+    assertThat(secondLater.getPlaceInLine()).isEqualTo(1);
+    assertThat(secondLater.getRetryAfter()).isEqualTo(1);
+  }
+
+  @Test
+  void walkInWaitsWhileOthersQueue() throws Exception {
+    // given
+    admissionService.join(EVENT_ID);
+    admissionService.join(EVENT_ID);
+
+    // when
+    admissionService.join(EVENT_ID);
+
+    // then
+    assertThatThrownBy(() -> admissionService.admit(EVENT_ID, null, () -> "walk in"))
+        .isInstanceOf(NotAdmittedException.class)
+        .hasMessage("Buyers are waiting, join queue");
+  }
+
+  @Test
+  void walkInsAreNotLimitedUntilQueueIsUsed() throws Exception {
+    // when
+    for (int i = 0; i < 5; i++) {
+      admissionService.admit(EVENT_ID, null, () -> "walk in");
+    }
+    admissionService.join(EVENT_ID);
+    admissionService.join(EVENT_ID);
+
+    // then
+    assertThatThrownBy(() -> admissionService.admit(EVENT_ID, null, () -> "walk in"))
+        .isInstanceOf(NotAdmittedException.class)
+        .hasMessage("Too many buyers at once, join queue");
+  }
+
+  @Test
+  void admittedTicketIsUsedOnce() throws Exception {
+    // given
+    String ticket = admissionService.join(EVENT_ID).getTicket();
+
+    // when
+    String reservation = admissionService.admit(EVENT_ID, ticket, () -> "reserved");
+
+    // then
+    assertThat(reservation).isEqualTo("reserved");
+    assertThatThrownBy(() -> admissionService.admit(EVENT_ID, ticket, () -> "again"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void ticketIsGivenBackWhenPlaceIsTaken() throws Exception {
+    // given
+    String ticket = admissionService.join(EVENT_ID).getTicket();
+    assertThatThrownBy(() -> admissionService.admit(EVENT_ID, ticket, () -> {
+      throw new NoFreePlaceException("Place is taken");
+    })).isInstanceOf(NoFreePlaceException.class);
+
+    // when
+    String reservation = admissionService.admit(EVENT_ID, ticket, () -> "other place");
+
+    // then
+    assertThat(reservation).isEqualTo("other place");
+  }
+
+  @Test
+  void forgedTicketIsRejected() throws Exception {
+    // given
+    admissionService.join(EVENT_ID);
+    String[] fields = admissionService.join(EVENT_ID).getTicket().split("\\.");
+    // Moved to the front of queue
+    String forged = fields[0] + ".0." + fields[2] + "." + fields[3];
+
+    // when & then
+    assertThatThrownBy(() -> admissionService.getPosition(forged))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> admissionService.getPosition("1.0.0"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void soldOutEventIsRejectedWithoutQueue() {
+    // given
+    when(eventRepository.findOpenEventFreePlace(EVENT_ID)).thenReturn(0L);
+
+    // when & then
+    assertThatThrownBy(() -> admissionService.join(EVENT_ID))
+        .isInstanceOf(SoldOutException.class);
+    assertThatThrownBy(() -> admissionService.admit(EVENT_ID, null, () -> "walk in"))
+        .isInstanceOf(SoldOutException.class);
+    verify(eventRepository, times(1)).findOpenEventFreePlace(EVENT_ID);
+  }
+
+  @Test
+  void missingEvent() {
+    // given
+    when(eventRepository.findOpenEventFreePlace(EVENT_ID)).thenReturn(null);
+
+    // when & then
+    assertThatThrownBy(() -> admissionService.join(EVENT_ID))
+        .isInstanceOf(NotFoundException.class);
+  }
+}
@@ -0,0 +1,84 @@
+package com.team3.central.services.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.SeatChangeRepository;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SeatChangeJournalTest {
+
+  private SeatChangeRepository seatChangeRepository;
+  private SeatChangeJournal seatChangeJournal;
+  // Sizes of saved batches
+  private final List<Integer> batches = new ArrayList<>();
+  private boolean databaseDown;
+
+  @BeforeEach
+  void setUp() {
+    seatChangeRepository = mock(SeatChangeRepository.class);
+    when(seatChangeRepository.saveAll(any())).thenAnswer(invocation -> {
+      if (databaseDown) {
+        throw new IllegalStateException("No database");
+      }
+      batches.add(((List<?>) invocation.getArgument(0)).size());
+      return invocation.getArgument(0);
+    });
+    seatChangeJournal = new SeatChangeJournal(seatChangeRepository, 2, 3, mock(Clock.class));
+  }
+
+  @Test
+  void changesAreWrittenInBatches() {
+    // given
+    seatChangeJournal.cancelled(1L, "first");
+    seatChangeJournal.cancelled(1L, "second");
+    seatChangeJournal.cancelled(2L, "third");
+
+    // when
+    seatChangeJournal.flush();
+
+    // then
+    assertThat(batches).containsExactly(2, 1);
+  }
+
+  @Test
+  void changesAreKeptWhenWritingFails() {
+    // given
+    seatChangeJournal.resized(1L, 10L);
+    databaseDown = true;
+    assertThatThrownBy(() -> seatChangeJournal.flush()).isInstanceOf(IllegalStateException.class);
+
+    // when
+    databaseDown = false;
+    seatChangeJournal.flush();
+
+    // then
+    assertThat(batches).containsExactly(1);
+  }
+
+  @Test
+  void changesOverLimitAreDroppedWhileDatabaseIsDown() {
+    // given
+    databaseDown = true;
+    for (int i = 0; i < 5; i++) {
+      seatChangeJournal.cancelled(1L, "token" + i);
+    }
+    assertThatThrownBy(() -> seatChangeJournal.flush()).isInstanceOf(IllegalStateException.class);
+
+    // when
+    databaseDown = false;
+    seatChangeJournal.flush();
+
+    // then
+    assertThat(batches).containsExactly(2, 1);
+    assertThat(seatChangeJournal.getStats()).extracting("unwritten", "written", "dropped",
+        "failedFlushes").containsExactly(0, 3L, 2L, 1L);
+  }
+}
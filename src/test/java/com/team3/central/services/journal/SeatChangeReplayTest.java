@@ -0,0 +1,99 @@
+package com.team3.central.services.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.SeatChangeRepository;
+import com.team3.central.repositories.entities.SeatChange;
+import com.team3.central.repositories.entities.enums.SeatChangeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SeatChangeReplayTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private SeatChangeRepository seatChangeRepository;
+  private SeatChangeReplay seatChangeReplay;
+  private final List<SeatChange> changes = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    seatChangeRepository = mock(SeatChangeRepository.class);
+    seatChangeReplay = new SeatChangeReplay(seatChangeRepository);
+    when(seatChangeRepository.findTop1000ByEventIdAndIdGreaterThanOrderByIdAsc(eq(EVENT_ID),
+        anyLong())).thenAnswer(invocation -> {
+          long lastId = invocation.getArgument(1);
+          return changes.stream().filter(change -> change.getId() > lastId)
+              .collect(Collectors.toList());
+        });
+  }
+
+  @Test
+  void placesAreRebuiltAtAnyMoment() {
+    // given
+    change(SeatChangeType.CREATE, 1000, null, null, null, 4L);
+    change(SeatChangeType.RESERVE, 2000, 0L, "first", null, null);
+    change(SeatChangeType.RESERVE, 3000, 1L, "second", null, null);
+    change(SeatChangeType.CANCEL, 4000, null, "first", null, null);
+    change(SeatChangeType.RESIZE, 5000, null, null, null, 6L);
+
+    // when & then
+    assertThat(seatChangeReplay.replay(EVENT_ID, 3500)).hasValueSatisfying(event -> {
+      assertThat(event.getTakenPlaces().stream()).containsExactly(0, 1);
+      assertThat(event.getFreePlace()).isEqualTo(2);
+    });
+    assertThat(seatChangeReplay.replay(EVENT_ID, 5000)).hasValueSatisfying(event -> {
+      assertThat(event.getTakenPlaces().stream()).containsExactly(1);
+      assertThat(event.getFreePlace()).isEqualTo(5);
+    });
+  }
+
+  @Test
+  void holdIsFreeOnceItRunsOutUnlessConfirmed() {
+    // given
+    change(SeatChangeType.CREATE, 1000, null, null, null, 4L);
+    change(SeatChangeType.RESERVE, 2000, 0L, "held", 10L, null);
+    change(SeatChangeType.RESERVE, 2000, 1L, "confirmed", 10L, null);
+    change(SeatChangeType.CONFIRM, 3000, null, "confirmed", null, null);
+    // Place of expired hold taken by other buyer
+    change(SeatChangeType.RESERVE, 12000, 0L, "later", null, null);
+
+    // when & then
+    assertThat(seatChangeReplay.replay(EVENT_ID, 9000)).hasValueSatisfying(event ->
+        assertThat(event.getTakenPlaces().stream()).containsExactly(0, 1));
+    assertThat(seatChangeReplay.replay(EVENT_ID, 11000)).hasValueSatisfying(event ->
+        assertThat(event.getTakenPlaces().stream()).containsExactly(1));
+    assertThat(seatChangeReplay.replay(EVENT_ID, 12000)).hasValueSatisfying(event ->
+        assertThat(event.getTakenPlaces().stream()).containsExactly(0, 1));
+  }
+
+  @Test
+  void eventCreatedBeforeJournalCannotBeReplayed() {
+    // given
+    change(SeatChangeType.RESERVE, 2000, 0L, "first", null, null);
+
+    // when & then
+    assertThat(seatChangeReplay.replay(EVENT_ID, 3000)).isEmpty();
+  }
+
+  private void change(SeatChangeType type, long changedAt, Long placeId, String reservationToken,
+      Long holdUntil, Long maxPlace) {
+    changes.add(SeatChange.builder()
+        .id(changes.size() + 1L)
+        .eventId(EVENT_ID)
+        .type(type)
+        .changedAt(changedAt)
+        .placeId(placeId)
+        .reservationToken(reservationToken)
+        .holdUntil(holdUntil)
+        .maxPlace(maxPlace)
+        .build());
+  }
+}
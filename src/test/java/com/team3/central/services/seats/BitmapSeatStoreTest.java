@@ -0,0 +1,270 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.repositories.projections.ReleasedPlace;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+class BitmapSeatStoreTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private ReservationRepository reservationRepository;
+  private EventRepository eventRepository;
+  private BitmapSeatStore seatStore;
+
+  @BeforeEach
+  void setUp() {
+    reservationRepository = mock(ReservationRepository.class);
+    eventRepository = mock(EventRepository.class);
+    seatStore = new BitmapSeatStore(reservationRepository, eventRepository,
+        TransactionOperations.withoutTransaction());
+  }
+
+  private Event event(long maxPlace, byte[] occupancy) {
+    return Event.builder()
+        .id(EVENT_ID)
+        .maxPlace(maxPlace)
+        .freePlace(maxPlace)
+        .seatStorage(SeatStorage.BITMAP)
+        .occupancy(occupancy)
+        .build();
+  }
+
+  @Test
+  void createPlacesAllocatesBitPerPlace() {
+    // given
+    Event event = event(17L, null);
+
+    // when
+    seatStore.createPlaces(event);
+
+    // then
+    assertThat(event.getOccupancy()).hasSize(3).containsOnly((byte) 0);
+    verify(eventRepository).updateOccupancy(EVENT_ID, event.getOccupancy());
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveChosenPlace() {
+    // given
+    Event event = event(16L, new byte[2]);
+    when(eventRepository.claimPlace(EVENT_ID, 9L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, 9L, "token", null);
+
+    // then
+    assertThat(reservation).extracting("placeOnSchema", "reservationToken", "event")
+        .containsExactly(9L, "token", event);
+    verify(reservationRepository).save(reservation);
+  }
+
+  @Test
+  void reserveAlreadyTakenPlace() {
+    // given
+    Event event = event(16L, new byte[]{0, 2});
+    when(eventRepository.claimPlace(EVENT_ID, 9L)).thenReturn(0);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 9L, "token", null))
+        .isInstanceOf(NoFreePlaceException.class);
+  }
+
+  @Test
+  void reservePlaceOutsideOfEvent() {
+    // given
+    Event event = event(16L, new byte[2]);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 16L, "token", null))
+        .isInstanceOf(NotFoundException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceStartsAtTokenOffset() {
+    // given
+    // "token".hashCode() % 16 == 9
+    Event event = event(16L, new byte[]{0b0011, 0});
+    when(eventRepository.claimPlace(EVENT_ID, 9L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(9L);
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceRetriesWhenPlaceWasTakenMeanwhile() {
+    // given
+    Event event = event(16L, new byte[]{0b0011, 0});
+    when(eventRepository.claimPlace(EVENT_ID, 9L)).thenReturn(0);
+    when(eventRepository.findOccupancyById(EVENT_ID))
+        .thenReturn(() -> new byte[]{0b0011, 0b0110});
+    when(eventRepository.claimPlace(EVENT_ID, 11L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(11L);
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceRereadsMaxPlaceWhenPlaceNoLongerExists() {
+    // given
+    Event event = event(16L, new byte[]{0b0011, 0});
+    when(eventRepository.findOccupancyById(EVENT_ID)).thenReturn(() -> new byte[]{0b0011, 0});
+    when(eventRepository.findMaxPlaceById(EVENT_ID)).thenReturn(8L);
+    when(eventRepository.claimPlace(EVENT_ID, 2L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(2L);
+  }
+
+  @Test
+  void reserveAnyPlaceGivesUpAfterAsManyFailuresAsPlaces() {
+    // given
+    Event event = event(2L, new byte[]{0});
+    when(eventRepository.findOccupancyById(EVENT_ID)).thenReturn(() -> new byte[]{0});
+    when(eventRepository.findMaxPlaceById(EVENT_ID)).thenReturn(2L);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, null, "token", null))
+        .isInstanceOf(NoFreePlaceException.class);
+    verify(eventRepository, times(2)).claimPlace(anyLong(), anyLong());
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceWrapsAroundEndOfEvent() {
+    // given
+    Event event = event(16L, new byte[]{0b0011, (byte) 0xFF});
+    when(eventRepository.claimPlace(EVENT_ID, 2L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(2L);
+  }
+
+  @Test
+  void reserveAnyPlaceWhenAllAreTaken() {
+    // given
+    Event event = event(8L, new byte[]{(byte) 0xFF});
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, null, "token", null))
+        .isInstanceOf(NotFoundException.class)
+        .hasMessage("No free places in event");
+  }
+
+  @SneakyThrows
+  @Test
+  void resizeKeepsReservedPlaces() {
+    // given
+    Event event = event(16L, new byte[]{0b0101, 0b0001});
+    when(eventRepository.findOccupancyById(EVENT_ID)).thenReturn(() -> new byte[]{0b0101, 1});
+
+    // when
+    seatStore.resize(event, 30L);
+
+    // then
+    assertThat(event.getOccupancy()).containsExactly(new byte[]{0b0101, 1, 0, 0});
+    verify(eventRepository).updateOccupancy(EVENT_ID, event.getOccupancy());
+  }
+
+  @Test
+  void resizeBelowReservedPlace() {
+    // given
+    Event event = event(16L, new byte[]{0b0101, 0b0001});
+    when(eventRepository.findOccupancyById(EVENT_ID)).thenReturn(() -> new byte[]{0b0101, 1});
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.resize(event, 8L))
+        .isInstanceOf(ReservedPlacesException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void cancelClearsBitAndRemovesReservation() {
+    // given
+    Event event = event(16L, new byte[]{0, 2});
+    Reservation reservation = new Reservation(event, 9L, "token");
+    reservation.setId(7L);
+    when(reservationRepository.deleteReservation(7L, "token")).thenReturn(1);
+
+    // when
+    seatStore.cancel(reservation);
+
+    // then
+    verify(eventRepository).releasePlace(EVENT_ID, 9L);
+  }
+
+  @Test
+  void expiredHoldsAreReleasedWithOneUpdatePerEventAndBatch() {
+    // given
+    when(reservationRepository.deleteExpiredHoldsReturningPlaces(100L, "BITMAP",
+        SeatStore.HOLD_RELEASE_BATCH))
+        .thenReturn(List.of(released(EVENT_ID, 0L), released(EVENT_ID, 9L)), List.of());
+    when(eventRepository.findOccupancyForUpdate(EVENT_ID)).thenReturn(new byte[]{0b0101, 2, 0});
+
+    // when
+    seatStore.releaseExpiredHolds(100L);
+
+    // then
+    verify(eventRepository).releasePlaces(EVENT_ID, new byte[]{0b0100, 0, 0}, 2);
+    verify(eventRepository, never()).releasePlace(anyLong(), anyLong());
+  }
+
+  @Test
+  void getTakenPlacesReadsBitmap() {
+    // given
+    Event event = event(16L, new byte[]{0b0101, 0b0001});
+
+    // when & then
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed())
+        .containsExactly(0, 2, 8);
+  }
+
+  private static ReleasedPlace released(Long eventId, Long placeOnSchema) {
+    return new ReleasedPlace() {
+      @Override
+      public Long getEventId() {
+        return eventId;
+      }
+
+      @Override
+      public Long getPlaceOnSchema() {
+        return placeOnSchema;
+      }
+    };
+  }
+}
@@ -0,0 +1,193 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyRowSeatStoreTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private ReservationRepository reservationRepository;
+  private EventRepository eventRepository;
+  private LazyRowSeatStore seatStore;
+
+  @BeforeEach
+  void setUp() {
+    reservationRepository = mock(ReservationRepository.class);
+    eventRepository = mock(EventRepository.class);
+    seatStore = new LazyRowSeatStore(reservationRepository, eventRepository);
+  }
+
+  private Event event(long maxPlace) {
+    return Event.builder()
+        .id(EVENT_ID)
+        .maxPlace(maxPlace)
+        .freePlace(maxPlace)
+        .seatStorage(SeatStorage.LAZY_ROWS)
+        .build();
+  }
+
+  @Test
+  void createPlacesDoesNotTouchDatabase() {
+    // when
+    seatStore.createPlaces(event(40_000L));
+
+    // then
+    verifyNoInteractions(reservationRepository, eventRepository);
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveChosenPlaceInsertsRow() {
+    // given
+    Event event = event(10L);
+    when(reservationRepository.insertReservation(EVENT_ID, 3L, "token", 0L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, 3L, "token", null);
+
+    // then
+    assertThat(reservation).extracting("placeOnSchema", "reservationToken", "event")
+        .containsExactly(3L, "token", event);
+    verify(eventRepository).changeFreePlace(EVENT_ID, -1L);
+  }
+
+  @Test
+  void reserveAlreadyTakenPlace() {
+    // given
+    Event event = event(10L);
+    when(reservationRepository.insertReservation(EVENT_ID, 3L, "token", 0L)).thenReturn(0);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 3L, "token", null))
+        .isInstanceOf(NoFreePlaceException.class);
+    verify(eventRepository, never()).changeFreePlace(anyLong(), anyLong());
+  }
+
+  @Test
+  void reservePlaceOutsideOfEvent() {
+    // given
+    Event event = event(10L);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 10L, "token", null))
+        .isInstanceOf(NotFoundException.class);
+    verify(reservationRepository, never()).insertReservation(anyLong(), anyLong(), anyString(), anyLong());
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceSkipsReservedOnes() {
+    // given
+    // "token".hashCode() % 10 == 5
+    Event event = event(10L);
+    when(reservationRepository.findReservedPlaces(EVENT_ID)).thenReturn(List.of(5L, 6L, 8L));
+    when(reservationRepository.insertReservation(EVENT_ID, 7L, "token", 0L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(7L);
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceRereadsMaxPlaceWhenPlaceNoLongerExists() {
+    // given
+    // "token".hashCode() % 10 == 5, but event has only 4 places now
+    Event event = event(10L);
+    when(eventRepository.findMaxPlaceById(EVENT_ID)).thenReturn(4L);
+    when(reservationRepository.insertReservation(EVENT_ID, 0L, "token", 0L)).thenReturn(1);
+
+    // when
+    Reservation reservation = seatStore.reserve(event, null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(0L);
+  }
+
+  @Test
+  void reserveAnyPlaceWhenAllAreTaken() {
+    // given
+    Event event = event(2L);
+    when(reservationRepository.findReservedPlaces(EVENT_ID)).thenReturn(List.of(1L, 0L));
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, null, "token", null))
+        .isInstanceOf(NotFoundException.class)
+        .hasMessage("No free places in event");
+  }
+
+  @Test
+  void resizeBelowReservedPlace() {
+    // given
+    Event event = event(10L);
+    when(reservationRepository.countByEventIdAndPlaceOnSchemaGreaterThanEqual(EVENT_ID, 5L))
+        .thenReturn(1L);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.resize(event, 5L))
+        .isInstanceOf(ReservedPlacesException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void resizeUpwardsNeedsNoCheck() {
+    // when
+    seatStore.resize(event(10L), 20L);
+
+    // then
+    verifyNoInteractions(reservationRepository);
+  }
+
+  @SneakyThrows
+  @Test
+  void cancelDeletesRow() {
+    // given
+    Event event = event(10L);
+    event.setFreePlace(4L);
+    Reservation reservation = new Reservation(event, 3L, "token");
+    reservation.setId(7L);
+    when(reservationRepository.deleteReservation(7L, "token")).thenReturn(1);
+
+    // when
+    seatStore.cancel(reservation);
+
+    // then
+    verify(eventRepository).changeFreePlace(EVENT_ID, 1L);
+  }
+
+  @Test
+  void cancelAlreadyCancelledReservation() {
+    // given
+    Reservation reservation = new Reservation(event(10L), 3L, "token");
+    reservation.setId(7L);
+    when(reservationRepository.deleteReservation(7L, "token")).thenReturn(0);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.cancel(reservation))
+        .isInstanceOf(NotFoundException.class);
+    verify(eventRepository, never()).changeFreePlace(anyLong(), anyLong());
+  }
+}
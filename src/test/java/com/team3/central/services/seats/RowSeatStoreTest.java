@@ -0,0 +1,102 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.exceptions.NotFoundException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+class RowSeatStoreTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private ReservationRepository reservationRepository;
+  private EventRepository eventRepository;
+  private RowSeatStore seatStore;
+
+  @BeforeEach
+  void setUp() {
+    reservationRepository = mock(ReservationRepository.class);
+    eventRepository = mock(EventRepository.class);
+    seatStore = new RowSeatStore(reservationRepository, eventRepository,
+        TransactionOperations.withoutTransaction());
+  }
+
+  private Event event() {
+    return Event.builder()
+        .id(EVENT_ID)
+        .maxPlace(10L)
+        .freePlace(10L)
+        .seatStorage(SeatStorage.ROWS)
+        .build();
+  }
+
+  @SneakyThrows
+  @Test
+  void anyPlaceIsClaimedAgainWhileOthersHoldFreePlaces() {
+    // given
+    when(reservationRepository.claimFirstFreePlace(EVENT_ID, "token", 0L))
+        .thenReturn(null, null, 4L);
+    when(reservationRepository.existsByEventIdAndReservationTokenIsNull(EVENT_ID))
+        .thenReturn(true);
+
+    // when
+    Reservation reservation = seatStore.reserve(event(), null, "token", null);
+
+    // then
+    assertThat(reservation.getPlaceOnSchema()).isEqualTo(4L);
+    verify(eventRepository).changeFreePlace(EVENT_ID, -1L);
+  }
+
+  @Test
+  void claimIsTriedAgainUntilLockedPlacesAreTaken() {
+    // given
+    when(reservationRepository.claimFirstFreePlace(EVENT_ID, "token", 0L)).thenReturn(null);
+    when(reservationRepository.existsByEventIdAndReservationTokenIsNull(EVENT_ID))
+        .thenReturn(true, true, false);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event(), null, "token", null))
+        .isInstanceOf(NotFoundException.class);
+    verify(reservationRepository, times(3)).claimFirstFreePlace(EVENT_ID, "token", 0L);
+    verify(eventRepository, never()).changeFreePlace(anyLong(), anyLong());
+  }
+
+  @Test
+  void soldOutEventIsNotClaimedAgain() {
+    // given
+    when(reservationRepository.claimFirstFreePlace(EVENT_ID, "token", 0L)).thenReturn(null);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event(), null, "token", null))
+        .isInstanceOf(NotFoundException.class);
+    verify(reservationRepository, times(1)).claimFirstFreePlace(EVENT_ID, "token", 0L);
+  }
+
+  @Test
+  void cancelHoldOfConfirmedReservation() {
+    // given
+    Reservation reservation = new Reservation(event(), 3L, "token");
+    reservation.setId(7L);
+    when(reservationRepository.releaseHold(7L, "token")).thenReturn(0);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.cancelHold(reservation))
+        .isInstanceOf(NotFoundException.class);
+    verify(eventRepository, never()).changeFreePlace(anyLong(), anyLong());
+  }
+}
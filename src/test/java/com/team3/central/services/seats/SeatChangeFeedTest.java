@@ -0,0 +1,128 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.team3.central.openapi.model.EventWithPlaces;
+import com.team3.central.repositories.entities.enums.EventStatus;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SeatChangeFeedTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private SeatChangeFeed seatChangeFeed;
+
+  @BeforeEach
+  void setUp() {
+    // Two changes kept per event
+    seatChangeFeed = new SeatChangeFeed(10, 2, 1);
+  }
+
+  @Test
+  void firstReadListsAllPlaces() {
+    // when
+    SeatChanges changes = seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), null);
+
+    // then
+    assertThat(changes.isSnapshot()).isTrue();
+    assertThat(changes.getPlaces().cardinality()).isEqualTo(5);
+  }
+
+  @Test
+  void placesChangedSinceVersionAreListed() {
+    // given
+    SeatMap seatMap = seatMap(5L).withTaken(List.of(1L, 2L));
+    long version = seatChangeFeed.changesSince(EVENT_ID, seatMap, null).getVersion();
+
+    // when
+    // Place 1 was cancelled, place 3 reserved
+    SeatMap changed = seatMap(5L).withTaken(List.of(2L, 3L));
+    SeatChanges changes = seatChangeFeed.changesSince(EVENT_ID, changed, version);
+    SeatChanges unchanged = seatChangeFeed.changesSince(EVENT_ID, changed,
+        changes.getVersion());
+
+    // then
+    assertThat(changes.isSnapshot()).isFalse();
+    assertThat(changes.getPlaces().stream()).containsExactly(1, 3);
+    assertThat(changes.getTakenPlaces().get(1)).isFalse();
+    assertThat(changes.getTakenPlaces().get(3)).isTrue();
+    assertThat(unchanged.isSnapshot()).isFalse();
+    assertThat(unchanged.getPlaces().isEmpty()).isTrue();
+  }
+
+  @Test
+  void clientTooFarBehindGetsAllPlaces() {
+    // given
+    long version = seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), null).getVersion();
+
+    // when
+    SeatChanges changes = seatChangeFeed.changesSince(EVENT_ID,
+        seatMap(5L).withTaken(List.of(0L, 1L, 2L)), version);
+
+    // then
+    assertThat(changes.isSnapshot()).isTrue();
+    assertThat(changes.getPlaces().cardinality()).isEqualTo(5);
+  }
+
+  @Test
+  void versionOfOtherInstanceGetsAllPlaces() {
+    // given
+    SeatChangeFeed otherInstance = new SeatChangeFeed(10, 2, 2);
+    long version = otherInstance.changesSince(EVENT_ID, seatMap(5L), null).getVersion();
+    seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), null);
+
+    // when
+    SeatChanges changes = seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), version);
+
+    // then
+    assertThat(changes.isSnapshot()).isTrue();
+  }
+
+  @Test
+  void versionOfEpochDifferingInHighBitsGetsAllPlaces() {
+    // given
+    SeatChangeFeed otherInstance = new SeatChangeFeed(10, 2, 1 + (1 << 20));
+    long version = otherInstance.changesSince(EVENT_ID, seatMap(5L), null).getVersion();
+    seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), null);
+
+    // when
+    SeatChanges changes = seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), version);
+
+    // then
+    assertThat(changes.isSnapshot()).isTrue();
+  }
+
+  @Test
+  void versionsOfLastEpochAreExactInJavaScript() {
+    // given
+    SeatChangeFeed lastEpoch = new SeatChangeFeed(10, 2, SeatChangeFeed.EPOCHS - 1);
+
+    // when
+    long version = lastEpoch.changesSince(EVENT_ID, seatMap(5L), null).getVersion();
+
+    // then
+    assertThat(version).isLessThan(1L << 53);
+  }
+
+  @Test
+  void resizedEventListsAllPlaces() {
+    // given
+    long version = seatChangeFeed.changesSince(EVENT_ID, seatMap(5L), null).getVersion();
+
+    // when
+    SeatChanges changes = seatChangeFeed.changesSince(EVENT_ID, seatMap(8L), version);
+
+    // then
+    assertThat(changes.isSnapshot()).isTrue();
+    assertThat(changes.getPlaces().cardinality()).isEqualTo(8);
+  }
+
+  private static SeatMap seatMap(Long maxPlace) {
+    EventWithPlaces event = new EventWithPlaces();
+    event.setMaxPlace(maxPlace);
+    return new SeatMap(event, EventStatus.INFUTURE, maxPlace, new BitSet(), 0L, 0);
+  }
+}
@@ -0,0 +1,185 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.EventStatus;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.seats.memory.MemorySeatBatchWriter;
+import com.team3.central.services.seats.memory.MemorySeatFlusher;
+import com.team3.central.services.seats.memory.MemorySeatStore;
+import com.team3.central.services.seats.memory.SeatJournal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fires 500 parallel reservations at one event and checks that no place is sold twice and that
+ * freePlace ends consistent with sold places (after write-behind flush), for every seat storage
+ * mode.
+ *
+ * Every client has its own thread and database connection, so all 500 claims are in flight at
+ * once. Needs running PostgreSQL accepting that many connections (max_connections). Tables are
+ * created in separate seat_stress_test schema and dropped afterwards, so it is skipped unless
+ * started explicitly:
+ * mvn test -Dbenchmark=true -Dtest=SeatClaimStressTest
+ *   -DDB_URL=localhost -DDB_PORT=5432 -DDB_NAME=... -DDB_USERNAME=... -DDB_PASSWORD=...
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:postgresql://${DB_URL}:${DB_PORT}/${DB_NAME}"
+        + "?currentSchema=seat_stress_test",
+    "spring.datasource.hikari.maximum-pool-size=" + SeatClaimStressTest.CLIENTS,
+    "spring.jpa.properties.hibernate.default_schema=seat_stress_test",
+    "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "central.seats.memory.journal=${java.io.tmpdir}/seat-stress-journal"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RowSeatStore.class, LazyRowSeatStore.class, BitmapSeatStore.class,
+    MemorySeatStore.class, SeatJournal.class, MemorySeatFlusher.class,
+    MemorySeatBatchWriter.class})
+// Every reservation has to commit on its own, like separate HTTP requests do
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatClaimStressTest {
+
+  static final int CLIENTS = 500;
+  private static final long PLACES = 300L;
+
+  @Autowired
+  private EventRepository eventRepository;
+  @Autowired
+  private List<SeatStore> stores;
+  @Autowired
+  private MemorySeatFlusher memorySeatFlusher;
+
+  @ParameterizedTest
+  @EnumSource(SeatStorage.class)
+  void anyPlaceIsNeverSoldTwice(SeatStorage storage) throws Exception {
+    // given
+    Event event = createEvent(storage);
+    SeatStore store = store(storage);
+    Map<Long, String> soldPlaces = new ConcurrentHashMap<>();
+    AtomicInteger soldOut = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+
+    // when
+    List<Reservation> reservations = runClients(() -> {
+      try {
+        Reservation reservation = store.reserve(event, null, UUID.randomUUID().toString(), null);
+        soldPlaces.merge(reservation.getPlaceOnSchema(), reservation.getReservationToken(),
+            (first, second) -> first + "," + second);
+        return reservation;
+      } catch (NotFoundException e) {
+        soldOut.incrementAndGet();
+        return null;
+      } catch (NoFreePlaceException e) {
+        // Buyer gave up although places were still free
+        rejected.incrementAndGet();
+        return null;
+      }
+    });
+
+    // then
+    assertThat(rejected.get()).isZero();
+    assertThat(reservations).hasSize((int) PLACES);
+    assertThat(soldPlaces).hasSize((int) PLACES);
+    assertThat(soldPlaces.values()).noneMatch(tokens -> tokens.contains(","));
+    assertThat(soldOut.get()).isEqualTo(CLIENTS - (int) PLACES);
+    memorySeatFlusher.flush();
+    assertThat(eventRepository.findById(event.getId()).orElseThrow().currentFreePlace())
+        .isZero();
+  }
+
+  @ParameterizedTest
+  @EnumSource(SeatStorage.class)
+  void chosenPlaceIsSoldOnce(SeatStorage storage) throws Exception {
+    // given
+    Event event = createEvent(storage);
+    SeatStore store = store(storage);
+    AtomicInteger rejected = new AtomicInteger();
+
+    // when
+    List<Reservation> reservations = runClients(() -> {
+      try {
+        return store.reserve(event, 7L, UUID.randomUUID().toString(), null);
+      } catch (NoFreePlaceException e) {
+        rejected.incrementAndGet();
+        return null;
+      }
+    });
+
+    // then
+    assertThat(reservations).hasSize(1);
+    assertThat(rejected.get()).isEqualTo(CLIENTS - 1);
+    memorySeatFlusher.flush();
+    assertThat(eventRepository.findById(event.getId()).orElseThrow().currentFreePlace())
+        .isEqualTo(PLACES - 1);
+  }
+
+  private Event createEvent(SeatStorage storage) {
+    Event event = eventRepository.save(Event.builder()
+        .title("stress test")
+        .status(EventStatus.INFUTURE)
+        .maxPlace(PLACES)
+        .freePlace(PLACES)
+        .seatStorage(storage)
+        .build());
+    store(storage).createPlaces(event);
+    return event;
+  }
+
+  private SeatStore store(SeatStorage storage) {
+    return stores.stream().filter(store -> store.getStorage() == storage).findFirst()
+        .orElseThrow();
+  }
+
+  // Starts all clients at once, once every one of them waits on its own thread, and returns
+  // successful reservations
+  private List<Reservation> runClients(Callable<Reservation> client) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+    CountDownLatch ready = new CountDownLatch(CLIENTS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Reservation>> futures = new ArrayList<>();
+    for (int i = 0; i < CLIENTS; i++) {
+      futures.add(executor.submit(() -> {
+        ready.countDown();
+        start.await();
+        return client.call();
+      }));
+    }
+    ready.await();
+    start.countDown();
+
+    List<Reservation> reservations = new ArrayList<>();
+    for (Future<Reservation> future : futures) {
+      Reservation reservation = future.get();
+      if (reservation != null) {
+        reservations.add(reservation);
+      }
+    }
+    executor.shutdown();
+    return reservations;
+  }
+}
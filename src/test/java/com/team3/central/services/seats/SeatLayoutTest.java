@@ -0,0 +1,95 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SeatLayoutTest {
+
+  @Test
+  void rowsAreReadFromPlaceSchema() {
+    // when
+    SeatLayout layout = SeatLayout.of("{\"rows\": [4, 4, 2]}", 10L);
+
+    // then
+    assertThat(layout.getRowCount()).isEqualTo(3);
+    assertThat(layout.getRowStart(1)).isEqualTo(4L);
+    assertThat(layout.getRowEnd(2)).isEqualTo(10L);
+  }
+
+  @Test
+  void rowsAboveMaxPlaceAreIgnored() {
+    // when
+    SeatLayout layout = SeatLayout.of("{\"rows\": [4, 4, 4]}", 6L);
+
+    // then
+    assertThat(layout.getRowCount()).isEqualTo(2);
+    assertThat(layout.getRowEnd(1)).isEqualTo(6L);
+  }
+
+  @Test
+  void unknownPlaceSchemaIsOneRow() {
+    // when
+    SeatLayout layout = SeatLayout.of("Seralized place schema", 10L);
+
+    // then
+    assertThat(layout.getRowCount()).isEqualTo(1);
+    assertThat(layout.getRowEnd(0)).isEqualTo(10L);
+  }
+
+  @Test
+  void bestFreePlacesAreRankedOneByOne() {
+    // given
+    SeatLayout layout = SeatLayout.of("{\"rows\": [5, 5]}", 10L);
+    BitSet takenPlaces = new BitSet();
+    takenPlaces.set(2);
+
+    // when & then
+    assertThat(layout.findBestFreePlaces(takenPlaces, 6)).containsExactly(1L, 3L, 0L, 4L, 7L, 6L);
+    assertThat(layout.findBestFreePlaces(takenPlaces, 20)).hasSize(9);
+  }
+
+  @Test
+  void contiguousBlockDoesNotCrossRows() {
+    // given
+    SeatLayout layout = SeatLayout.of("{\"rows\": [4, 4]}", 8L);
+    BitSet takenPlaces = new BitSet();
+    takenPlaces.set(1);
+    takenPlaces.set(6);
+
+    // when & then
+    assertThat(layout.findContiguousBlock(takenPlaces, 2)).contains(List.of(2L, 3L));
+    assertThat(layout.findContiguousBlock(takenPlaces, 3)).isEmpty();
+  }
+
+  @Test
+  void rowsOfPlaceSchemaMayHaveSectionAndQuality() {
+    // given
+    SeatLayout layout = SeatLayout.of("{\"rows\": [{\"seats\": 6, \"section\": \"Stalls\"},"
+        + " {\"seats\": 6, \"section\": \"Balcony\", \"quality\": 1}]}", 12L);
+    BitSet takenPlaces = new BitSet();
+    takenPlaces.set(8);
+
+    // when & then
+    assertThat(layout.getSection(1)).isEqualTo("Balcony");
+    assertThat(layout.findBestPlaces(takenPlaces, 2, true)).contains(List.of(9L, 10L));
+    assertThat(layout.findBestPlaces(takenPlaces, 4, true)).contains(List.of(1L, 2L, 3L, 4L));
+  }
+
+  @Test
+  void bestPlacesAreSplitOnlyWhenNoRowHasBlock() {
+    // given
+    SeatLayout layout = SeatLayout.of("{\"rows\": [6, 6]}", 12L);
+    BitSet takenPlaces = new BitSet();
+    takenPlaces.set(2, 4);
+    takenPlaces.set(6, 12);
+
+    // when & then
+    assertThat(layout.findBestPlaces(takenPlaces, 2, false)).contains(List.of(0L, 1L));
+    assertThat(layout.findBestPlaces(takenPlaces, 3, true)).isEmpty();
+    assertThat(layout.findBestPlaces(takenPlaces, 3, false)).contains(List.of(0L, 1L, 4L));
+    assertThat(layout.findBestPlaces(takenPlaces, 5, false)).isEmpty();
+  }
+}
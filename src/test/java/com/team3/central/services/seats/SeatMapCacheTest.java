@@ -0,0 +1,147 @@
+package com.team3.central.services.seats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.openapi.model.EventWithPlaces;
+import com.team3.central.repositories.entities.enums.EventStatus;
+import java.time.Clock;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SeatMapCacheTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private Clock clock;
+  private SeatMapCache seatMapCache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    loads = new AtomicInteger();
+    seatMapCache = new SeatMapCache(2, 1000, clock);
+  }
+
+  @Test
+  void reservationIsPatchedIntoCachedSeatMap() {
+    // given
+    seatMapCache.get(EVENT_ID, this::load);
+
+    // when
+    seatMapCache.reserved(EVENT_ID, List.of(3L));
+    // Reservation already in seat map is not counted again
+    seatMapCache.reserved(EVENT_ID, List.of(3L));
+    SeatMap seatMap = seatMapCache.get(EVENT_ID, this::load);
+
+    // then
+    assertThat(loads).hasValue(1);
+    assertThat(seatMap.getTakenPlaces().get(3)).isTrue();
+    assertThat(seatMap.getFreePlace()).isEqualTo(9L);
+    assertThat(seatMap.getPatches()).isEqualTo(1);
+    assertThat(seatMapCache.getStats()).extracting("hits", "misses", "patches")
+        .containsExactly(1L, 1L, 2L);
+  }
+
+  @Test
+  void invalidatedSeatMapIsReadAgain() {
+    // given
+    seatMapCache.get(EVENT_ID, this::load);
+
+    // when
+    seatMapCache.invalidate(EVENT_ID);
+    seatMapCache.get(EVENT_ID, this::load);
+
+    // then
+    assertThat(loads).hasValue(2);
+    assertThat(seatMapCache.getStats().getInvalidations()).isEqualTo(1);
+  }
+
+  @Test
+  void seatMapChangedWhileReadIsNotCached() {
+    // when
+    SeatMap seatMap = seatMapCache.get(EVENT_ID, () -> {
+      // Cancellation commits after its place was read as taken
+      seatMapCache.invalidate(EVENT_ID);
+      return load();
+    });
+    seatMapCache.get(EVENT_ID, this::load);
+
+    // then
+    assertThat(seatMap).isNotNull();
+    assertThat(loads).hasValue(2);
+    assertThat(seatMapCache.getStats().getDiscardedLoads()).isEqualTo(1);
+  }
+
+  @Test
+  void oldSeatMapIsReadAgain() {
+    // given
+    seatMapCache.get(EVENT_ID, this::load);
+    when(clock.millis()).thenReturn(400L);
+    seatMapCache.get(EVENT_ID, this::load);
+
+    // when
+    when(clock.millis()).thenReturn(1000L);
+    seatMapCache.get(EVENT_ID, this::load);
+
+    // then
+    assertThat(loads).hasValue(2);
+    assertThat(seatMapCache.getStats()).extracting("expirations", "maxServedAgeMillis")
+        .containsExactly(1L, 400L);
+  }
+
+  @Test
+  void leastRecentlyViewedEventIsEvicted() {
+    // given
+    seatMapCache.get(1L, this::load);
+    seatMapCache.get(2L, this::load);
+    seatMapCache.get(1L, this::load);
+
+    // when
+    seatMapCache.get(3L, this::load);
+    seatMapCache.get(1L, this::load);
+
+    // then
+    assertThat(loads).hasValue(3);
+    assertThat(seatMapCache.getStats()).extracting("size", "evictions")
+        .containsExactly(2, 1L);
+  }
+
+  @Test
+  void missingEventIsNotCached() {
+    // when
+    seatMapCache.get(EVENT_ID, () -> null);
+
+    // then
+    assertThat(seatMapCache.getStats().getSize()).isZero();
+  }
+
+  @Test
+  void takenPlacesAreReadOnlyFromFreshSeatMap() {
+    // given
+    seatMapCache.get(EVENT_ID, this::load);
+    seatMapCache.reserved(EVENT_ID, List.of(3L));
+
+    // when
+    boolean cached = seatMapCache.getTakenPlaces(EVENT_ID).map(places -> places.get(3))
+        .orElse(false);
+    when(clock.millis()).thenReturn(1000L);
+
+    // then
+    assertThat(cached).isTrue();
+    assertThat(seatMapCache.getTakenPlaces(EVENT_ID)).isEmpty();
+    assertThat(seatMapCache.getTakenPlaces(2L)).isEmpty();
+    assertThat(loads).hasValue(1);
+  }
+
+  private SeatMap load() {
+    loads.incrementAndGet();
+    return new SeatMap(new EventWithPlaces(), EventStatus.INFUTURE, 10L, new BitSet(), 0L, 0);
+  }
+}
@@ -0,0 +1,52 @@
+package com.team3.central.services.seats.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.team3.central.services.seats.memory.HoldWheel.Hold;
+import org.junit.jupiter.api.Test;
+
+class HoldWheelTest {
+
+  private final HoldWheel wheel = new HoldWheel();
+
+  @Test
+  void onlyExpiredHoldsComeOut() {
+    // given
+    wheel.advance(100L);
+    wheel.add(new Hold(1L, 0, "first", 105L));
+    wheel.add(new Hold(1L, 1, "second", 110L));
+
+    // when & then
+    assertThat(wheel.advance(105L)).isEmpty();
+    assertThat(wheel.advance(106L)).extracting(Hold::getReservationToken)
+        .containsExactly("first");
+    assertThat(wheel.advance(111L)).extracting(Hold::getReservationToken)
+        .containsExactly("second");
+  }
+
+  @Test
+  void holdSharingBucketWithLaterSecondStays() {
+    // given
+    wheel.advance(100L);
+    wheel.add(new Hold(1L, 0, "first", 105L));
+    // One whole turn of wheel later, lands in the same bucket
+    wheel.add(new Hold(1L, 1, "second", 105L + 512));
+
+    // when & then
+    assertThat(wheel.advance(106L)).extracting(Hold::getReservationToken)
+        .containsExactly("first");
+    assertThat(wheel.advance(106L + 512)).extracting(Hold::getReservationToken)
+        .containsExactly("second");
+  }
+
+  @Test
+  void holdAddedAfterItsSecondPassedComesOutOnNextAdvance() {
+    // given
+    wheel.advance(100L);
+    wheel.add(new Hold(1L, 0, "late", 50L));
+
+    // when & then
+    assertThat(wheel.advance(101L)).extracting(Hold::getReservationToken)
+        .containsExactly("late");
+  }
+}
@@ -0,0 +1,272 @@
+package com.team3.central.services.seats.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.ReservationRepository;
+import com.team3.central.repositories.entities.Event;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.enums.SeatStorage;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import com.team3.central.services.exceptions.ReservedPlacesException;
+import com.team3.central.services.seats.memory.SeatJournal.Entry;
+import com.team3.central.services.seats.memory.SeatJournal.Type;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemorySeatStoreTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  @TempDir
+  Path directory;
+
+  private ReservationRepository reservationRepository;
+  private SeatJournal journal;
+  private MemorySeatStore seatStore;
+  private Event event;
+
+  @SneakyThrows
+  @BeforeEach
+  void setUp() {
+    reservationRepository = mock(ReservationRepository.class);
+    journal = spy(new SeatJournal(directory.toString()));
+    seatStore = new MemorySeatStore(reservationRepository, journal, 0);
+    event = Event.builder()
+        .id(EVENT_ID)
+        .maxPlace(4L)
+        .freePlace(2L)
+        .seatStorage(SeatStorage.MEMORY)
+        .build();
+    // Places 0 and 1 were reserved before event was loaded
+    when(reservationRepository.findByEventIdAndReservationTokenIsNotNull(EVENT_ID)).thenReturn(
+        List.of(new Reservation(event, 0L, "first"), new Reservation(event, 1L, "second")));
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveChosenPlaceIsJournaled() {
+    // when
+    Reservation reservation = seatStore.reserve(event, 3L, "token", null);
+
+    // then
+    assertThat(reservation).extracting("placeOnSchema", "reservationToken", "event")
+        .containsExactly(3L, "token", event);
+    assertThat(seatStore.findUnwrittenReservation("token")).isSameAs(reservation);
+    assertThat(journal.drainUnwritten())
+        .extracting("type", "eventId", "placeId", "reservationToken")
+        .containsExactly(tuple(Type.RESERVE, EVENT_ID, 3L, "token"));
+  }
+
+  @Test
+  void reserveAlreadyTakenPlace() {
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 1L, "token", null))
+        .isInstanceOf(NoFreePlaceException.class);
+    assertThat(journal.drainUnwritten()).isEmpty();
+  }
+
+  @Test
+  void reservePlaceOutsideOfEvent() {
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 4L, "token", null))
+        .isInstanceOf(NotFoundException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void reserveAnyPlaceUntilSoldOut() {
+    // when
+    Reservation first = seatStore.reserve(event, null, "token", null);
+    Reservation second = seatStore.reserve(event, null, "other", null);
+
+    // then
+    assertThat(first.getPlaceOnSchema()).isEqualTo(2L);
+    assertThat(second.getPlaceOnSchema()).isEqualTo(3L);
+    assertThatThrownBy(() -> seatStore.reserve(event, null, "third", null))
+        .isInstanceOf(NotFoundException.class)
+        .hasMessage("No free places in event");
+    verify(reservationRepository, times(1)).findByEventIdAndReservationTokenIsNotNull(EVENT_ID);
+  }
+
+  @SneakyThrows
+  @Test
+  void cancelFreesPlace() {
+    // given
+    Reservation reservation = seatStore.reserve(event, 3L, "token", null);
+
+    // when
+    seatStore.cancel(reservation);
+
+    // then
+    assertThat(seatStore.findUnwrittenReservation("token")).isNull();
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed()).containsExactly(0, 1);
+    assertThat(journal.drainUnwritten()).extracting(Entry::getType)
+        .containsExactly(Type.RESERVE, Type.CANCEL);
+  }
+
+  @Test
+  void cancelWithTokenNotHoldingPlace() {
+    // given
+    Reservation reservation = new Reservation(event, 1L, "first");
+    reservation.setReservationToken("stale");
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.cancel(reservation))
+        .isInstanceOf(NotFoundException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void cancelHoldKeepsConfirmedReservation() {
+    // given
+    Reservation reservation = seatStore.reserve(event, 3L, "token", 100L);
+    seatStore.confirm(reservation, 100L);
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.cancelHold(reservation))
+        .isInstanceOf(NotFoundException.class);
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed()).containsExactly(0, 1, 3);
+  }
+
+  @SneakyThrows
+  @Test
+  void reservationIsUndoneWhenJournalSyncFails() {
+    // given
+    doThrow(new IOException("Disk full")).doCallRealMethod().when(journal).sync(anyLong());
+
+    // when & then
+    assertThatThrownBy(() -> seatStore.reserve(event, 3L, "token", null))
+        .isInstanceOf(UncheckedIOException.class);
+    assertThat(seatStore.findUnwrittenReservation("token")).isNull();
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed()).containsExactly(0, 1);
+    assertThat(journal.drainUnwritten()).extracting(Entry::getType)
+        .containsExactly(Type.RESERVE, Type.CANCEL);
+  }
+
+  @SneakyThrows
+  @Test
+  void confirmationStaysWhenJournalSyncFails() {
+    // given
+    Reservation reservation = seatStore.reserve(event, 3L, "token", 100L);
+    doThrow(new IOException("Disk full")).doCallRealMethod().when(journal).sync(anyLong());
+
+    // when
+    assertThatThrownBy(() -> seatStore.confirm(reservation, 100L))
+        .isInstanceOf(UncheckedIOException.class);
+    seatStore.confirm(reservation, 100L);
+
+    // then
+    assertThat(reservation.getHoldUntil()).isNull();
+    assertThat(journal.drainUnwritten()).extracting(Entry::getType)
+        .containsExactly(Type.RESERVE, Type.CONFIRM);
+  }
+
+  @SneakyThrows
+  @Test
+  void confirmedHoldIsNotReleased() {
+    // given
+    Reservation reservation = seatStore.reserve(event, 3L, "token", 100L);
+
+    // when
+    seatStore.confirm(reservation, 100L);
+    seatStore.releaseExpiredHolds(200L);
+
+    // then
+    assertThat(reservation.getHoldUntil()).isNull();
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed()).containsExactly(0, 1, 3);
+    assertThat(journal.drainUnwritten()).extracting(Entry::getType)
+        .containsExactly(Type.RESERVE, Type.CONFIRM);
+  }
+
+  @SneakyThrows
+  @Test
+  void expiredHoldIsReleased() {
+    // given
+    Reservation reservation = seatStore.reserve(event, 3L, "token", 100L);
+
+    // when
+    seatStore.releaseExpiredHolds(100L);
+    seatStore.releaseExpiredHolds(101L);
+
+    // then
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed()).containsExactly(0, 1);
+    assertThat(journal.drainUnwritten()).extracting(Entry::getType)
+        .containsExactly(Type.RESERVE, Type.CANCEL);
+    assertThatThrownBy(() -> seatStore.confirm(reservation, 101L))
+        .isInstanceOf(NotFoundException.class);
+  }
+
+  @Test
+  void holdOfPreviousRunIsReleased() {
+    // given
+    when(reservationRepository.findEventsWithHolds(SeatStorage.MEMORY))
+        .thenReturn(List.of(event));
+    when(reservationRepository.findByEventIdAndReservationTokenIsNotNull(EVENT_ID)).thenReturn(
+        List.of(new Reservation(event, 0L, "first"), new Reservation(event, 2L, "held", 100L)));
+
+    // when
+    seatStore.loadEventsWithHolds();
+    seatStore.releaseExpiredHolds(1000L);
+
+    // then
+    assertThat(journal.drainUnwritten())
+        .extracting("type", "eventId", "placeId", "reservationToken")
+        .containsExactly(tuple(Type.CANCEL, EVENT_ID, 2L, "held"));
+    assertThat(seatStore.getTakenPlaces(event).stream().boxed()).containsExactly(0);
+  }
+
+  @Test
+  void resizeBelowReservedPlace() {
+    // when & then
+    assertThatThrownBy(() -> seatStore.resize(event, 1L))
+        .isInstanceOf(ReservedPlacesException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void resizeLimitsReservations() {
+    // when
+    seatStore.resize(event, 3L);
+
+    // then
+    assertThatThrownBy(() -> seatStore.reserve(event, 3L, "token", null))
+        .isInstanceOf(NotFoundException.class);
+  }
+
+  @SneakyThrows
+  @Test
+  void eventIsEvictedOnlyAfterItsChangesAreWritten() {
+    // given
+    seatStore.reserve(event, 3L, "token", null);
+    List<Entry> entries = journal.drainUnwritten();
+    Thread.sleep(2);
+
+    // when
+    seatStore.evictIdleEvents();
+    seatStore.getTakenPlaces(event);
+    seatStore.written(entries);
+    Thread.sleep(2);
+    seatStore.evictIdleEvents();
+    seatStore.getTakenPlaces(event);
+
+    // then
+    assertThat(seatStore.findUnwrittenReservation("token")).isNull();
+    verify(reservationRepository, times(2)).findByEventIdAndReservationTokenIsNotNull(EVENT_ID);
+  }
+}
@@ -0,0 +1,95 @@
+package com.team3.central.services.seats.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.team3.central.services.seats.memory.SeatJournal.Entry;
+import com.team3.central.services.seats.memory.SeatJournal.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SeatJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @SneakyThrows
+  @Test
+  void appendedEntriesAreQueuedInOrder() {
+    // given
+    SeatJournal journal = new SeatJournal(directory.toString());
+
+    // when
+    long first = journal.append(Type.RESERVE, 1L, 3L, "token", null);
+    long second = journal.append(Type.CANCEL, 1L, 3L, "token", null);
+    journal.sync(second);
+
+    // then
+    assertThat(second).isGreaterThan(first);
+    assertThat(journal.drainUnwritten()).extracting(Entry::getSequence)
+        .containsExactly(first, second);
+    assertThat(journal.drainUnwritten()).isEmpty();
+  }
+
+  @SneakyThrows
+  @Test
+  void rotatedSegmentCanBeReadBack() {
+    // given
+    SeatJournal journal = new SeatJournal(directory.toString());
+    journal.append(Type.RESERVE, 1L, 3L, "token", null);
+    journal.append(Type.RESERVE, 2L, 0L, "other", null);
+
+    // when
+    Path segment = journal.rotate().orElseThrow();
+
+    // then
+    assertThat(journal.read(segment))
+        .extracting("type", "eventId", "placeId", "reservationToken")
+        .containsExactly(
+            tuple(Type.RESERVE, 1L, 3L, "token"),
+            tuple(Type.RESERVE, 2L, 0L, "other"));
+    assertThat(journal.rotate()).isEmpty();
+  }
+
+  @SneakyThrows
+  @Test
+  void tornLastLineIsIgnored() {
+    // given
+    SeatJournal journal = new SeatJournal(directory.toString());
+    journal.append(Type.RESERVE, 1L, 3L, "token", null);
+    Path segment = journal.rotate().orElseThrow();
+    Files.writeString(segment, "2|RESERVE|1|4|tok", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    // when
+    List<Entry> entries = journal.read(segment);
+
+    // then
+    assertThat(entries).extracting(Entry::getPlaceId).containsExactly(3L);
+  }
+
+  @SneakyThrows
+  @Test
+  void segmentsOfPreviousRunAreFoundAfterRestart() {
+    // given
+    SeatJournal previousRun = new SeatJournal(directory.toString());
+    previousRun.append(Type.RESERVE, 1L, 3L, "token", null);
+    Path oldSegment = previousRun.rotate().orElseThrow();
+
+    // when
+    SeatJournal journal = new SeatJournal(directory.toString());
+    journal.append(Type.RESERVE, 1L, 4L, "other", null);
+    Path newSegment = journal.rotate().orElseThrow();
+
+    // then
+    assertThat(journal.existingSegments()).containsExactly(oldSegment, newSegment);
+    journal.delete(List.of(oldSegment, newSegment));
+    assertThat(journal.existingSegments()).isEmpty();
+  }
+}
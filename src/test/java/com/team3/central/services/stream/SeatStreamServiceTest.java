@@ -0,0 +1,149 @@
+package com.team3.central.services.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team3.central.openapi.model.Place;
+import com.team3.central.openapi.model.PlaceChanges;
+import com.team3.central.services.EventService;
+import com.team3.central.services.exceptions.NotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class SeatStreamServiceTest {
+
+  private static final Long EVENT_ID = 1L;
+
+  private EventService eventService;
+  private List<Runnable> pendingSends;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    eventService = mock(EventService.class);
+    pendingSends = new ArrayList<>();
+    when(eventService.getPlaceChanges(eq(EVENT_ID), isNull()))
+        .thenReturn(changes(1L, true, 10L, 0L, 1L));
+  }
+
+  @Test
+  void changesAreSentOncePerDispatch() throws Exception {
+    // given
+    SeatStreamService service = service(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+    service.subscribe(EVENT_ID, null, emitter);
+    // Burst of reservations since version 1
+    when(eventService.getPlaceChanges(EVENT_ID, 1L)).thenReturn(changes(4L, false, 7L, 2L, 3L));
+    when(eventService.getPlaceChanges(EVENT_ID, 4L)).thenReturn(changes(4L, false, 7L));
+
+    // when
+    service.dispatch();
+    service.dispatch();
+
+    // then
+    assertThat(emitter.sent).hasSize(2);
+    assertThat(emitter.sent.get(1)).contains("\"version\":4").contains("\"id\":3");
+    assertThat(emitter.completed).isFalse();
+  }
+
+  @Test
+  void slowSubscriberIsDroppedWithoutWaiting() throws Exception {
+    // given
+    // Sender never gets to write, as if client did not read
+    SeatStreamService service = service(pendingSends::add, 2);
+    RecordingEmitter emitter = new RecordingEmitter();
+    service.subscribe(EVENT_ID, null, emitter);
+    when(eventService.getPlaceChanges(EVENT_ID, 1L)).thenReturn(changes(2L, false, 9L, 0L));
+    when(eventService.getPlaceChanges(EVENT_ID, 2L)).thenReturn(changes(3L, false, 8L, 1L));
+    when(eventService.getPlaceChanges(EVENT_ID, 3L)).thenReturn(changes(4L, false, 7L, 2L));
+
+    // when
+    service.dispatch();
+    service.dispatch();
+    service.dispatch();
+
+    // then
+    assertThat(emitter.completed).isTrue();
+    assertThat(emitter.sent).isEmpty();
+    assertThat(pendingSends).hasSize(1);
+  }
+
+  @Test
+  void reconnectingSubscriberGetsChangesSinceLastEventId() throws Exception {
+    // given
+    SeatStreamService service = service(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+    when(eventService.getPlaceChanges(EVENT_ID, 5L)).thenReturn(changes(6L, false, 9L, 4L));
+
+    // when
+    service.subscribe(EVENT_ID, 5L, emitter);
+
+    // then
+    assertThat(emitter.sent).hasSize(1);
+    assertThat(emitter.sent.get(0)).contains("\"snapshot\":false");
+  }
+
+  @Test
+  void streamOfDeletedEventIsClosed() throws Exception {
+    // given
+    SeatStreamService service = service(Runnable::run, 16);
+    RecordingEmitter emitter = new RecordingEmitter();
+    service.subscribe(EVENT_ID, null, emitter);
+    when(eventService.getPlaceChanges(eq(EVENT_ID), any()))
+        .thenThrow(new NotFoundException("Index does not exist"));
+
+    // when
+    service.dispatch();
+
+    // then
+    assertThat(emitter.completed).isTrue();
+  }
+
+  private SeatStreamService service(java.util.concurrent.Executor sender, int queueSize) {
+    return new SeatStreamService(eventService, new ObjectMapper(), sender, queueSize, 0);
+  }
+
+  private static PlaceChanges changes(Long version, boolean snapshot, Long freePlace,
+      Long... placeIds) {
+    PlaceChanges changes = new PlaceChanges();
+    changes.setVersion(version);
+    changes.setSnapshot(snapshot);
+    changes.setFreePlace(freePlace);
+    changes.setMaxPlace(10L);
+    List<Place> places = new ArrayList<>();
+    for (Long placeId : placeIds) {
+      Place place = new Place();
+      place.setId(placeId);
+      place.setFree(false);
+      places.add(place);
+    }
+    changes.setPlaces(places);
+    return changes;
+  }
+
+  private static class RecordingEmitter extends SseEmitter {
+
+    private final List<String> sent = new ArrayList<>();
+    private boolean completed;
+
+    @Override
+    public void send(SseEventBuilder builder) {
+      sent.add(builder.build().stream()
+          .map(data -> data.getData().toString())
+          .collect(Collectors.joining()));
+    }
+
+    @Override
+    public synchronized void complete() {
+      completed = true;
+    }
+  }
+}
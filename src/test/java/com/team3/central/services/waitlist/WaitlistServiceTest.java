@@ -0,0 +1,241 @@
+package com.team3.central.services.waitlist;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.team3.central.repositories.EventRepository;
+import com.team3.central.repositories.WaitlistRepository;
+import com.team3.central.repositories.entities.Reservation;
+import com.team3.central.repositories.entities.WaitlistEntry;
+import com.team3.central.repositories.entities.enums.WaitlistStatus;
+import com.team3.central.services.EmailService;
+import com.team3.central.services.ReservationService;
+import com.team3.central.services.exceptions.NoFreePlaceException;
+import com.team3.central.services.exceptions.NotFoundException;
+import java.time.Clock;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WaitlistServiceTest {
+
+  private static final Long EVENT_ID = 1L;
+  private static final long NOW = 1000;
+
+  private WaitlistRepository waitlistRepository;
+  private EventRepository eventRepository;
+  private ReservationService reservationService;
+  private EmailService emailService;
+  private FreedPlaces freedPlaces;
+  private WaitlistService waitlistService;
+
+  @BeforeEach
+  void setUp() {
+    waitlistRepository = mock(WaitlistRepository.class);
+    eventRepository = mock(EventRepository.class);
+    reservationService = mock(ReservationService.class);
+    emailService = mock(EmailService.class);
+    freedPlaces = new FreedPlaces();
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(NOW * 1000);
+    when(waitlistRepository.offer(anyLong(), anyString(), anyLong())).thenReturn(1);
+    // Places are held for 60 seconds, batches of two buyers
+    waitlistService = new WaitlistService(waitlistRepository, eventRepository,
+        reservationService, emailService, freedPlaces, 60, 2, 5, clock);
+  }
+
+  @Test
+  void freedPlacesAreOfferedInOrderOfJoining() throws Exception {
+    // given
+    freedPlaces.freed(EVENT_ID);
+    when(waitlistRepository.findByEventIdAndStatusOrderByIdAsc(eq(EVENT_ID),
+        eq(WaitlistStatus.WAITING), any())).thenReturn(List.of(entry(1L), entry(2L)));
+    when(reservationService.holdPlace(EVENT_ID, NOW + 60))
+        .thenReturn(hold("first"), hold("second"));
+
+    // when
+    waitlistService.promoteWaiting();
+
+    // then
+    verify(waitlistRepository).offer(1L, "first", NOW + 60);
+    verify(waitlistRepository).offer(2L, "second", NOW + 60);
+    verify(emailService, times(2)).sendSimpleMessage(anyString(), anyString(), anyString());
+    // Whole batch was served, next one is tried in next run
+    assertThat(freedPlaces.drain()).containsExactly(EVENT_ID);
+  }
+
+  @Test
+  void othersKeepWaitingWhenPlacesRunOut() throws Exception {
+    // given
+    freedPlaces.freed(EVENT_ID);
+    when(waitlistRepository.findByEventIdAndStatusOrderByIdAsc(eq(EVENT_ID),
+        eq(WaitlistStatus.WAITING), any())).thenReturn(List.of(entry(1L), entry(2L)));
+    when(reservationService.holdPlace(EVENT_ID, NOW + 60)).thenReturn(hold("first"))
+        .thenThrow(new NoFreePlaceException("Not enough free places in event"));
+
+    // when
+    waitlistService.promoteWaiting();
+
+    // then
+    verify(waitlistRepository).offer(1L, "first", NOW + 60);
+    verify(waitlistRepository, never()).offer(eq(2L), anyString(), anyLong());
+    verify(emailService, times(1)).sendSimpleMessage(anyString(), anyString(), anyString());
+    assertThat(freedPlaces.drain()).isEmpty();
+  }
+
+  @Test
+  void holdIsReleasedWhenEntryWasServedMeanwhile() throws Exception {
+    // given
+    freedPlaces.freed(EVENT_ID);
+    when(waitlistRepository.findByEventIdAndStatusOrderByIdAsc(eq(EVENT_ID),
+        eq(WaitlistStatus.WAITING), any())).thenReturn(List.of(entry(1L)));
+    when(reservationService.holdPlace(EVENT_ID, NOW + 60)).thenReturn(hold("first"));
+    when(waitlistRepository.offer(1L, "first", NOW + 60)).thenReturn(0);
+
+    // when
+    waitlistService.promoteWaiting();
+
+    // then
+    verify(reservationService).deleteReservation("first");
+    verify(emailService, never()).sendSimpleMessage(anyString(), anyString(), anyString());
+  }
+
+  @Test
+  void endedOfferPassesPlaceToNextBuyer() {
+    // given
+    WaitlistEntry offered = entry(1L);
+    offered.setStatus(WaitlistStatus.OFFERED);
+    when(waitlistRepository.findByStatusAndHoldUntilLessThan(eq(WaitlistStatus.OFFERED),
+        eq(NOW - 5), any())).thenReturn(List.of(offered));
+
+    // when
+    waitlistService.promoteWaiting();
+
+    // then
+    assertThat(offered.getStatus()).isEqualTo(WaitlistStatus.CLOSED);
+    verify(waitlistRepository).findByEventIdAndStatusOrderByIdAsc(eq(EVENT_ID),
+        eq(WaitlistStatus.WAITING), any());
+  }
+
+  @Test
+  void confirmedOfferIsClosedWithoutFreeingPlace() {
+    // given
+    WaitlistEntry offered = entry(1L);
+    offered.setStatus(WaitlistStatus.OFFERED);
+    offered.setReservationToken("first");
+    when(waitlistRepository.findByStatusAndHoldUntilLessThan(eq(WaitlistStatus.OFFERED),
+        eq(NOW - 5), any())).thenReturn(List.of(offered));
+    when(reservationService.isConfirmed("first")).thenReturn(true);
+
+    // when
+    waitlistService.promoteWaiting();
+
+    // then
+    assertThat(offered.getStatus()).isEqualTo(WaitlistStatus.CLOSED);
+    verify(waitlistRepository, never()).findByEventIdAndStatusOrderByIdAsc(any(), any(), any());
+  }
+
+  @Test
+  void leavingKeepsConfirmedReservation() throws Exception {
+    // given
+    WaitlistEntry offered = entry(1L);
+    offered.setStatus(WaitlistStatus.OFFERED);
+    offered.setReservationToken("first");
+    when(waitlistRepository.findByWaitlistToken("waitlist1")).thenReturn(offered);
+    doThrow(new NotFoundException("No such hold")).when(reservationService)
+        .releaseHold("first");
+
+    // when
+    waitlistService.leave("waitlist1");
+
+    // then
+    assertThat(offered.getStatus()).isEqualTo(WaitlistStatus.LEFT);
+    verify(reservationService, never()).deleteReservation(anyString());
+  }
+
+  @Test
+  void leavingReleasesHeldPlace() throws Exception {
+    // given
+    WaitlistEntry offered = entry(1L);
+    offered.setStatus(WaitlistStatus.OFFERED);
+    offered.setReservationToken("first");
+    when(waitlistRepository.findByWaitlistToken("waitlist1")).thenReturn(offered);
+
+    // when
+    waitlistService.leave("waitlist1");
+
+    // then
+    assertThat(offered.getStatus()).isEqualTo(WaitlistStatus.LEFT);
+    verify(reservationService).releaseHold("first");
+  }
+
+  @Test
+  void failedEmailDoesNotStopOtherOffers() throws Exception {
+    // given
+    freedPlaces.freed(EVENT_ID);
+    when(waitlistRepository.findByEventIdAndStatusOrderByIdAsc(eq(EVENT_ID),
+        eq(WaitlistStatus.WAITING), any())).thenReturn(List.of(entry(1L), entry(2L)));
+    when(reservationService.holdPlace(EVENT_ID, NOW + 60))
+        .thenReturn(hold("first"), hold("second"));
+    doThrow(new IllegalStateException("Mail server is down")).when(emailService)
+        .sendSimpleMessage(eq("buyer1@gmail.com"), anyString(), anyString());
+
+    // when
+    waitlistService.promoteWaiting();
+
+    // then
+    verify(waitlistRepository).offer(2L, "second", NOW + 60);
+    verify(emailService).sendSimpleMessage(eq("buyer2@gmail.com"), anyString(), anyString());
+  }
+
+  @Test
+  void eventsAreMarkedAgainWhenRunFails() throws Exception {
+    // given
+    freedPlaces.freed(EVENT_ID);
+    when(waitlistRepository.findByEventIdAndStatusOrderByIdAsc(eq(EVENT_ID),
+        eq(WaitlistStatus.WAITING), any())).thenThrow(new IllegalStateException("Database down"));
+
+    // when & then
+    assertThatThrownBy(() -> waitlistService.promoteWaiting())
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(freedPlaces.drain()).containsExactly(EVENT_ID);
+  }
+
+  @Test
+  void joiningEventWithFreePlacesIsServedAtOnce() throws Exception {
+    // given
+    when(eventRepository.findOpenEventFreePlace(EVENT_ID)).thenReturn(2L);
+    when(waitlistRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    // when
+    WaitlistEntry entry = waitlistService.join(EVENT_ID, "john@gmail.com");
+
+    // then
+    assertThat(entry.getStatus()).isEqualTo(WaitlistStatus.WAITING);
+    assertThat(freedPlaces.drain()).containsExactly(EVENT_ID);
+  }
+
+  private static WaitlistEntry entry(Long id) {
+    return WaitlistEntry.builder()
+        .id(id)
+        .eventId(EVENT_ID)
+        .waitlistToken("waitlist" + id)
+        .email("buyer" + id + "@gmail.com")
+        .status(WaitlistStatus.WAITING)
+        .build();
+  }
+
+  private static Reservation hold(String reservationToken) {
+    return new Reservation(null, 3L, reservationToken, NOW + 60);
+  }
+}